@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.repository.analytics.query.AggregationType;
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.groupby.GroupByResponse;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import io.gravitee.repository.elasticsearch.benchmarks.Payloads;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DateHistogramSearchResponse;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.GroupBySearchResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static io.gravitee.repository.analytics.query.DateRangeBuilder.between;
+import static io.gravitee.repository.analytics.query.IntervalBuilder.minutes;
+import static io.gravitee.repository.analytics.query.QueryBuilders.dateHistogram;
+
+/**
+ * Convert decoded search responses to the responses of the analytics queries, and decode then convert them, with
+ * several numbers of buckets.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar ResponseConversionBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseConversionBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final DateHistogramQueryCommand dateHistogramCommand = new DateHistogramQueryCommand();
+
+	private final GroupByQueryCommand groupByCommand = new GroupByQueryCommand();
+
+	/**
+	 * Number of buckets of the responses.
+	 */
+	@Param({"10", "100", "1000"})
+	private int size;
+
+	private DateHistogramQuery dateHistogramQuery;
+
+	private byte[] dateHistogram;
+
+	private byte[] groupBy;
+
+	private DateHistogramSearchResponse dateHistogramResponse;
+
+	private GroupBySearchResponse groupByResponse;
+
+	@Setup
+	public void setup() throws IOException {
+		final long now = System.currentTimeMillis();
+		dateHistogramQuery = dateHistogram()
+				.timeRange(between(now - 86400000, now), minutes(1))
+				.aggregation(AggregationType.FIELD, "status")
+				.aggregation(AggregationType.AVG, "response-time")
+				.build();
+
+		dateHistogram = Payloads.dateHistogram(size);
+		groupBy = Payloads.groupBy(size);
+
+		dateHistogramResponse = mapper.readValue(dateHistogram, DateHistogramSearchResponse.class);
+		groupByResponse = mapper.readValue(groupBy, GroupBySearchResponse.class);
+	}
+
+	@Benchmark
+	public DateHistogramResponse dateHistogramConvert() {
+		return dateHistogramCommand.toDateHistogramResponse(dateHistogramResponse, dateHistogramQuery);
+	}
+
+	@Benchmark
+	public DateHistogramResponse dateHistogramDecodeAndConvert() throws IOException {
+		return dateHistogramCommand.toDateHistogramResponse(
+				mapper.readValue(dateHistogram, DateHistogramSearchResponse.class), dateHistogramQuery);
+	}
+
+	@Benchmark
+	public GroupByResponse groupByConvert() {
+		return groupByCommand.toGroupByResponse(groupByResponse);
+	}
+
+	@Benchmark
+	public GroupByResponse groupByDecodeAndConvert() throws IOException {
+		return groupByCommand.toGroupByResponse(mapper.readValue(groupBy, GroupBySearchResponse.class));
+	}
+}
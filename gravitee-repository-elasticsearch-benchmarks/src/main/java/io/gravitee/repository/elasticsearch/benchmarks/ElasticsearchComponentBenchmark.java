@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.elasticsearch.ElasticsearchComponent;
+import io.gravitee.repository.elasticsearch.benchmarks.mock.LatencyDistribution;
+import io.gravitee.repository.elasticsearch.benchmarks.mock.MockElasticsearchServer;
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.Health;
+import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
+import io.gravitee.repository.exceptions.TechnicalException;
+import io.vertx.core.Vertx;
+import io.vertx.rxjava.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run the Elasticsearch client against a {@link MockElasticsearchServer}, to measure its throughput, latency and
+ * allocations without a cluster.
+ *
+ * Searches are neither coalesced nor gathered into multi search requests, so each operation is an HTTP call.
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar ElasticsearchComponentBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ElasticsearchComponentBenchmark {
+
+	private static final Buffer QUERY = Buffer.buffer("{\"from\":0,\"size\":20,\"query\":{\"match_all\":{}}," +
+			"\"sort\":{\"@timestamp\":{\"order\":\"desc\"}}}");
+
+	/**
+	 * Number of hits of the search responses.
+	 */
+	@Param({"20", "1000"})
+	private int hits;
+
+	/**
+	 * Median latency of the server in milliseconds, log-normally distributed, 0 to answer immediately.
+	 */
+	@Param({"0", "20"})
+	private int latency;
+
+	private Vertx serverVertx;
+
+	private MockElasticsearchServer server;
+
+	private AnnotationConfigApplicationContext context;
+
+	private ElasticsearchComponent elasticsearchComponent;
+
+	@Setup
+	public void setup() throws Exception {
+		serverVertx = Vertx.vertx();
+		server = new MockElasticsearchServer(serverVertx)
+				.searchHits(hits)
+				.latency((latency == 0) ? LatencyDistribution.none() : LatencyDistribution.logNormal(latency, 0.5));
+		server.start();
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("analytics.elasticsearch.endpoints[0]", server.url());
+		properties.put("analytics.elasticsearch.http.max_pool_size", 8);
+		properties.put("analytics.elasticsearch.search.coalescing", false);
+
+		context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+		context.register(ClientConfiguration.class);
+		context.refresh();
+
+		elasticsearchComponent = context.getBean(ElasticsearchComponent.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+		server.stop();
+		serverVertx.close();
+	}
+
+	@Benchmark
+	public ESSearchResponse search() throws TechnicalException {
+		return elasticsearchComponent.search("gravitee-2017.07.14", "request", QUERY);
+	}
+
+	@Benchmark
+	public Health clusterHealth() throws TechnicalException {
+		return elasticsearchComponent.getClusterHealth();
+	}
+
+	/**
+	 * The beans of the client, without the repositories.
+	 */
+	@Configuration
+	static class ClientConfiguration {
+
+		@Bean(destroyMethod = "close")
+		public Vertx vertx() {
+			return Vertx.vertx();
+		}
+
+		@Bean
+		public io.vertx.rxjava.core.Vertx vertxRx(final Vertx vertx) {
+			return io.vertx.rxjava.core.Vertx.newInstance(vertx);
+		}
+
+		@Bean
+		public ElasticConfiguration elasticConfiguration() {
+			return new ElasticConfiguration();
+		}
+
+		@Bean
+		public FreeMarkerComponent freeMarkerComponent() {
+			return new FreeMarkerComponent();
+		}
+
+		@Bean
+		public ElasticsearchComponent elasticsearchComponent() {
+			return new ElasticsearchComponent();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import io.gravitee.repository.elasticsearch.utils.ElasticsearchIndexUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compute the names of the daily indexes covered by time ranges of several lengths.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar IndexNameBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexNameBenchmark {
+
+	private static final long DAY = 86400000L;
+
+	/**
+	 * Number of days of the time range.
+	 */
+	@Param({"1", "30", "365"})
+	private int days;
+
+	private AnnotationConfigApplicationContext context;
+
+	private ElasticsearchIndexUtil elasticsearchIndexUtil;
+
+	private long from;
+
+	private long to;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(ElasticConfiguration.class, ElasticsearchIndexUtil.class);
+		elasticsearchIndexUtil = context.getBean(ElasticsearchIndexUtil.class);
+
+		to = System.currentTimeMillis();
+		from = to - (days - 1) * DAY;
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String getIndexName() {
+		return elasticsearchIndexUtil.getIndexName(from, to);
+	}
+}
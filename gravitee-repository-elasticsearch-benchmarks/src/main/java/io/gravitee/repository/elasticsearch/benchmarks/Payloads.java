@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Search responses shaped like the ones returned by Elasticsearch for the repository queries, with a given number of
+ * hits or buckets.
+ *
+ * Values are drawn from a seeded random, so every run decodes the same bytes.
+ *
+ * @author GraviteeSource Team
+ */
+public final class Payloads {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+			.withZone(ZoneOffset.UTC);
+
+	private static final long START = 1500000000000L;
+
+	private static final int[] STATUSES = { 200, 200, 200, 200, 201, 204, 304, 400, 401, 404, 500, 502, 503 };
+
+	private Payloads() {}
+
+	/**
+	 * A page of <code>request</code> documents.
+	 */
+	public static byte[] requests(final int hits) {
+		final Random random = new Random(hits);
+		final String[] apis = ids(random, 10);
+
+		return write(json -> {
+			writeHitsStart(json, hits * 10L);
+			for (int i = 0; i < hits; i++) {
+				final long timestamp = START + i * 1000L;
+				writeHitStart(json, "request", timestamp);
+
+				json.writeStringField("@timestamp", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+				json.writeStringField("transaction", id(random));
+				json.writeStringField("gateway", "0b2d8b8c-5f2e-4d0a-ad8b-8c5f2e9d0a5e");
+				json.writeStringField("uri", "/echo/items/" + random.nextInt(1000) + "?expand=true");
+				json.writeNumberField("method", 3);
+				json.writeNumberField("status", STATUSES[random.nextInt(STATUSES.length)]);
+				json.writeNumberField("response-time", 5 + random.nextInt(200));
+				json.writeNumberField("api-response-time", 3 + random.nextInt(180));
+				json.writeNumberField("request-content-length", 0);
+				json.writeNumberField("response-content-length", random.nextInt(10000));
+				json.writeStringField("local-address", "10.0.0.12");
+				json.writeStringField("remote-address", "192.168.1." + random.nextInt(255));
+				json.writeStringField("api", apis[random.nextInt(apis.length)]);
+				json.writeStringField("application", "1c5e6a32-0b7f-4b4c-9e6a-320b7fbb4c3d");
+				json.writeStringField("plan", "8e1f3b1e-3a58-4f6c-9f3b-1e3a58ef6c2a");
+				json.writeStringField("api-key", id(random));
+				json.writeStringField("endpoint", "http://backend.internal:8080/echo");
+				json.writeNullField("tenant");
+				json.writeStringField("user-agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36");
+				json.writeStringField("host", "api.company.com");
+
+				writeHitEnd(json, timestamp);
+			}
+			writeHitsEnd(json);
+		});
+	}
+
+	/**
+	 * A page of <code>health</code> documents, each with a single step.
+	 */
+	public static byte[] healthChecks(final int hits) {
+		final Random random = new Random(hits);
+
+		return write(json -> {
+			writeHitsStart(json, hits * 10L);
+			for (int i = 0; i < hits; i++) {
+				final long timestamp = START + i * 5000L;
+				final boolean success = random.nextInt(20) != 0;
+				writeHitStart(json, "health", timestamp);
+
+				json.writeStringField("@timestamp", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+				json.writeStringField("api", "4a2fb4b6-1f6e-4e04-afb4-b61f6e0e0458");
+				json.writeStringField("endpoint", "default");
+				json.writeStringField("gateway", "0b2d8b8c-5f2e-4d0a-ad8b-8c5f2e9d0a5e");
+				json.writeNumberField("response-time", 5 + random.nextInt(100));
+				json.writeBooleanField("available", success);
+				json.writeBooleanField("success", success);
+				json.writeNumberField("state", success ? 3 : 0);
+
+				json.writeArrayFieldStart("steps");
+				json.writeStartObject();
+				json.writeBooleanField("success", success);
+				json.writeStringField("message", success ? null : "Unexpected status");
+				json.writeObjectFieldStart("request");
+				json.writeStringField("uri", "http://backend.internal:8080/health");
+				json.writeStringField("method", "GET");
+				json.writeObjectFieldStart("headers");
+				json.writeArrayFieldStart("Accept");
+				json.writeString("application/json");
+				json.writeEndArray();
+				json.writeEndObject();
+				json.writeEndObject();
+				json.writeObjectFieldStart("response");
+				json.writeNumberField("status", success ? 200 : 503);
+				json.writeStringField("body", success ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}");
+				json.writeEndObject();
+				json.writeEndObject();
+				json.writeEndArray();
+
+				writeHitEnd(json, timestamp);
+			}
+			writeHitsEnd(json);
+		});
+	}
+
+	/**
+	 * A date histogram by status, with the average response time, over the given number of buckets.
+	 */
+	public static byte[] dateHistogram(final int buckets) {
+		final Random random = new Random(buckets);
+
+		return write(json -> {
+			writeAggregationsStart(json, buckets * 100L);
+			json.writeObjectFieldStart("by_date");
+			json.writeArrayFieldStart("buckets");
+			for (int i = 0; i < buckets; i++) {
+				final long timestamp = START + i * 60000L;
+				json.writeStartObject();
+				json.writeStringField("key_as_string", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+				json.writeNumberField("key", timestamp);
+				json.writeNumberField("doc_count", 100);
+
+				json.writeObjectFieldStart("by_status");
+				json.writeNumberField("doc_count_error_upper_bound", 0);
+				json.writeNumberField("sum_other_doc_count", 0);
+				json.writeArrayFieldStart("buckets");
+				for (final int status : new int[] { 200, 404, 500 }) {
+					json.writeStartObject();
+					json.writeNumberField("key", status);
+					json.writeNumberField("doc_count", random.nextInt(100));
+					json.writeEndObject();
+				}
+				json.writeEndArray();
+				json.writeEndObject();
+
+				json.writeObjectFieldStart("avg_response-time");
+				json.writeNumberField("value", random.nextDouble() * 200);
+				json.writeEndObject();
+
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+			writeAggregationsEnd(json);
+		});
+	}
+
+	/**
+	 * A group by API, with the average response time, over the given number of buckets.
+	 */
+	public static byte[] groupBy(final int buckets) {
+		final Random random = new Random(buckets);
+
+		return write(json -> {
+			writeAggregationsStart(json, buckets * 100L);
+			json.writeObjectFieldStart("by_api");
+			json.writeNumberField("doc_count_error_upper_bound", 0);
+			json.writeNumberField("sum_other_doc_count", 0);
+			json.writeArrayFieldStart("buckets");
+			for (int i = 0; i < buckets; i++) {
+				json.writeStartObject();
+				json.writeStringField("key", id(random));
+				json.writeNumberField("doc_count", 100 + random.nextInt(1000));
+				json.writeObjectFieldStart("avg_response-time");
+				json.writeNumberField("value", random.nextDouble() * 200);
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+			writeAggregationsEnd(json);
+		});
+	}
+
+	private static void writeHitsStart(final JsonGenerator json, final long total) throws IOException {
+		json.writeStartObject();
+		json.writeNumberField("took", 12);
+		json.writeBooleanField("timed_out", false);
+		writeShards(json);
+		json.writeObjectFieldStart("hits");
+		json.writeNumberField("total", total);
+		json.writeNullField("max_score");
+		json.writeArrayFieldStart("hits");
+	}
+
+	private static void writeHitsEnd(final JsonGenerator json) throws IOException {
+		json.writeEndArray();
+		json.writeEndObject();
+		json.writeEndObject();
+	}
+
+	private static void writeHitStart(final JsonGenerator json, final String type, final long timestamp)
+			throws IOException {
+		json.writeStartObject();
+		json.writeStringField("_index", "gravitee-2017.07.14");
+		json.writeStringField("_type", type);
+		json.writeStringField("_id", UUID.nameUUIDFromBytes(Long.toString(timestamp).getBytes()).toString());
+		json.writeNullField("_score");
+		json.writeObjectFieldStart("_source");
+	}
+
+	private static void writeHitEnd(final JsonGenerator json, final long timestamp) throws IOException {
+		json.writeEndObject();
+		json.writeArrayFieldStart("sort");
+		json.writeNumber(timestamp);
+		json.writeEndArray();
+		json.writeEndObject();
+	}
+
+	private static void writeAggregationsStart(final JsonGenerator json, final long total) throws IOException {
+		json.writeStartObject();
+		json.writeNumberField("took", 25);
+		json.writeBooleanField("timed_out", false);
+		writeShards(json);
+		json.writeObjectFieldStart("hits");
+		json.writeNumberField("total", total);
+		json.writeNumberField("max_score", 0);
+		json.writeArrayFieldStart("hits");
+		json.writeEndArray();
+		json.writeEndObject();
+		json.writeObjectFieldStart("aggregations");
+	}
+
+	private static void writeAggregationsEnd(final JsonGenerator json) throws IOException {
+		json.writeEndObject();
+		json.writeEndObject();
+	}
+
+	private static void writeShards(final JsonGenerator json) throws IOException {
+		json.writeObjectFieldStart("_shards");
+		json.writeNumberField("total", 5);
+		json.writeNumberField("successful", 5);
+		json.writeNumberField("failed", 0);
+		json.writeEndObject();
+	}
+
+	private static String[] ids(final Random random, final int count) {
+		final String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = id(random);
+		}
+		return ids;
+	}
+
+	private static String id(final Random random) {
+		return new UUID(random.nextLong(), random.nextLong()).toString();
+	}
+
+	private static byte[] write(final Writer writer) {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (final JsonGenerator json = JSON_FACTORY.createGenerator(output)) {
+			writer.write(json);
+		} catch (final IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return output.toByteArray();
+	}
+
+	@FunctionalInterface
+	private interface Writer {
+
+		void write(JsonGenerator json) throws IOException;
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.elasticsearch.client.ResponseBodyCollector;
+import io.vertx.rxjava.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import rx.Observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the allocations of the response body aggregation strategies.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar ResponseBodyCollectorBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBodyCollectorBenchmark {
+
+	/**
+	 * Size of the HTTP chunks received from Elasticsearch.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+
+	@Param({"16384", "1048576", "8388608"})
+	private int bodySize;
+
+	private List<Buffer> chunks;
+
+	@Setup
+	public void setup() {
+		chunks = new ArrayList<>();
+
+		int remaining = bodySize;
+		while (remaining > 0) {
+			final int size = Math.min(CHUNK_SIZE, remaining);
+			final byte[] bytes = new byte[size];
+			for (int i = 0; i < size; i++) {
+				bytes[i] = (byte) ('a' + (i % 26));
+			}
+			chunks.add(Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(bytes)));
+			remaining -= size;
+		}
+	}
+
+	/**
+	 * Aggregation used before the response body collector: grow an empty buffer chunk after chunk.
+	 */
+	@Benchmark
+	public Buffer appendFromEmptyBuffer() {
+		return Observable.just(Buffer.buffer())
+				.mergeWith(Observable.from(chunks))
+				.reduce(Buffer::appendBuffer)
+				.toBlocking()
+				.single();
+	}
+
+	@Benchmark
+	public Buffer presizedFromContentLength() {
+		return ResponseBodyCollector
+				.collect(Observable.from(chunks), bodySize)
+				.toBlocking()
+				.single();
+	}
+
+	@Benchmark
+	public Buffer compositeWithoutContentLength() {
+		return ResponseBodyCollector
+				.collect(Observable.from(chunks), -1)
+				.toBlocking()
+				.single();
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.analytics.query.AggregationType;
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.groupby.GroupByQuery;
+import io.gravitee.repository.elasticsearch.query.DateHistogramBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.GroupByBodyBuilder;
+import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
+import io.vertx.rxjava.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.gravitee.repository.analytics.query.DateRangeBuilder.between;
+import static io.gravitee.repository.analytics.query.IntervalBuilder.minutes;
+import static io.gravitee.repository.analytics.query.QueryBuilders.dateHistogram;
+import static io.gravitee.repository.analytics.query.QueryBuilders.groupBy;
+
+/**
+ * Compare the rendering of the search bodies: FreeMarker templates rendered to a string then encoded, FreeMarker
+ * templates rendered straight into a buffer, and JSON builders.
+ *
+ * All of them produce the UTF-8 bytes sent to Elasticsearch. Run with the GC profiler to get the allocation rate per
+ * operation:
+ * <pre>java -jar target/benchmarks.jar SearchBodyBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBodyBenchmark {
+
+	private final DateHistogramBodyBuilder dateHistogramBuilder = new DateHistogramBodyBuilder();
+
+	private final GroupByBodyBuilder groupByBuilder = new GroupByBodyBuilder();
+
+	private AnnotationConfigApplicationContext context;
+
+	private FreeMarkerComponent freeMarkerComponent;
+
+	private DateHistogramQuery dateHistogramQuery;
+
+	private GroupByQuery groupByQuery;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(FreeMarkerComponent.class);
+		freeMarkerComponent = context.getBean(FreeMarkerComponent.class);
+
+		final long now = System.currentTimeMillis();
+
+		dateHistogramQuery = dateHistogram()
+				.query("api:4a2fb4b6-1f6e-4e04-afb4-b61f6e0e0458")
+				.timeRange(between(now - 86400000, now), minutes(10))
+				.aggregation(AggregationType.FIELD, "status")
+				.aggregation(AggregationType.AVG, "response-time")
+				.build();
+
+		groupByQuery = groupBy()
+				.root("api", "4a2fb4b6-1f6e-4e04-afb4-b61f6e0e0458")
+				.timeRange(between(now - 86400000, now), minutes(10))
+				.field("status")
+				.range(100, 199)
+				.range(200, 299)
+				.range(300, 399)
+				.range(400, 499)
+				.range(500, 599)
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Buffer dateHistogramFreeMarker() {
+		return Buffer.buffer(freeMarkerComponent.generateFromTemplate("dateHistogram.ftl", data(dateHistogramQuery)));
+	}
+
+	@Benchmark
+	public Buffer dateHistogramFreeMarkerInto() {
+		return freeMarkerComponent.generateToBuffer("dateHistogram.ftl", data(dateHistogramQuery));
+	}
+
+	@Benchmark
+	public Buffer dateHistogramBuilder() {
+		return dateHistogramBuilder.build(dateHistogramQuery);
+	}
+
+	@Benchmark
+	public Buffer groupByFreeMarker() {
+		return Buffer.buffer(freeMarkerComponent.generateFromTemplate("groupBy.ftl", data(groupByQuery)));
+	}
+
+	@Benchmark
+	public Buffer groupByFreeMarkerInto() {
+		return freeMarkerComponent.generateToBuffer("groupBy.ftl", data(groupByQuery));
+	}
+
+	@Benchmark
+	public Buffer groupByBuilder() {
+		return groupByBuilder.build(groupByQuery);
+	}
+
+	private static Map<String, Object> data(final Object query) {
+		final Map<String, Object> data = new HashMap<>();
+		data.put("query", query);
+		return data;
+	}
+}
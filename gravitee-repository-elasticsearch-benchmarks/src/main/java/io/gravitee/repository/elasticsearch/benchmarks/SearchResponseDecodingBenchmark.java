@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DateHistogramSearchResponse;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.GroupBySearchResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode search responses of several sizes: as generic responses, with their hits and aggregations kept as trees,
+ * and as typed responses, with their aggregations streamed.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar SearchResponseDecodingBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchResponseDecodingBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Number of hits or buckets of the responses.
+	 */
+	@Param({"10", "100", "1000"})
+	private int size;
+
+	private byte[] requests;
+
+	private byte[] dateHistogram;
+
+	private byte[] groupBy;
+
+	@Setup
+	public void setup() {
+		requests = Payloads.requests(size);
+		dateHistogram = Payloads.dateHistogram(size);
+		groupBy = Payloads.groupBy(size);
+	}
+
+	@Benchmark
+	public ESSearchResponse requestsAsTree() throws IOException {
+		return mapper.readValue(requests, ESSearchResponse.class);
+	}
+
+	@Benchmark
+	public ESSearchResponse dateHistogramAsTree() throws IOException {
+		return mapper.readValue(dateHistogram, ESSearchResponse.class);
+	}
+
+	@Benchmark
+	public DateHistogramSearchResponse dateHistogramTyped() throws IOException {
+		return mapper.readValue(dateHistogram, DateHistogramSearchResponse.class);
+	}
+
+	@Benchmark
+	public ESSearchResponse groupByAsTree() throws IOException {
+		return mapper.readValue(groupBy, ESSearchResponse.class);
+	}
+
+	@Benchmark
+	public GroupBySearchResponse groupByTyped() throws IOException {
+		return mapper.readValue(groupBy, GroupBySearchResponse.class);
+	}
+}
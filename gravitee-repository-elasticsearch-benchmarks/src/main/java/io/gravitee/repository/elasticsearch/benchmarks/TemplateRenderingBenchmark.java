@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.analytics.query.AggregationType;
+import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
+import io.gravitee.repository.healthcheck.query.availability.AvailabilityQuery;
+import io.gravitee.repository.healthcheck.query.responsetime.AverageResponseTimeQuery;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.gravitee.repository.analytics.query.DateRangeBuilder.between;
+import static io.gravitee.repository.analytics.query.IntervalBuilder.minutes;
+
+/**
+ * Render each FreeMarker template to a string, with the data of a typical query.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar TemplateRenderingBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderingBenchmark {
+
+	private static final String API = "4a2fb4b6-1f6e-4e04-afb4-b61f6e0e0458";
+
+	@Param({"analyticsRequest.ftl", "count.ftl", "dateHistogram.ftl", "groupBy.ftl", "log/log.ftl", "log/logById.ftl",
+			"healthcheck/avg-availability.ftl", "healthcheck/avg-date-histogram.ftl",
+			"healthcheck/avg-response-time.ftl", "healthcheck/log.ftl", "healthcheck/logs.ftl",
+			"monitor/monitoringRequest.ftl", "index-template-es-2x.ftl", "index-template-es-5x.ftl"})
+	private String template;
+
+	private AnnotationConfigApplicationContext context;
+
+	private FreeMarkerComponent freeMarkerComponent;
+
+	private Map<String, Object> data;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(FreeMarkerComponent.class);
+		freeMarkerComponent = context.getBean(FreeMarkerComponent.class);
+		data = data(template, System.currentTimeMillis());
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String render() {
+		return freeMarkerComponent.generateFromTemplate(template, data);
+	}
+
+	private static Map<String, Object> data(final String template, final long now) {
+		final Map<String, Object> data = new HashMap<>();
+
+		switch (template) {
+			case "analyticsRequest.ftl":
+				data.put("api", API);
+				data.put("from", now - 86400000);
+				data.put("to", now);
+				data.put("interval", 600000);
+				break;
+			case "count.ftl":
+				data.put("query", io.gravitee.repository.analytics.query.QueryBuilders.count()
+						.query("api:" + API)
+						.timeRange(between(now - 86400000, now), minutes(10))
+						.build());
+				break;
+			case "dateHistogram.ftl":
+				data.put("query", io.gravitee.repository.analytics.query.QueryBuilders.dateHistogram()
+						.query("api:" + API)
+						.timeRange(between(now - 86400000, now), minutes(10))
+						.aggregation(AggregationType.FIELD, "status")
+						.aggregation(AggregationType.AVG, "response-time")
+						.build());
+				break;
+			case "groupBy.ftl":
+				data.put("query", io.gravitee.repository.analytics.query.QueryBuilders.groupBy()
+						.root("api", API)
+						.timeRange(between(now - 86400000, now), minutes(10))
+						.field("status")
+						.range(100, 199)
+						.range(200, 299)
+						.range(300, 399)
+						.range(400, 499)
+						.range(500, 599)
+						.build());
+				break;
+			case "log/log.ftl":
+				data.put("query", io.gravitee.repository.analytics.query.QueryBuilders.tabular()
+						.query("api:" + API)
+						.timeRange(between(now - 86400000, now), minutes(10))
+						.page(1)
+						.size(20)
+						.build());
+				break;
+			case "log/logById.ftl":
+				data.put("requestId", "29381bce-df59-47b2-b81b-cedf59c7b23e");
+				break;
+			case "healthcheck/avg-availability.ftl":
+				data.put("query", io.gravitee.repository.healthcheck.query.QueryBuilders.availability()
+						.api(API)
+						.field(AvailabilityQuery.Field.ENDPOINT)
+						.build());
+				break;
+			case "healthcheck/avg-date-histogram.ftl":
+				data.put("query", io.gravitee.repository.healthcheck.query.QueryBuilders.dateHistogram()
+						.api(API)
+						.timeRange(between(now - 86400000, now), minutes(10))
+						.aggregation(AggregationType.AVG, "response-time")
+						.build());
+				break;
+			case "healthcheck/avg-response-time.ftl":
+				data.put("query", io.gravitee.repository.healthcheck.query.QueryBuilders.responseTime()
+						.api(API)
+						.field(AverageResponseTimeQuery.Field.ENDPOINT)
+						.build());
+				break;
+			case "healthcheck/log.ftl":
+				data.put("id", "29381bce-df59-47b2-b81b-cedf59c7b23e");
+				break;
+			case "healthcheck/logs.ftl":
+				data.put("query", io.gravitee.repository.healthcheck.query.QueryBuilders.logs()
+						.api(API)
+						.page(1)
+						.size(20)
+						.build());
+				break;
+			case "monitor/monitoringRequest.ftl":
+				data.put("gateway", "0b2d8b8c-5f2e-4d0a-ad8b-8c5f2e9d0a5e");
+				break;
+			default:
+				data.put("indexName", "gravitee");
+				data.put("numberOfShards", 5);
+				data.put("numberOfReplicas", 1);
+		}
+
+		return data;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks;
+
+import io.gravitee.repository.elasticsearch.utils.TimestampParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the parsing of the <code>@timestamp</code> fields of the documents.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar TimestampParserBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimestampParserBenchmark {
+
+	private static final String TIMESTAMP = "2017-07-14T04:40:00.123+02:00";
+
+	/**
+	 * A timestamp within the text buffer of a JSON parser.
+	 */
+	private final char[] source = ("{\"@timestamp\":\"" + TIMESTAMP + "\"}").toCharArray();
+
+	/**
+	 * Parser used before the dedicated one, not thread-safe so one per benchmark thread.
+	 */
+	private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+	@Benchmark
+	public long simpleDateFormat() throws ParseException {
+		return simpleDateFormat.parse(TIMESTAMP).getTime();
+	}
+
+	@Benchmark
+	public long offsetDateTime() {
+		return OffsetDateTime.parse(TIMESTAMP).toInstant().toEpochMilli();
+	}
+
+	@Benchmark
+	public long timestampParserString() {
+		return TimestampParser.parse(TIMESTAMP);
+	}
+
+	@Benchmark
+	public long timestampParserInPlace() {
+		return TimestampParser.parse(source, 15, TIMESTAMP.length());
+	}
+
+	/**
+	 * Parsing used before the dedicated parser by the monitoring repository.
+	 */
+	@Benchmark
+	public ZonedDateTime zonedDateTime() {
+		return ZonedDateTime.parse(TIMESTAMP);
+	}
+
+	@Benchmark
+	public ZonedDateTime timestampParserZoned() {
+		return TimestampParser.parseZoned(TIMESTAMP);
+	}
+}
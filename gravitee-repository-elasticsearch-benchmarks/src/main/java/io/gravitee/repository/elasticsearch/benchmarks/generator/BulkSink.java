@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the bulk requests built by the {@link DataGenerator}.
+ *
+ * @author GraviteeSource Team
+ */
+public interface BulkSink extends Closeable {
+
+	/**
+	 * Write a bulk request.
+	 * @param bulk the NDJSON body, an action line followed by a source line for each document
+	 * @param length the number of bytes of the body
+	 * @param documents the number of documents of the body
+	 */
+	void write(byte[] bulk, int length, int documents) throws IOException;
+}
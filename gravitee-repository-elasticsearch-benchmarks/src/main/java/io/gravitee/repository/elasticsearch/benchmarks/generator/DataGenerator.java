@@ -0,0 +1,909 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.generator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.common.http.HttpMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generate <code>request</code>, <code>log</code>, <code>health</code> and <code>monitor</code> documents shaped like
+ * the ones reported by a production gateway, to load a cluster with a realistic dataset before benchmarking the
+ * repository queries.
+ *
+ * The dataset mimics the distributions observed in production:
+ * <ul>
+ *     <li>APIs, applications, resources and clients follow Zipf laws: a few of them take most of the traffic;</li>
+ *     <li>the traffic follows a daily cycle, lower during the night and the week-end;</li>
+ *     <li>most requests succeed, some APIs failing much more than the others;</li>
+ *     <li>response times are log-normal around a median of each API;</li>
+ *     <li>only the APIs with logging enabled report a <code>log</code> document for their requests;</li>
+ *     <li>each API is health-checked and each gateway reports its monitoring data at a fixed interval.</li>
+ * </ul>
+ *
+ * Documents are written in daily indexes, as bulk requests handed to a {@link BulkSink}. The generation only depends
+ * on the seed and the options, so two runs produce the same documents.
+ *
+ * @author GraviteeSource Team
+ */
+public class DataGenerator {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+			.withZone(ZoneOffset.UTC);
+
+	private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+
+	private static final long MINUTE = 60_000;
+
+	private static final long DAY_IN_MILLIS = 86_400_000;
+
+	private static final String[] RESOURCES = { "users", "orders", "products", "customers", "accounts", "payments",
+			"invoices", "stocks", "items", "carts", "shipments", "reviews", "categories", "stores", "transactions",
+			"contracts", "devices", "events", "messages", "documents" };
+
+	private static final String[] USER_AGENTS = {
+			"Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/63.0.3239.132 Safari/537.36",
+			"okhttp/3.9.1", "Apache-HttpClient/4.5.3 (Java/1.8.0_151)", "python-requests/2.18.4", "curl/7.52.1",
+			"Mozilla/5.0 (iPhone; CPU iPhone OS 11_2 like Mac OS X) AppleWebKit/604.4.7 (KHTML, like Gecko) Mobile/15C114" };
+
+	private static final HttpMethod[] METHODS = { HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE,
+			HttpMethod.PATCH, HttpMethod.OPTIONS };
+
+	private static final DiscreteDistribution METHOD_DISTRIBUTION = DiscreteDistribution.weighted(70, 15, 7, 5, 2, 1);
+
+	private static final int[] STATUSES = { 200, 201, 204, 304, 400, 401, 403, 404, 429, 500, 502, 503, 504 };
+
+	private static final double[] STATUS_WEIGHTS = { 80, 4, 2, 3, 2.5, 2, 1, 3, 0.5, 1, 0.5, 0.3, 0.2 };
+
+	private static final String[] BODIES = { body(64), body(256), body(1024), body(4096) };
+
+	private static final DiscreteDistribution BODY_DISTRIBUTION = DiscreteDistribution.weighted(40, 35, 20, 5);
+
+	private long seed = 42;
+	private long requests = 1_000_000;
+	private long from = LocalDate.now(ZoneOffset.UTC).minusDays(7).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+	private long to = from + 7 * DAY_IN_MILLIS;
+	private int apis = 50;
+	private int applications = 500;
+	private int clients = 5_000;
+	private int gateways = 3;
+	private double logging = 0.1;
+	private long healthCheckInterval = 30_000;
+	private long monitoringInterval = 10_000;
+	private String index = "gravitee";
+	private int batchSize = 5_000;
+
+	private Random random;
+	private Api[] apiList;
+	private DiscreteDistribution apiDistribution;
+	private DiscreteDistribution identifierDistribution;
+	private String[] applicationIds;
+	private String[] apiKeys;
+	private String[] clientAddresses;
+	private DiscreteDistribution clientDistribution;
+	private Gateway[] gatewayList;
+
+	private final Buffer buffer = new Buffer();
+	private JsonGenerator json;
+	private int bulkDocuments;
+	private long documents;
+
+	private long day = -1;
+	private String indexName;
+
+	/**
+	 * The seed of the random, 42 by default.
+	 */
+	public DataGenerator seed(final long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * The number of <code>request</code> documents, one million by default.
+	 */
+	public DataGenerator requests(final long requests) {
+		this.requests = requests;
+		return this;
+	}
+
+	/**
+	 * The time range of the documents, the last seven days by default.
+	 * @param from the start of the range, in milliseconds since the epoch, truncated to the minute
+	 * @param to the end of the range, in milliseconds since the epoch, excluded
+	 */
+	public DataGenerator range(final long from, final long to) {
+		this.from = from - from % MINUTE;
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * The number of APIs, 50 by default.
+	 */
+	public DataGenerator apis(final int apis) {
+		this.apis = apis;
+		return this;
+	}
+
+	/**
+	 * The number of applications, 500 by default.
+	 */
+	public DataGenerator applications(final int applications) {
+		this.applications = applications;
+		return this;
+	}
+
+	/**
+	 * The number of distinct client addresses, 5000 by default.
+	 */
+	public DataGenerator clients(final int clients) {
+		this.clients = clients;
+		return this;
+	}
+
+	/**
+	 * The number of gateways, 3 by default.
+	 */
+	public DataGenerator gateways(final int gateways) {
+		this.gateways = gateways;
+		return this;
+	}
+
+	/**
+	 * The share of the APIs with logging enabled, 0.1 by default.
+	 */
+	public DataGenerator logging(final double logging) {
+		this.logging = logging;
+		return this;
+	}
+
+	/**
+	 * The interval between two health-checks of an API, 30 seconds by default, 0 for no <code>health</code> document.
+	 */
+	public DataGenerator healthCheckInterval(final long interval) {
+		this.healthCheckInterval = interval;
+		return this;
+	}
+
+	/**
+	 * The interval between two monitoring reports of a gateway, 10 seconds by default, 0 for no <code>monitor</code>
+	 * document.
+	 */
+	public DataGenerator monitoringInterval(final long interval) {
+		this.monitoringInterval = interval;
+		return this;
+	}
+
+	/**
+	 * The prefix of the daily indexes, <code>gravitee</code> by default.
+	 */
+	public DataGenerator index(final String index) {
+		this.index = index;
+		return this;
+	}
+
+	/**
+	 * The number of documents of a bulk request, 5000 by default.
+	 */
+	public DataGenerator batchSize(final int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Generate the documents into NDJSON files or an Elasticsearch node:
+	 * <pre>
+	 * java -cp benchmarks.jar io.gravitee.repository.elasticsearch.benchmarks.generator.DataGenerator \
+	 *     --requests 10000000 --from 2018-01-01 --days 30 --endpoint http://localhost:9200
+	 * </pre>
+	 */
+	public static void main(final String[] args) throws IOException {
+		final DataGenerator generator = new DataGenerator();
+		LocalDate from = null;
+		int days = 7;
+		String output = null;
+		boolean gzip = false;
+		String endpoint = null;
+		String username = null;
+		String password = null;
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--seed":
+					generator.seed(Long.parseLong(args[++i]));
+					break;
+				case "--requests":
+					generator.requests(Long.parseLong(args[++i]));
+					break;
+				case "--from":
+					from = LocalDate.parse(args[++i]);
+					break;
+				case "--days":
+					days = Integer.parseInt(args[++i]);
+					break;
+				case "--apis":
+					generator.apis(Integer.parseInt(args[++i]));
+					break;
+				case "--applications":
+					generator.applications(Integer.parseInt(args[++i]));
+					break;
+				case "--clients":
+					generator.clients(Integer.parseInt(args[++i]));
+					break;
+				case "--gateways":
+					generator.gateways(Integer.parseInt(args[++i]));
+					break;
+				case "--logging":
+					generator.logging(Double.parseDouble(args[++i]));
+					break;
+				case "--health-check-interval":
+					generator.healthCheckInterval(Long.parseLong(args[++i]) * 1000);
+					break;
+				case "--monitoring-interval":
+					generator.monitoringInterval(Long.parseLong(args[++i]) * 1000);
+					break;
+				case "--index":
+					generator.index(args[++i]);
+					break;
+				case "--batch-size":
+					generator.batchSize(Integer.parseInt(args[++i]));
+					break;
+				case "--output":
+					output = args[++i];
+					break;
+				case "--gzip":
+					gzip = true;
+					break;
+				case "--endpoint":
+					endpoint = args[++i];
+					break;
+				case "--username":
+					username = args[++i];
+					break;
+				case "--password":
+					password = args[++i];
+					break;
+				default:
+					System.err.println("Unknown option " + args[i] + ", expected --seed, --requests, --from, --days, "
+							+ "--apis, --applications, --clients, --gateways, --logging, --health-check-interval, "
+							+ "--monitoring-interval, --index, --batch-size, --output, --gzip, --endpoint, "
+							+ "--username or --password");
+					System.exit(1);
+			}
+		}
+
+		if ((output == null) == (endpoint == null)) {
+			System.err.println("Either --output or --endpoint is expected");
+			System.exit(1);
+		}
+
+		final long start = (from == null ? LocalDate.now(ZoneOffset.UTC).minusDays(days) : from)
+				.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+		generator.range(start, start + days * DAY_IN_MILLIS);
+
+		final long begin = System.nanoTime();
+		final long documents;
+		try (final BulkSink sink = output != null
+				? new FileBulkSink(Paths.get(output), gzip)
+				: new HttpBulkSink(endpoint, username, password)) {
+			documents = generator.generate(sink);
+		}
+		final long elapsed = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+
+		System.out.println("Generated " + documents + " documents in " + elapsed + " ms ("
+				+ documents * 1000 / elapsed + " documents/s)");
+	}
+
+	/**
+	 * Generate the documents.
+	 * @param sink the destination of the bulk requests
+	 * @return the number of generated documents
+	 */
+	public long generate(final BulkSink sink) throws IOException {
+		random = new Random(seed);
+		createTopology();
+
+		buffer.reset();
+		bulkDocuments = 0;
+		documents = 0;
+		day = -1;
+
+		final long minutes = (to - from) / MINUTE;
+		double total = 0;
+		for (long minute = 0; minute < minutes; minute++) {
+			total += traffic(from + minute * MINUTE);
+		}
+
+		final Request request = new Request();
+		double cumulated = 0;
+		long emitted = 0;
+		long nextHealthCheck = from;
+		long nextMonitoring = from;
+
+		try (final JsonGenerator json = JSON_FACTORY.createGenerator(buffer)) {
+			this.json = json;
+
+			for (long minute = 0; minute < minutes; minute++) {
+				final long start = from + minute * MINUTE;
+				final double traffic = traffic(start);
+
+				cumulated += traffic;
+				final long target = Math.round(requests * cumulated / total);
+				for (; emitted < target; emitted++) {
+					writeRequest(request, start + random.nextInt((int) MINUTE));
+					flushIfFull(sink);
+					if (request.api.logging) {
+						writeLog(request);
+						flushIfFull(sink);
+					}
+				}
+
+				for (; healthCheckInterval > 0 && nextHealthCheck < start + MINUTE; nextHealthCheck += healthCheckInterval) {
+					for (final Api api : apiList) {
+						writeHealth(api, nextHealthCheck + random.nextInt(1000));
+						flushIfFull(sink);
+					}
+				}
+
+				for (; monitoringInterval > 0 && nextMonitoring < start + MINUTE; nextMonitoring += monitoringInterval) {
+					for (final Gateway gateway : gatewayList) {
+						writeMonitor(gateway, nextMonitoring, traffic);
+						flushIfFull(sink);
+					}
+				}
+			}
+
+			flush(sink);
+		} finally {
+			this.json = null;
+		}
+
+		return documents;
+	}
+
+	private void createTopology() {
+		applicationIds = new String[applications];
+		apiKeys = new String[applications];
+		for (int i = 0; i < applications; i++) {
+			applicationIds[i] = id();
+			apiKeys[i] = id();
+		}
+
+		clientAddresses = new String[clients];
+		for (int i = 0; i < clients; i++) {
+			clientAddresses[i] = address(random.nextInt());
+		}
+		clientDistribution = DiscreteDistribution.zipf(clients, 1.1);
+
+		gatewayList = new Gateway[gateways];
+		for (int i = 0; i < gateways; i++) {
+			gatewayList[i] = new Gateway(i);
+		}
+
+		apiList = new Api[apis];
+		for (int i = 0; i < apis; i++) {
+			apiList[i] = new Api(i);
+		}
+		apiDistribution = DiscreteDistribution.zipf(apis, 1);
+		identifierDistribution = DiscreteDistribution.zipf(10_000, 0.8);
+	}
+
+	private final class Api {
+
+		private final String id = id();
+		private final String context;
+		private final String backend;
+		private final String[] plans;
+		private final boolean keyless;
+		private final int applicationOffset = random.nextInt(applications);
+		private final DiscreteDistribution applicationDistribution;
+		private final String[] resources;
+		private final boolean[] identified;
+		private final DiscreteDistribution resourceDistribution;
+		private final DiscreteDistribution statusDistribution;
+		private final double latency;
+		private final boolean logging = random.nextDouble() < DataGenerator.this.logging;
+		private final double availability;
+
+		private Api(final int index) {
+			final String name = RESOURCES[index % RESOURCES.length];
+			final int version = index / RESOURCES.length + 1;
+			this.context = '/' + name + (version > 1 ? "/v" + version : "");
+			this.backend = "http://" + name + "-service.internal:8080/api/v" + version;
+
+			this.plans = new String[1 + random.nextInt(3)];
+			for (int i = 0; i < plans.length; i++) {
+				plans[i] = id();
+			}
+			this.keyless = random.nextDouble() < 0.3;
+			this.applicationDistribution = DiscreteDistribution.zipf(Math.min(applications, 1 + random.nextInt(200)), 1.2);
+
+			this.resources = new String[5 + random.nextInt(20)];
+			this.identified = new boolean[resources.length];
+			for (int i = 0; i < resources.length; i++) {
+				resources[i] = '/' + RESOURCES[random.nextInt(RESOURCES.length)];
+				identified[i] = random.nextBoolean();
+			}
+			this.resourceDistribution = DiscreteDistribution.zipf(resources.length, 1);
+
+			// Most of the APIs barely fail, a few of them have a faulty backend
+			final double faults = random.nextDouble();
+			final double serverErrors = faults < 0.8 ? 1 : faults < 0.95 ? 5 : 20;
+			final double[] weights = STATUS_WEIGHTS.clone();
+			for (int i = 0; i < STATUSES.length; i++) {
+				if (STATUSES[i] >= 500) {
+					weights[i] *= serverErrors;
+				}
+			}
+			this.statusDistribution = DiscreteDistribution.weighted(weights);
+			this.availability = serverErrors > 5 ? 0.9 : 0.999;
+
+			this.latency = Math.exp(Math.log(15) + random.nextDouble() * Math.log(20));
+		}
+	}
+
+	private final class Gateway {
+
+		private final String id = id();
+		private final String hostname;
+		private final String address = address(random.nextInt());
+		private final long started = from - random.nextInt((int) DAY_IN_MILLIS);
+		private final long heapMax = 1L << 30;
+		private long heapUsed = heapMax / 4;
+		private long youngCollections;
+		private long youngCollectionTime;
+		private long oldCollections;
+		private long oldCollectionTime;
+
+		private Gateway(final int index) {
+			this.hostname = "gateway-" + index;
+		}
+	}
+
+	private static final class Request {
+
+		private String id;
+		private long timestamp;
+		private Api api;
+		private HttpMethod method;
+		private String uri;
+		private String path;
+		private String apiKey;
+		private String remoteAddress;
+		private String userAgent;
+		private String gateway;
+		private String localAddress;
+		private int status;
+		private boolean proxied;
+		private long requestContentLength;
+		private long responseContentLength;
+		private int requestBody;
+		private int responseBody;
+	}
+
+	private void writeRequest(final Request request, final long timestamp) throws IOException {
+		final Api api = apiList[apiDistribution.next(random)];
+		final Gateway gateway = gatewayList[random.nextInt(gatewayList.length)];
+		final int resource = api.resourceDistribution.next(random);
+
+		request.id = id();
+		request.timestamp = timestamp;
+		request.api = api;
+		request.method = METHODS[METHOD_DISTRIBUTION.next(random)];
+		request.path = api.resources[resource]
+				+ (api.identified[resource] ? "/" + identifierDistribution.next(random) : "")
+				+ (request.method == HttpMethod.GET && random.nextInt(10) == 0 ? "?page=" + (1 + random.nextInt(10)) : "");
+		request.uri = api.context + request.path;
+		request.remoteAddress = clientAddresses[clientDistribution.next(random)];
+		request.userAgent = USER_AGENTS[random.nextInt(USER_AGENTS.length)];
+		request.gateway = gateway.id;
+		request.localAddress = gateway.address;
+		request.status = STATUSES[api.statusDistribution.next(random)];
+		// Authentication and rate limit rejections are answered by the gateway itself
+		request.proxied = request.status != 401 && request.status != 403 && request.status != 429;
+
+		final boolean payload = request.method == HttpMethod.POST || request.method == HttpMethod.PUT
+				|| request.method == HttpMethod.PATCH;
+		request.requestBody = payload ? BODY_DISTRIBUTION.next(random) : -1;
+		request.requestContentLength = payload ? BODIES[request.requestBody].length() : 0;
+		request.responseBody = request.status == 204 || request.status == 304 || request.status >= 400
+				? -1 : BODY_DISTRIBUTION.next(random);
+		request.responseContentLength = request.responseBody < 0
+				? (request.status >= 400 ? 60 + random.nextInt(40) : 0)
+				: Math.round(BODIES[request.responseBody].length() * (0.5 + random.nextDouble()));
+
+		final long apiResponseTime;
+		if (!request.proxied) {
+			apiResponseTime = 0;
+		} else if (request.status == 504) {
+			apiResponseTime = 30_000 + random.nextInt(100);
+		} else if (request.status == 502) {
+			apiResponseTime = logNormal(5, 1);
+		} else {
+			apiResponseTime = logNormal(api.latency, 0.8);
+		}
+		final long proxyLatency = logNormal(2, 0.6);
+
+		final String plan;
+		final String application;
+		if (request.status == 401) {
+			plan = null;
+			application = "1";
+			request.apiKey = null;
+		} else if (api.keyless) {
+			plan = api.plans[0];
+			application = "1";
+			request.apiKey = null;
+		} else {
+			final int subscriber = (api.applicationOffset + api.applicationDistribution.next(random)) % applications;
+			plan = api.plans[subscriber % api.plans.length];
+			application = applicationIds[subscriber];
+			request.apiKey = apiKeys[subscriber];
+		}
+
+		writeAction("request", request.id, timestamp);
+		json.writeStartObject();
+		json.writeStringField("@timestamp", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+		json.writeStringField("id", request.id);
+		json.writeStringField("transaction", request.id);
+		json.writeStringField("gateway", request.gateway);
+		json.writeStringField("uri", request.uri);
+		json.writeStringField("path", api.resources[resource]);
+		json.writeNumberField("method", request.method.code());
+		json.writeNumberField("status", request.status);
+		json.writeNumberField("response-time", apiResponseTime + proxyLatency);
+		json.writeNumberField("api-response-time", apiResponseTime);
+		json.writeNumberField("proxy-latency", proxyLatency);
+		json.writeNumberField("request-content-length", request.requestContentLength);
+		json.writeNumberField("response-content-length", request.responseContentLength);
+		json.writeStringField("local-address", request.localAddress);
+		json.writeStringField("remote-address", request.remoteAddress);
+		json.writeStringField("api", api.id);
+		json.writeStringField("application", application);
+		json.writeStringField("plan", plan);
+		json.writeStringField("api-key", request.apiKey);
+		json.writeStringField("endpoint", request.proxied ? api.backend + request.path : null);
+		json.writeStringField("message", request.proxied ? null : message(request.status));
+		json.writeNullField("tenant");
+		json.writeStringField("user-agent", request.userAgent);
+		json.writeStringField("hostname", gateway.hostname);
+		writeEnd();
+	}
+
+	private void writeLog(final Request request) throws IOException {
+		writeAction("log", request.id, request.timestamp);
+		json.writeStartObject();
+		json.writeStringField("id", request.id);
+
+		json.writeObjectFieldStart("client-request");
+		json.writeStringField("method", request.method.name());
+		json.writeStringField("uri", request.uri);
+		json.writeObjectFieldStart("headers");
+		writeHeader("Host", "api.company.com");
+		writeHeader("User-Agent", request.userAgent);
+		writeHeader("Accept", "application/json");
+		if (request.apiKey != null) {
+			writeHeader("X-Gravitee-Api-Key", request.apiKey);
+		}
+		writeRequestPayloadHeaders(request);
+		writeHeader("X-Gravitee-Transaction-Id", request.id);
+		json.writeEndObject();
+		json.writeStringField("body", request.requestBody < 0 ? null : BODIES[request.requestBody]);
+		json.writeEndObject();
+
+		if (request.proxied) {
+			json.writeObjectFieldStart("proxy-request");
+			json.writeStringField("method", request.method.name());
+			json.writeStringField("uri", request.api.backend + request.path);
+			json.writeObjectFieldStart("headers");
+			writeHeader("User-Agent", request.userAgent);
+			writeHeader("Accept", "application/json");
+			writeRequestPayloadHeaders(request);
+			writeHeader("X-Forwarded-For", request.remoteAddress);
+			writeHeader("X-Gravitee-Transaction-Id", request.id);
+			json.writeEndObject();
+			json.writeStringField("body", request.requestBody < 0 ? null : BODIES[request.requestBody]);
+			json.writeEndObject();
+
+			json.writeFieldName("proxy-response");
+			writeResponse(request);
+		}
+
+		json.writeFieldName("client-response");
+		writeResponse(request);
+
+		writeEnd();
+	}
+
+	private void writeRequestPayloadHeaders(final Request request) throws IOException {
+		if (request.requestBody >= 0) {
+			writeHeader("Content-Type", "application/json");
+			writeHeader("Content-Length", Long.toString(request.requestContentLength));
+		}
+	}
+
+	private void writeResponse(final Request request) throws IOException {
+		final String body = request.responseBody >= 0
+				? BODIES[request.responseBody]
+				: request.status >= 400 ? "{\"message\":\"" + message(request.status) + "\",\"http_status_code\":" + request.status + '}' : null;
+
+		json.writeStartObject();
+		json.writeNumberField("status", request.status);
+		json.writeObjectFieldStart("headers");
+		if (body != null) {
+			writeHeader("Content-Type", "application/json");
+			writeHeader("Content-Length", Integer.toString(body.length()));
+		}
+		writeHeader("X-Gravitee-Transaction-Id", request.id);
+		json.writeEndObject();
+		json.writeStringField("body", body);
+		json.writeEndObject();
+	}
+
+	private void writeHealth(final Api api, final long timestamp) throws IOException {
+		final boolean success = random.nextDouble() < api.availability;
+		final int status = success ? 200 : random.nextBoolean() ? 503 : 0;
+
+		writeAction("health", null, timestamp);
+		json.writeStartObject();
+		json.writeStringField("@timestamp", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+		json.writeStringField("api", api.id);
+		json.writeStringField("endpoint", "default");
+		json.writeStringField("gateway", gatewayList[random.nextInt(gatewayList.length)].id);
+		json.writeNumberField("response-time", status == 0 ? 5_000 : logNormal(api.latency / 2, 0.5));
+		json.writeBooleanField("available", success);
+		json.writeBooleanField("success", success);
+		json.writeNumberField("state", success ? 3 : 0);
+
+		json.writeArrayFieldStart("steps");
+		json.writeStartObject();
+		json.writeBooleanField("success", success);
+		json.writeStringField("message", success ? null
+				: status == 0 ? "Connection timed out" : "Assertion not validated: #response.status == 200");
+		json.writeObjectFieldStart("request");
+		json.writeStringField("uri", api.backend + "/health");
+		json.writeStringField("method", "GET");
+		json.writeObjectFieldStart("headers");
+		writeHeader("Accept", "application/json");
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeObjectFieldStart("response");
+		json.writeNumberField("status", status);
+		json.writeStringField("body", status == 0 ? null : success ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}");
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeEndArray();
+
+		writeEnd();
+	}
+
+	private void writeMonitor(final Gateway gateway, final long timestamp, final double traffic) throws IOException {
+		// The heap fills up with the traffic and is emptied by the collections
+		gateway.heapUsed += (long) (gateway.heapMax * 0.05 * (traffic + random.nextDouble()));
+		if (gateway.heapUsed > gateway.heapMax * 0.7) {
+			gateway.youngCollections++;
+			gateway.youngCollectionTime += 5 + random.nextInt(30);
+			gateway.heapUsed = (long) (gateway.heapMax * (0.15 + random.nextDouble() * 0.1));
+			if (random.nextInt(20) == 0) {
+				gateway.oldCollections++;
+				gateway.oldCollectionTime += 50 + random.nextInt(200);
+			}
+		}
+		final long memTotal = 8L << 30;
+		final long memUsed = (long) (memTotal * (0.6 + 0.2 * traffic + 0.05 * random.nextDouble()));
+		final int cpu = (int) Math.min(100, 5 + 70 * traffic + random.nextInt(10));
+		final long young = gateway.heapUsed / 2;
+		final long survivor = gateway.heapUsed / 20;
+		final long old = gateway.heapUsed - young - survivor;
+
+		writeAction("monitor", null, timestamp);
+		json.writeStartObject();
+
+		json.writeObjectFieldStart("os");
+		json.writeObjectFieldStart("cpu");
+		json.writeNumberField("percent", cpu);
+		json.writeObjectFieldStart("load_average");
+		json.writeNumberField("1m", cpu / 25.0);
+		json.writeNumberField("5m", cpu / 27.0);
+		json.writeNumberField("15m", cpu / 30.0);
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeObjectFieldStart("mem");
+		json.writeNumberField("total_in_bytes", memTotal);
+		json.writeNumberField("free_in_bytes", memTotal - memUsed);
+		json.writeNumberField("used_in_bytes", memUsed);
+		json.writeNumberField("free_percent", 100 - memUsed * 100 / memTotal);
+		json.writeNumberField("used_percent", memUsed * 100 / memTotal);
+		json.writeEndObject();
+		json.writeEndObject();
+
+		json.writeObjectFieldStart("process");
+		json.writeNumberField("timestamp", timestamp);
+		json.writeNumberField("open_file_descriptors", 300 + (int) (500 * traffic) + random.nextInt(50));
+		json.writeNumberField("max_file_descriptors", 65536);
+		json.writeEndObject();
+
+		json.writeObjectFieldStart("jvm");
+		json.writeNumberField("timestamp", timestamp);
+		json.writeNumberField("uptime_in_millis", timestamp - gateway.started);
+		json.writeObjectFieldStart("mem");
+		json.writeNumberField("heap_used_in_bytes", gateway.heapUsed);
+		json.writeNumberField("heap_used_percent", gateway.heapUsed * 100 / gateway.heapMax);
+		json.writeNumberField("heap_committed_in_bytes", gateway.heapMax);
+		json.writeNumberField("heap_max_in_bytes", gateway.heapMax);
+		json.writeNumberField("non_heap_used_in_bytes", 85_000_000 + random.nextInt(1_000_000));
+		json.writeNumberField("non_heap_committed_in_bytes", 90_000_000);
+		json.writeObjectFieldStart("pools");
+		writePool("young", young, gateway.heapMax / 4);
+		writePool("survivor", survivor, gateway.heapMax / 32);
+		writePool("old", old, gateway.heapMax - gateway.heapMax / 4 - gateway.heapMax / 32);
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeObjectFieldStart("threads");
+		json.writeNumberField("count", 50 + (int) (50 * traffic));
+		json.writeNumberField("peak_count", 100);
+		json.writeEndObject();
+		json.writeObjectFieldStart("gc");
+		json.writeObjectFieldStart("collectors");
+		json.writeObjectFieldStart("young");
+		json.writeNumberField("collection_count", gateway.youngCollections);
+		json.writeNumberField("collection_time_in_millis", gateway.youngCollectionTime);
+		json.writeEndObject();
+		json.writeObjectFieldStart("old");
+		json.writeNumberField("collection_count", gateway.oldCollections);
+		json.writeNumberField("collection_time_in_millis", gateway.oldCollectionTime);
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeEndObject();
+
+		json.writeStringField("gateway", gateway.id);
+		json.writeStringField("hostname", gateway.hostname);
+		json.writeStringField("@timestamp", TIMESTAMP.format(Instant.ofEpochMilli(timestamp)));
+		writeEnd();
+	}
+
+	private void writePool(final String name, final long used, final long max) throws IOException {
+		json.writeObjectFieldStart(name);
+		json.writeNumberField("used_in_bytes", used);
+		json.writeNumberField("max_in_bytes", max);
+		json.writeNumberField("peak_used_in_bytes", max);
+		json.writeNumberField("peak_max_in_bytes", max);
+		json.writeEndObject();
+	}
+
+	private void writeHeader(final String name, final String value) throws IOException {
+		json.writeArrayFieldStart(name);
+		json.writeString(value);
+		json.writeEndArray();
+	}
+
+	private void writeAction(final String type, final String id, final long timestamp) throws IOException {
+		json.writeStartObject();
+		json.writeObjectFieldStart("index");
+		json.writeStringField("_index", indexName(timestamp));
+		json.writeStringField("_type", type);
+		if (id != null) {
+			json.writeStringField("_id", id);
+		}
+		json.writeEndObject();
+		json.writeEndObject();
+		json.writeRaw('\n');
+	}
+
+	private void writeEnd() throws IOException {
+		json.writeEndObject();
+		json.writeRaw('\n');
+		bulkDocuments++;
+		documents++;
+	}
+
+	private void flushIfFull(final BulkSink sink) throws IOException {
+		if (bulkDocuments >= batchSize) {
+			flush(sink);
+		}
+	}
+
+	private void flush(final BulkSink sink) throws IOException {
+		json.flush();
+		if (bulkDocuments > 0) {
+			sink.write(buffer.bytes(), buffer.size(), bulkDocuments);
+		}
+		buffer.reset();
+		bulkDocuments = 0;
+	}
+
+	private String indexName(final long timestamp) {
+		final long day = timestamp / DAY_IN_MILLIS;
+		if (day != this.day) {
+			this.day = day;
+			this.indexName = index + '-' + DAY.format(Instant.ofEpochMilli(timestamp));
+		}
+		return indexName;
+	}
+
+	/**
+	 * The relative traffic of a minute: a daily cycle peaking in the afternoon, with a quieter week-end.
+	 */
+	private static double traffic(final long timestamp) {
+		final double hour = (timestamp % DAY_IN_MILLIS) / 3_600_000.0;
+		// The epoch was a Thursday
+		final long dayOfWeek = (timestamp / DAY_IN_MILLIS + 3) % 7;
+
+		final double daily = hour < 6 || hour > 22 ? 0 : Math.sin(Math.PI * (hour - 6) / 16);
+		return (0.15 + 0.85 * daily * daily) * (dayOfWeek >= 5 ? 0.4 : 1);
+	}
+
+	private long logNormal(final double median, final double sigma) {
+		return Math.round(Math.exp(Math.log(median) + sigma * random.nextGaussian()));
+	}
+
+	private String id() {
+		return new UUID(random.nextLong(), random.nextLong()).toString();
+	}
+
+	private static String address(final int bits) {
+		return "10." + ((bits >>> 16) & 0xff) + '.' + ((bits >>> 8) & 0xff) + '.' + (bits & 0xff);
+	}
+
+	private static String message(final int status) {
+		switch (status) {
+			case 401:
+				return "Unauthorized";
+			case 403:
+				return "Forbidden";
+			case 429:
+				return "Rate limit exceeded ! You reach the limit of 100 requests per 1 minutes";
+			default:
+				return "Request failed with status " + status;
+		}
+	}
+
+	private static String body(final int size) {
+		final StringBuilder body = new StringBuilder(size + 32).append("{\"items\":[");
+		for (int i = 0; body.length() < size; i++) {
+			body.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}");
+		}
+		return body.append("]}").toString();
+	}
+
+	/**
+	 * Exposes its array to hand the bulk requests to the sinks without copying them.
+	 */
+	private static final class Buffer extends ByteArrayOutputStream {
+
+		private Buffer() {
+			super(1 << 20);
+		}
+
+		private byte[] bytes() {
+			return buf;
+		}
+	}
+}
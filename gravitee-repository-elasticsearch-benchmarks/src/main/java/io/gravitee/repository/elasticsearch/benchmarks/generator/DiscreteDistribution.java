@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A distribution over the indexes <code>0</code> to <code>n - 1</code>, each drawn with a given weight.
+ *
+ * @author GraviteeSource Team
+ */
+final class DiscreteDistribution {
+
+	private final double[] cumulated;
+
+	private DiscreteDistribution(final double[] weights) {
+		this.cumulated = new double[weights.length];
+
+		double total = 0;
+		for (int i = 0; i < weights.length; i++) {
+			total += weights[i];
+			this.cumulated[i] = total;
+		}
+		for (int i = 0; i < weights.length; i++) {
+			this.cumulated[i] /= total;
+		}
+	}
+
+	/**
+	 * Each index drawn with its weight, weights being relative to their sum.
+	 */
+	static DiscreteDistribution weighted(final double... weights) {
+		return new DiscreteDistribution(weights);
+	}
+
+	/**
+	 * A Zipf distribution: the index <code>k</code> is drawn with a weight of <code>1 / (k + 1)^exponent</code>, so a
+	 * few indexes take most of the draws, like the APIs, applications or clients of a gateway.
+	 * @param n the number of indexes
+	 * @param exponent the skew, 0 for a uniform distribution, 1 for the classic Zipf law
+	 */
+	static DiscreteDistribution zipf(final int n, final double exponent) {
+		final double[] weights = new double[n];
+		for (int i = 0; i < n; i++) {
+			weights[i] = 1 / Math.pow(i + 1, exponent);
+		}
+		return new DiscreteDistribution(weights);
+	}
+
+	int next(final Random random) {
+		final int index = Arrays.binarySearch(cumulated, random.nextDouble());
+		return Math.min(index < 0 ? -index - 1 : index, cumulated.length - 1);
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write each bulk request in its own NDJSON file of a directory, <code>bulk-00000.ndjson</code>,
+ * <code>bulk-00001.ndjson</code>, ... so they can be sent as they are to the <code>_bulk</code> endpoint.
+ *
+ * @author GraviteeSource Team
+ */
+public class FileBulkSink implements BulkSink {
+
+	private final Path directory;
+	private final boolean gzip;
+
+	private int files;
+
+	/**
+	 * @param directory the directory of the files, created if needed
+	 * @param gzip <code>true</code> to compress the files, named <code>bulk-00000.ndjson.gz</code>
+	 */
+	public FileBulkSink(final Path directory, final boolean gzip) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.gzip = gzip;
+	}
+
+	@Override
+	public void write(final byte[] bulk, final int length, final int documents) throws IOException {
+		final Path file = directory.resolve(String.format("bulk-%05d.ndjson%s", files++, gzip ? ".gz" : ""));
+
+		try (final OutputStream output = gzip
+				? new GZIPOutputStream(Files.newOutputStream(file), 65536)
+				: Files.newOutputStream(file)) {
+			output.write(bulk, 0, length);
+		}
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.generator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Send each bulk request to the <code>_bulk</code> endpoint of an Elasticsearch node, failing on the first rejected
+ * request or document.
+ *
+ * @author GraviteeSource Team
+ */
+public class HttpBulkSink implements BulkSink {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final URL url;
+	private final String authorization;
+
+	/**
+	 * @param endpoint the URL of the node, <code>http://localhost:9200</code> for instance
+	 * @param username the user for the basic authentication, <code>null</code> for none
+	 * @param password the password for the basic authentication
+	 */
+	public HttpBulkSink(final String endpoint, final String username, final String password) throws IOException {
+		this.url = new URL(endpoint.endsWith("/") ? endpoint + "_bulk" : endpoint + "/_bulk");
+		this.authorization = username == null ? null : "Basic " + Base64.getEncoder()
+				.encodeToString((username + ':' + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void write(final byte[] bulk, final int length, final int documents) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(length);
+		connection.setRequestProperty("Content-Type", "application/x-ndjson");
+		if (authorization != null) {
+			connection.setRequestProperty("Authorization", authorization);
+		}
+
+		try (final OutputStream output = connection.getOutputStream()) {
+			output.write(bulk, 0, length);
+		}
+
+		final int status = connection.getResponseCode();
+		if (status != HttpURLConnection.HTTP_OK) {
+			throw new IOException("Bulk request rejected with status " + status + ": " + connection.getResponseMessage());
+		}
+
+		try (final InputStream input = connection.getInputStream()) {
+			if (hasErrors(input)) {
+				throw new IOException("Some documents of the bulk request have not been indexed");
+			}
+		}
+	}
+
+	/**
+	 * Read the <code>errors</code> flag of a bulk response, written by Elasticsearch before the items.
+	 */
+	private static boolean hasErrors(final InputStream input) throws IOException {
+		try (final JsonParser parser = JSON_FACTORY.createParser(input)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return true;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("errors".equals(field)) {
+					return parser.getBooleanValue();
+				}
+				parser.skipChildren();
+			}
+			return false;
+		}
+	}
+
+	@Override
+	public void close() {
+	}
+}
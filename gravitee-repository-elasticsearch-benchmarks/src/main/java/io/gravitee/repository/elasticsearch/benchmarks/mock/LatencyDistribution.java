@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.mock;
+
+import java.util.Random;
+
+/**
+ * Distribution of the delays added by the {@link MockElasticsearchServer} before answering.
+ *
+ * @author GraviteeSource Team
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+	/**
+	 * Draw the next delay.
+	 * @param random the random of the server
+	 * @return the delay in milliseconds, 0 to answer immediately
+	 */
+	long nextDelay(Random random);
+
+	/**
+	 * Answer immediately.
+	 */
+	static LatencyDistribution none() {
+		return random -> 0;
+	}
+
+	/**
+	 * Always the same delay.
+	 */
+	static LatencyDistribution fixed(final long delay) {
+		return random -> delay;
+	}
+
+	/**
+	 * A delay uniformly distributed between two bounds, both inclusive.
+	 */
+	static LatencyDistribution uniform(final long min, final long max) {
+		return random -> min + (long) (random.nextDouble() * (max - min + 1));
+	}
+
+	/**
+	 * A log-normal delay, close to the latencies observed on a real cluster: most answers are close to the median and
+	 * a few are much slower.
+	 * @param median the median delay in milliseconds
+	 * @param sigma the standard deviation of the logarithm of the delay, 0.5 giving a 99th percentile around 3 times
+	 *              the median
+	 */
+	static LatencyDistribution logNormal(final long median, final double sigma) {
+		final double mu = Math.log(median);
+		return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+	}
+}
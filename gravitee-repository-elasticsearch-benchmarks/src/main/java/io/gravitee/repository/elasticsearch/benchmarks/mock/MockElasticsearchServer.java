@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.benchmarks.mock;
+
+import io.gravitee.repository.elasticsearch.benchmarks.Payloads;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP server answering like an Elasticsearch node, to measure the client side of the repository without
+ * a cluster.
+ *
+ * It serves recorded responses for <code>_search</code>, <code>_msearch</code>, <code>_bulk</code>,
+ * <code>_cluster/health</code>, <code>_template</code> and the search templates, after a delay drawn from a
+ * {@link LatencyDistribution}. A share of the requests can fail with an error status. Responses are always JSON.
+ *
+ * <pre>
+ * MockElasticsearchServer server = new MockElasticsearchServer(vertx)
+ *         .latency(LatencyDistribution.logNormal(20, 0.5))
+ *         .errorRate(0.01)
+ *         .searchHits(100);
+ * server.start();
+ * </pre>
+ *
+ * @author GraviteeSource Team
+ */
+public class MockElasticsearchServer {
+
+	private static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+
+	private static final Buffer ACKNOWLEDGED = Buffer.buffer("{\"acknowledged\":true}");
+
+	private final Vertx vertx;
+
+	private final Random random = new Random(42);
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private HttpServer server;
+
+	private String version = "5.6.3";
+
+	private LatencyDistribution latency = LatencyDistribution.none();
+
+	private double errorRate;
+
+	private int errorStatus = 503;
+
+	private Buffer searchResponse = Buffer.buffer(Payloads.requests(20));
+
+	private Buffer healthResponse = Buffer.buffer("{\"cluster_name\":\"gravitee\",\"status\":\"green\"," +
+			"\"timed_out\":false,\"number_of_nodes\":3,\"number_of_data_nodes\":3,\"active_primary_shards\":50," +
+			"\"active_shards\":100,\"relocating_shards\":0,\"initializing_shards\":0,\"unassigned_shards\":0}");
+
+	public MockElasticsearchServer(final Vertx vertx) {
+		this.vertx = vertx;
+	}
+
+	/**
+	 * Version answered on <code>GET /</code>, which selects the index template and the search template API.
+	 */
+	public MockElasticsearchServer version(final String version) {
+		this.version = version;
+		return this;
+	}
+
+	public MockElasticsearchServer latency(final LatencyDistribution latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	/**
+	 * Share of the requests failing with the error status, between 0 and 1.
+	 */
+	public MockElasticsearchServer errorRate(final double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	/**
+	 * Status of the failed requests, 503 by default. 429 and 503 are retried by the client.
+	 */
+	public MockElasticsearchServer errorStatus(final int errorStatus) {
+		this.errorStatus = errorStatus;
+		return this;
+	}
+
+	/**
+	 * Answer the searches with a page of request documents.
+	 * @param hits number of hits of the page
+	 */
+	public MockElasticsearchServer searchHits(final int hits) {
+		return this.searchResponse(Payloads.requests(hits));
+	}
+
+	/**
+	 * Answer the searches with a recorded response.
+	 */
+	public MockElasticsearchServer searchResponse(final byte[] searchResponse) {
+		this.searchResponse = Buffer.buffer(searchResponse);
+		return this;
+	}
+
+	/**
+	 * Answer the cluster health requests with a recorded response.
+	 */
+	public MockElasticsearchServer healthResponse(final byte[] healthResponse) {
+		this.healthResponse = Buffer.buffer(healthResponse);
+		return this;
+	}
+
+	/**
+	 * Start listening on a free port.
+	 */
+	public void start() throws InterruptedException, ExecutionException, TimeoutException {
+		final CompletableFuture<HttpServer> listening = new CompletableFuture<>();
+
+		vertx.createHttpServer(new HttpServerOptions().setDecompressionSupported(true).setCompressionSupported(true))
+				.requestHandler(request -> request.bodyHandler(body -> this.handle(request, body)))
+				.listen(0, "localhost", result -> {
+					if (result.succeeded()) {
+						listening.complete(result.result());
+					} else {
+						listening.completeExceptionally(result.cause());
+					}
+				});
+
+		this.server = listening.get(10, TimeUnit.SECONDS);
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.close();
+			server = null;
+		}
+	}
+
+	public int port() {
+		return server.actualPort();
+	}
+
+	public String url() {
+		return "http://localhost:" + port();
+	}
+
+	/**
+	 * Number of requests received.
+	 */
+	public long requests() {
+		return requests.get();
+	}
+
+	/**
+	 * Number of requests answered with the error status.
+	 */
+	public long errors() {
+		return errors.get();
+	}
+
+	private void handle(final HttpServerRequest request, final Buffer body) {
+		requests.incrementAndGet();
+
+		final long delay = nextDelay();
+		if (delay > 0) {
+			vertx.setTimer(delay, timerId -> this.answer(request, body));
+		} else {
+			this.answer(request, body);
+		}
+	}
+
+	private synchronized long nextDelay() {
+		return Math.max(0, latency.nextDelay(random));
+	}
+
+	private synchronized boolean nextError() {
+		return errorRate > 0 && random.nextDouble() < errorRate;
+	}
+
+	private void answer(final HttpServerRequest request, final Buffer body) {
+		final String path = request.path();
+
+		if (nextError()) {
+			errors.incrementAndGet();
+			this.send(request, errorStatus, Buffer.buffer("{\"error\":{\"type\":\"injected_failure\"," +
+					"\"reason\":\"Failure injected by the mock server\"},\"status\":" + errorStatus + '}'));
+		} else if (request.method() == HttpMethod.GET && "/".equals(path)) {
+			this.send(request, 200, Buffer.buffer("{\"name\":\"mock\",\"cluster_name\":\"gravitee\"," +
+					"\"version\":{\"number\":\"" + version + "\"},\"tagline\":\"You Know, for Search\"}"));
+		} else if (path.startsWith("/_cluster/health")) {
+			this.send(request, 200, healthResponse);
+		} else if (path.startsWith("/_template/") || path.startsWith("/_scripts/")
+				|| path.startsWith("/_search/template/")) {
+			this.send(request, 200, ACKNOWLEDGED);
+		} else if (path.endsWith("/_msearch")) {
+			this.send(request, 200, this.multiSearchResponse(body));
+		} else if (path.endsWith("/_bulk")) {
+			this.send(request, 200, this.bulkResponse(body));
+		} else if (path.endsWith("/_search") || path.endsWith("/_search/template")) {
+			this.send(request, 200, searchResponse);
+		} else {
+			this.send(request, 404, Buffer.buffer("{\"error\":\"no handler found for uri [" + path + "]\"," +
+					"\"status\":404}"));
+		}
+	}
+
+	/**
+	 * One search response for each pair of header and body lines.
+	 */
+	private Buffer multiSearchResponse(final Buffer body) {
+		final int searches = lines(body) / 2;
+		final Buffer response = Buffer.buffer(searches * (searchResponse.length() + 1) + 16)
+				.appendString("{\"responses\":[");
+		for (int i = 0; i < searches; i++) {
+			if (i > 0) {
+				response.appendByte((byte) ',');
+			}
+			response.appendBuffer(searchResponse);
+		}
+		return response.appendString("]}");
+	}
+
+	/**
+	 * A successful item for each action, every action being an index one followed by its source line.
+	 */
+	private Buffer bulkResponse(final Buffer body) {
+		final int actions = lines(body) / 2;
+		final Buffer response = Buffer.buffer(actions * 32 + 32).appendString("{\"took\":1,\"errors\":false,\"items\":[");
+		for (int i = 0; i < actions; i++) {
+			if (i > 0) {
+				response.appendByte((byte) ',');
+			}
+			response.appendString("{\"index\":{\"status\":201}}");
+		}
+		return response.appendString("]}");
+	}
+
+	private static int lines(final Buffer body) {
+		int lines = 0;
+		for (int i = 0; i < body.length(); i++) {
+			if (body.getByte(i) == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	private void send(final HttpServerRequest request, final int status, final Buffer body) {
+		request.response()
+				.setStatusCode(status)
+				.putHeader("Content-Type", CONTENT_TYPE)
+				.end(body);
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.healthcheck.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.repository.elasticsearch.benchmarks.Payloads;
+import io.gravitee.repository.healthcheck.query.log.LogsResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode pages of health-check documents and convert them to logs, with several numbers of hits.
+ *
+ * Run with the GC profiler to get the allocation rate per operation:
+ * <pre>java -jar target/benchmarks.jar HealthCheckLogConversionBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HealthCheckLogConversionBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final LogsCommand logsCommand = new LogsCommand();
+
+	/**
+	 * Number of hits of the pages.
+	 */
+	@Param({"10", "100", "1000"})
+	private int size;
+
+	private byte[] healthChecks;
+
+	@Setup
+	public void setup() {
+		healthChecks = Payloads.healthChecks(size);
+	}
+
+	@Benchmark
+	public LogsResponse decodeAndConvert() throws IOException {
+		return logsCommand.toLogsResponse(mapper.readValue(healthChecks, LogSearchResponse.class));
+	}
+}
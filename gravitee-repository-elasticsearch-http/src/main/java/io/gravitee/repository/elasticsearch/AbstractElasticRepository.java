@@ -17,6 +17,9 @@ package io.gravitee.repository.elasticsearch;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import io.gravitee.repository.elasticsearch.metrics.MetricsRegistry;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
+import io.gravitee.repository.elasticsearch.query.SearchBodyRenderer;
 import io.gravitee.repository.elasticsearch.utils.ElasticsearchIndexUtil;
 import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
 
@@ -40,9 +43,30 @@ public abstract class AbstractElasticRepository {
     @Autowired
     protected FreeMarkerComponent freeMarkerComponent;
     
+    /**
+     * Renderer of the search bodies.
+     */
+    @Autowired
+    protected SearchBodyRenderer searchBodyRenderer;
+
     /**
      * Util component used to compute index name.
      */
     @Autowired
     protected ElasticsearchIndexUtil elasticsearchIndexUtil;
+
+    /**
+     * Registry of the query metrics, the queries are not measured when none is declared.
+     */
+    @Autowired(required = false)
+    private MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
+
+    /**
+     * Get the metrics of a type of query.
+     * @param query the type of query
+     * @return the metrics of the queries of this type
+     */
+    protected QueryMetrics metrics(final String query) {
+        return new QueryMetrics(this.metricsRegistry, query);
+    }
 }
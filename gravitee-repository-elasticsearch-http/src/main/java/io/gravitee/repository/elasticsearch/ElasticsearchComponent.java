@@ -15,35 +15,73 @@
  */
 package io.gravitee.repository.elasticsearch;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.gravitee.common.http.HttpHeaders;
 import io.gravitee.common.http.HttpStatusCode;
 import io.gravitee.common.http.MediaType;
 import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
 import io.gravitee.repository.elasticsearch.configuration.Endpoint;
+import io.gravitee.repository.elasticsearch.metrics.ResponseMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.Health;
+import io.gravitee.repository.elasticsearch.query.SearchTemplate;
+import io.gravitee.repository.elasticsearch.query.StoredSearch;
 import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
 import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.client.BulkProcessor;
+import io.gravitee.repository.elasticsearch.client.CircuitBreaker;
+import io.gravitee.repository.elasticsearch.client.CircuitBreakerOpenException;
+import io.gravitee.repository.elasticsearch.client.ElasticsearchException;
+import io.gravitee.repository.elasticsearch.client.EndpointClient;
+import io.gravitee.repository.elasticsearch.client.EndpointPool;
+import io.gravitee.repository.elasticsearch.client.MultiSearchBatcher;
+import io.gravitee.repository.elasticsearch.client.ResponseBodyCollector;
+import io.gravitee.repository.elasticsearch.client.SearchRequest;
+import io.gravitee.repository.elasticsearch.client.WireFormat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
 import io.vertx.rxjava.core.Vertx;
 import io.vertx.rxjava.core.buffer.Buffer;
-import io.vertx.rxjava.core.http.HttpClient;
 import io.vertx.rxjava.core.http.HttpClientRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import rx.Completable;
 import rx.Observable;
-import rx.Subscriber;
+import rx.Single;
+import rx.exceptions.Exceptions;
+import rx.functions.Func0;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Utility Elasticsearch Spring bean used to call Elasticsearch using the REST api.
@@ -59,13 +97,20 @@ public class ElasticsearchComponent {
 	//ES PATH
 	private static final String URL_STATE_CLUSTER = "/_cluster/health";
 	private static final String URL_SEARCH = "/_search?ignore_unavailable=true";
+	private static final String URL_SEARCH_TEMPLATE = "/_search/template";
+	private static final String URL_SCRIPTS = "/_scripts";
 	private static final String URL_TEMPLATE = "/_template";
 	private static final String URL_BULK = "/_bulk";
+	private static final String URL_MULTI_SEARCH = "/_msearch";
 
 	private static final String CONTENT_TYPE = MediaType.APPLICATION_JSON + ";charset=UTF-8";
 
+	private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+
 	private static final String HTTPS_SCHEME = "https";
 
+	private static final String GZIP_ENCODING = "gzip";
+
 	/**
 	 * Configuration of Elasticsearch (cluster name, addresses, ...)
 	 */
@@ -82,15 +127,45 @@ public class ElasticsearchComponent {
 	private Vertx vertx;
 
 	/**
-	 * HTTP client.
+	 * HTTP clients, one per Elasticsearch endpoint.
+	 */
+	private EndpointPool endpointPool;
+
+	/**
+	 * Batch the bulk actions.
+	 */
+	private BulkProcessor bulkProcessor;
+
+	/**
+	 * Gather the searches into multi search requests, null if disabled.
+	 */
+	private MultiSearchBatcher multiSearchBatcher;
+
+	/**
+	 * Searches currently in flight, shared by the concurrent identical searches.
 	 */
-	private HttpClient httpClient;
+	private final Map<SearchRequest, Single<? extends ESSearchResponse>> inFlightSearches = new ConcurrentHashMap<>();
+
+	/**
+	 * Search templates stored in Elasticsearch.
+	 */
+	private final Set<SearchTemplate> registeredSearchTemplates = ConcurrentHashMap.newKeySet();
 
 	/**
 	 * JSON mapper.
 	 */
 	private ObjectMapper mapper;
 
+	/**
+	 * Format of the search requests and responses.
+	 */
+	private WireFormat wireFormat;
+
+	/**
+	 * Mapper of the binary format, null if the JSON format is used.
+	 */
+	private ObjectMapper binaryMapper;
+
 	/**
 	 * Authorization header if Elasticsearch is protected.
 	 */
@@ -104,23 +179,60 @@ public class ElasticsearchComponent {
 	@PostConstruct
 	public void start() throws ExecutionException, InterruptedException, IOException, TechnicalException {
 		if (! configuration.getEndpoints().isEmpty()) {
-			final Endpoint endpoint = configuration.getEndpoints().get(0);
-			final URI elasticEdpt = URI.create(endpoint.getUrl());
+			final List<EndpointClient> clients = new ArrayList<>(configuration.getEndpoints().size());
+
+			for (Endpoint endpoint : configuration.getEndpoints()) {
+				final URI elasticEdpt = URI.create(endpoint.getUrl());
 
-			HttpClientOptions options = new HttpClientOptions()
-					.setDefaultHost(elasticEdpt.getHost())
-					.setDefaultPort(elasticEdpt.getPort() != -1 ? elasticEdpt.getPort() :
-							(HTTPS_SCHEME.equals(elasticEdpt.getScheme()) ? 443 : 80));
+				HttpClientOptions options = new HttpClientOptions()
+						.setDefaultHost(elasticEdpt.getHost())
+						.setDefaultPort(elasticEdpt.getPort() != -1 ? elasticEdpt.getPort() :
+								(HTTPS_SCHEME.equals(elasticEdpt.getScheme()) ? 443 : 80));
 
-			if (HTTPS_SCHEME.equals(elasticEdpt.getScheme())) {
 				options
-						.setSsl(true)
-						.setTrustAll(true);
+						.setMaxPoolSize(configuration.getHttpMaxPoolSize())
+						.setKeepAlive(configuration.isHttpKeepAlive())
+						.setPipelining(configuration.isHttpPipelining())
+						.setPipeliningLimit(configuration.getHttpPipeliningLimit())
+						.setConnectTimeout(configuration.getHttpConnectTimeout())
+						.setIdleTimeout(configuration.getHttpIdleTimeout())
+						.setMaxWaitQueueSize(configuration.getHttpMaxWaitQueueSize())
+						.setTryUseCompression(configuration.isHttpCompression());
+
+				if (HTTPS_SCHEME.equals(elasticEdpt.getScheme())) {
+					options
+							.setSsl(true)
+							.setTrustAll(true);
+				}
+
+				clients.add(new EndpointClient(endpoint, vertx.createHttpClient(options),
+						new CircuitBreaker(configuration.getCircuitBreakerFailureThreshold(),
+								configuration.getCircuitBreakerOpenTimeout())));
 			}
 
-			this.httpClient = vertx.createHttpClient(options);
+			this.endpointPool = new EndpointPool(vertx, clients, configuration.getLoadBalancingStrategy(),
+					this::addCommonHeaders);
+			this.endpointPool.start(configuration.getProbeInterval());
+			this.endpointPool.startMetrics(configuration.getHttpMetricsInterval(), configuration.getHttpMaxPoolSize() *
+					(configuration.isHttpPipelining() ? configuration.getHttpPipeliningLimit() : 1));
+
+			this.bulkProcessor = new BulkProcessor(vertx, this::bulk, configuration.getBulkActions(),
+					configuration.getBulkMaxSize(), configuration.getBulkConcurrentRequests(),
+					configuration.getBulkQueueSize(), configuration.getBulkOverflowPolicy(),
+					configuration.getBulkBlockTimeout(), configuration.getBulkMaxRetries(),
+					configuration.getBulkRetryBackoff());
+			this.bulkProcessor.start(configuration.getBulkFlushInterval());
+
+			if (configuration.isMultiSearchEnabled()) {
+				this.multiSearchBatcher = new MultiSearchBatcher(vertx, this::multiSearchAsync,
+						configuration.getMultiSearchWindow(), configuration.getMultiSearchMaxSize());
+			}
 
 			this.mapper = new ObjectMapper();
+			this.wireFormat = WireFormat.of(configuration.getHttpFormat());
+			if (this.wireFormat != WireFormat.JSON) {
+				this.binaryMapper = new ObjectMapper(this.wireFormat.createFactory());
+			}
 
 			// Use the ElasticConfiguration class to define username and password for ES
 			// For example if Elasticsearch is protected by nginx or x-pack
@@ -132,36 +244,37 @@ public class ElasticsearchComponent {
 				this.majorVersion = getMajorVersion();
 
 				this.ensureTemplate();
+
+				if (this.configuration.isSearchTemplates()) {
+					this.ensureSearchTemplates();
+				}
 			} catch (Exception ex) {
 				logger.error("An error occurs while getting information from Elasticsearch at "
-						+ elasticEdpt.toString(), ex);
+						+ configuration.getEndpoints(), ex);
 			}
 		}
 	}
 
-	private int getMajorVersion() throws ExecutionException, InterruptedException, IOException, TechnicalException {
-		Observable<String> observable = Observable.unsafeCreate(subscriber -> {
-			HttpClientRequest req = httpClient.get("/");
-			addCommonHeaders(req);
-			req
-					.exceptionHandler(subscriber::onError)
-					.toObservable()
-					.flatMap(resp -> {
-						if (resp.statusCode() != HttpStatusCode.OK_200) {
-							subscriber.onError(new RuntimeException(
-									"Impossible to call Elasticsearch. Elasticsearch response code is " + resp.statusCode()));
-						}
-						return Observable.just(Buffer.buffer()).mergeWith(resp.toObservable());
-					})
-					.reduce(Buffer::appendBuffer)
-					.map(Buffer::toString)
-					.subscribe(subscriber);
+	/**
+	 * Send the queued bulk actions, then close the HTTP clients.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (this.bulkProcessor != null) {
+			this.bulkProcessor.stop(configuration.getBulkShutdownTimeout()).await();
+		}
 
-			req.end();
-		});
+		if (this.endpointPool != null) {
+			this.endpointPool.stop();
+		}
+	}
 
-		String body = observable.toBlocking().first();
-		String version = mapper.readTree(body).path("version").path("number").asText();
+	private int getMajorVersion() throws ExecutionException, InterruptedException, IOException, TechnicalException {
+		Buffer body = execute(HttpMethod.GET, "/", null, null)
+				.toBlocking()
+				.single();
+		String version = mapperFor(body).readTree(ResponseBodyCollector.toInputStream(body))
+				.path("version").path("number").asText();
 		float result = Float.valueOf(version.substring(0, 3));
 		int major = Integer.valueOf(version.substring(0, 1));
 		if (result < 2) {
@@ -189,36 +302,25 @@ public class ElasticsearchComponent {
 	 * @throws TechnicalException error occurs during ES call
 	 */
 	public Health getClusterHealth() throws TechnicalException {
-		try {
-			Observable<String> observable = Observable.unsafeCreate(subscriber -> {
-				HttpClientRequest req = httpClient.get(URL_STATE_CLUSTER);
-				addCommonHeaders(req);
-				req
-						.exceptionHandler(subscriber::onError)
-						.toObservable()
-						.flatMap(resp -> {
-							if (resp.statusCode() != HttpStatusCode.OK_200) {
-								subscriber.onError(new RuntimeException(
-										"Impossible to call Elasticsearch. Elasticsearch response code is " + resp.statusCode()));
-							}
-							return Observable.just(Buffer.buffer()).mergeWith(resp.toObservable());
-						})
-						.reduce(Buffer::appendBuffer)
-						.map(Buffer::toString)
-						.subscribe(subscriber);
-
-				req.end();
-			});
-
-			String body = observable.toBlocking().first();
-			logger.debug("Response of ES for GET {} : {}", URL_STATE_CLUSTER, body);
+		return await(this.getClusterHealthAsync());
+	}
 
-			return this.mapper.readValue(body, Health.class);
-		} catch (IOException e) {
-			logger.error("Impossible to call Elasticsearch GET {}.", URL_STATE_CLUSTER, e);
-			throw new TechnicalException("Impossible to call Elasticsearch. Error is " + e.getClass().getSimpleName(),
-					e);
-		}
+	/**
+	 * Get the cluster health without blocking the caller.
+	 * @return the cluster health, or a {@link TechnicalException} if an error occurs during ES call
+	 */
+	public Single<Health> getClusterHealthAsync() {
+		return withRetry(execute(HttpMethod.GET, URL_STATE_CLUSTER, null, null))
+				.toSingle()
+				.flatMap(body -> {
+					logger.debug("Response of ES for GET {} : {}", URL_STATE_CLUSTER, body);
+					return this.decode(body, Health.class);
+				})
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to call Elasticsearch GET {}.", URL_STATE_CLUSTER, throwable);
+					return Single.error(new TechnicalException("Impossible to call Elasticsearch. Error is " +
+							throwable.getClass().getSimpleName(), throwable));
+				});
 	}
 
 	/**
@@ -241,60 +343,390 @@ public class ElasticsearchComponent {
 	 * @throws TechnicalException when a problem occur during the http call
 	 */
 	public ESSearchResponse search(final String indexes, final String types, final String query) throws TechnicalException {
-		try {
-			// index can be null _search on all index
-			final StringBuilder url = new StringBuilder()
-					.append('/')
-					.append(indexes);
+		return await(this.searchAsync(indexes, types, query));
+	}
 
-			if (types != null) {
-				url.append('/').append(types);
-			}
+	/**
+	 * Perform an HTTP search query
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param query json body query, UTF-8 encoded
+	 * @return elasticsearch response
+	 * @throws TechnicalException when a problem occur during the http call
+	 */
+	public ESSearchResponse search(final String indexes, final String types, final Buffer query) throws TechnicalException {
+		return await(this.searchAsync(indexes, types, query));
+	}
 
-			url.append(URL_SEARCH);
+	/**
+	 * Perform an HTTP search query, decoding the response to a specific type.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param query json body query, UTF-8 encoded
+	 * @param responseType the type of response, usually decoding its aggregations or its hits to typed objects
+	 * @return elasticsearch response
+	 * @throws TechnicalException when a problem occur during the http call
+	 */
+	public <T extends ESSearchResponse> T search(final String indexes, final String types, final Buffer query,
+												 final Class<T> responseType) throws TechnicalException {
+		return await(this.searchAsync(indexes, types, query, responseType));
+	}
 
-			final String queryUrl = url.toString();
+	/**
+	 * Perform an HTTP search query without blocking the caller.
+	 * Concurrent identical searches share the same Elasticsearch call and the same response, which must not be
+	 * modified.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param query json body query
+	 * @return elasticsearch response, or a {@link TechnicalException} when a problem occur during the http call
+	 */
+	public Single<ESSearchResponse> searchAsync(final String indexes, final String types, final String query) {
+		return this.searchAsync(indexes, types, Buffer.buffer(query));
+	}
 
-			Observable<String> searchResponse = Observable.create(subscriber -> {
-				HttpClientRequest req = httpClient
-						.post(queryUrl)
-						.putHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE);
+	/**
+	 * Perform an HTTP search query without blocking the caller.
+	 * Concurrent identical searches share the same Elasticsearch call and the same response, which must not be
+	 * modified.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param query json body query, UTF-8 encoded
+	 * @return elasticsearch response, or a {@link TechnicalException} when a problem occur during the http call
+	 */
+	public Single<ESSearchResponse> searchAsync(final String indexes, final String types, final Buffer query) {
+		return this.searchAsync(indexes, types, query, ESSearchResponse.class);
+	}
 
-				addCommonHeaders(req);
+	/**
+	 * Perform an HTTP search query without blocking the caller, decoding the response to a specific type.
+	 * Concurrent identical searches share the same Elasticsearch call and the same response, which must not be
+	 * modified.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param query json body query, UTF-8 encoded
+	 * @param responseType the type of response, usually decoding its aggregations or its hits to typed objects
+	 * @return elasticsearch response, or a {@link TechnicalException} when a problem occur during the http call
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ESSearchResponse> Single<T> searchAsync(final String indexes, final String types,
+															  final Buffer query, final Class<T> responseType) {
+		if (! this.configuration.isSearchCoalescing()) {
+			return this.doSearchAsync(indexes, types, query, responseType);
+		}
 
-				req
-						.exceptionHandler(subscriber::onError)
+		return Single.defer(() -> (Single<T>) this.inFlightSearches.computeIfAbsent(
+				new SearchRequest(indexes, types, query, responseType),
+				request -> this.doSearchAsync(indexes, types, query, responseType)
+						.doAfterTerminate(() -> this.inFlightSearches.remove(request))
 						.toObservable()
-						.onErrorReturn(throwable -> {
-							logger.error("Unexpected error while calling Elasticsearch.", throwable);
-							return null;
-						})
-						.flatMap(response -> {
-							if (response == null || response.statusCode() != 200) {
-								return Observable.just(null);
-							} else {
-								return Observable
-										.just(Buffer.buffer())
-										.mergeWith(response.toObservable())
-										.reduce(Buffer::appendBuffer)
-										.map(Buffer::toString);
-							}
-						})
-						.subscribe(subscriber);
+						.cache()
+						.toSingle()));
+	}
+
+	private <T extends ESSearchResponse> Single<T> doSearchAsync(final String indexes, final String types,
+																 final Buffer query, final Class<T> responseType) {
+		final Single<T> search;
+
+		if (this.multiSearchBatcher != null) {
+			search = this.multiSearchBatcher
+					.search(new SearchRequest(indexes, types, query, responseType))
+					.map(responseType::cast);
+		} else {
+			final String url = searchUrl(indexes, types, URL_SEARCH);
+
+			search = Single.defer(() -> {
+				final ResponseMetrics metrics = new ResponseMetrics();
 
-				req.end(query);
+				return Observable
+						.fromCallable(() -> this.encode(query))
+						.flatMap(body -> withRetry(execute(HttpMethod.POST, url, this.wireFormat.getContentType(), null,
+								body, metrics)))
+						.toSingle()
+						.flatMap(body -> this.decode(body, responseType, metrics));
 			});
+		}
+
+		return search
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to call Elasticsearch", throwable);
+					return Single.error(new TechnicalException("Impossible to call Elasticsearch.", throwable));
+				});
+	}
+
+	/**
+	 * Perform an HTTP search query, with a stored search template if it is registered.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param search the stored search, may be null
+	 * @param query json body query, built when the stored search can not be used
+	 * @return elasticsearch response
+	 * @throws TechnicalException when a problem occur during the http call
+	 */
+	public ESSearchResponse search(final String indexes, final String types, final StoredSearch search,
+								   final Func0<Buffer> query) throws TechnicalException {
+		return await(this.searchAsync(indexes, types, search, query));
+	}
+
+	/**
+	 * Perform an HTTP search query, with a stored search template if it is registered, decoding the response to a
+	 * specific type.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param search the stored search, may be null
+	 * @param query json body query, built when the stored search can not be used
+	 * @param responseType the type of response, usually decoding its aggregations or its hits to typed objects
+	 * @return elasticsearch response
+	 * @throws TechnicalException when a problem occur during the http call
+	 */
+	public <T extends ESSearchResponse> T search(final String indexes, final String types, final StoredSearch search,
+												 final Func0<Buffer> query, final Class<T> responseType)
+			throws TechnicalException {
+		return await(this.searchAsync(indexes, types, search, query, responseType));
+	}
+
+	/**
+	 * Perform an HTTP search query without blocking the caller, with a stored search template if it is registered.
+	 * Only the id of the template and its parameters are sent. A template missing from the cluster is registered again
+	 * and the search is retried once.
+	 * Searches with a stored template are neither coalesced nor gathered into multi search requests.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param search the stored search, may be null
+	 * @param query json body query, built when the stored search can not be used
+	 * @return elasticsearch response, or a {@link TechnicalException} when a problem occur during the http call
+	 */
+	public Single<ESSearchResponse> searchAsync(final String indexes, final String types, final StoredSearch search,
+												final Func0<Buffer> query) {
+		return this.searchAsync(indexes, types, search, query, ESSearchResponse.class);
+	}
 
-			String body = searchResponse.toBlocking().single();
-			if (body != null) {
-				return mapper.readValue(body, ESSearchResponse.class);
-			} else {
-				throw new TechnicalException("Invalid search response from Elasticsearch.");
+	/**
+	 * Perform an HTTP search query without blocking the caller, with a stored search template if it is registered,
+	 * decoding the response to a specific type.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param search the stored search, may be null
+	 * @param query json body query, built when the stored search can not be used
+	 * @param responseType the type of response, usually decoding its aggregations or its hits to typed objects
+	 * @return elasticsearch response, or a {@link TechnicalException} when a problem occur during the http call
+	 */
+	public <T extends ESSearchResponse> Single<T> searchAsync(final String indexes, final String types,
+															  final StoredSearch search, final Func0<Buffer> query,
+															  final Class<T> responseType) {
+		if (search == null || ! this.registeredSearchTemplates.contains(search.getTemplate())) {
+			return this.searchAsync(indexes, types, query.call(), responseType);
+		}
+
+		final SearchTemplate template = search.getTemplate();
+		final String url = searchUrl(indexes, types, URL_SEARCH_TEMPLATE + "?ignore_unavailable=true");
+
+		final Single<T> templateSearch = Single.defer(() -> {
+			final ResponseMetrics metrics = new ResponseMetrics();
+
+			return Observable
+					.fromCallable(() -> this.encode(this.storedSearchBody(search)))
+					.flatMap(body -> withRetry(execute(HttpMethod.POST, url, this.wireFormat.getContentType(), null,
+							body, metrics)))
+					.toSingle()
+					.flatMap(body -> this.decode(body, responseType, metrics));
+		});
+
+		return templateSearch
+				.onErrorResumeNext(throwable -> {
+					if (! isMissingTemplate(throwable)) {
+						return Single.error(throwable);
+					}
+
+					logger.warn("Search template {} is missing from Elasticsearch, register it again", template.getId());
+					this.registeredSearchTemplates.remove(template);
+					return this.registerSearchTemplate(template).andThen(templateSearch);
+				})
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to call Elasticsearch", throwable);
+					return Single.error(new TechnicalException("Impossible to call Elasticsearch.", throwable));
+				});
+	}
+
+	/**
+	 * Build the URL of a search.
+	 * @param indexes indexes names. If null search on all indexes
+	 * @param types elasticsearch document type separated by comma. If null search on all types
+	 * @param endpoint the search endpoint and its parameters
+	 * @return the URL
+	 */
+	private static String searchUrl(final String indexes, final String types, final String endpoint) {
+		// index can be null _search on all index
+		final StringBuilder url = new StringBuilder()
+				.append('/')
+				.append(indexes);
+
+		if (types != null) {
+			url.append('/').append(types);
+		}
+
+		return url.append(endpoint).toString();
+	}
+
+	/**
+	 * Build the body of a search with a stored template, which depends on the Elasticsearch version.
+	 * @param search the stored search
+	 * @return the JSON body, UTF-8 encoded
+	 * @throws IOException when the parameters can not be serialized
+	 */
+	private Buffer storedSearchBody(final StoredSearch search) throws IOException {
+		final ObjectNode body = this.mapper.createObjectNode();
+		if (this.majorVersion >= 5) {
+			body.put("id", search.getTemplate().getId());
+		} else {
+			body.putObject("template").put("id", search.getTemplate().getId());
+		}
+		body.set("params", this.mapper.valueToTree(search.getParams()));
+
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(this.mapper.writeValueAsBytes(body)));
+	}
+
+	/**
+	 * Whether a search failed because its stored template is unknown. The status of the response depends on the
+	 * Elasticsearch version, so the error itself is matched: other client errors, as a malformed query, are not.
+	 */
+	private static boolean isMissingTemplate(final Throwable throwable) {
+		if (throwable instanceof ElasticsearchException) {
+			final ElasticsearchException ee = (ElasticsearchException) throwable;
+			return "resource_not_found_exception".equals(ee.getErrorType()) || (ee.getReason() != null &&
+					ee.getReason().toLowerCase(Locale.ROOT).contains("unable to find script"));
+		}
+		return false;
+	}
+
+	/**
+	 * Perform several searches with a single HTTP multi search query.
+	 * @param requests the searches
+	 * @return the response of each search, in the same order, or a {@link TechnicalException} when a problem occur
+	 * during the http call. A search may fail while the others succeed.
+	 */
+	public Single<List<Single<ESSearchResponse>>> multiSearchAsync(final List<SearchRequest> requests) {
+		return Single
+				.fromCallable(() -> this.multiSearchBody(requests))
+				.flatMap(body -> {
+					final ResponseMetrics metrics = new ResponseMetrics();
+
+					return withRetry(execute(HttpMethod.POST, URL_MULTI_SEARCH, CONTENT_TYPE_NDJSON, null, body, metrics))
+							.toSingle()
+							.map(response -> this.decodeMultiSearch(response, requests, metrics));
+				})
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to call Elasticsearch", throwable);
+					return Single.error(new TechnicalException("Impossible to call Elasticsearch.", throwable));
+				});
+	}
+
+	/**
+	 * Build the body of a multi search: for each search, a header line giving its indexes followed by its query.
+	 * @param requests the searches
+	 * @return the newline delimited JSON body
+	 * @throws IOException when a header can not be serialized
+	 */
+	private Buffer multiSearchBody(final List<SearchRequest> requests) throws IOException {
+		final Buffer body = Buffer.buffer();
+
+		for (SearchRequest request : requests) {
+			final ObjectNode header = this.mapper.createObjectNode();
+			if (request.getIndexes() != null) {
+				header.put("index", request.getIndexes());
+			}
+			if (request.getTypes() != null) {
+				header.put("type", request.getTypes());
 			}
-		} catch (final Exception e) {
-			logger.error("Impossible to call Elasticsearch", e);
-			throw new TechnicalException("Impossible to call Elasticsearch.", e);
+			header.put("ignore_unavailable", true);
+
+			body.appendString(this.mapper.writeValueAsString(header)).appendString("\n");
+			body.appendBuffer(singleLine(request.getBody())).appendString("\n");
 		}
+
+		return body;
+	}
+
+	/**
+	 * Put a JSON query on a single line. Raw line breaks can only appear between JSON tokens, they are replaced by
+	 * spaces.
+	 *
+	 * @param query the JSON query
+	 * @return the query itself if it has no line break, a copy otherwise
+	 */
+	private static Buffer singleLine(final Buffer query) {
+		final ByteBuf bytes = query.getDelegate().getByteBuf();
+		if (bytes.indexOf(bytes.readerIndex(), bytes.writerIndex(), (byte) '\n') == -1
+				&& bytes.indexOf(bytes.readerIndex(), bytes.writerIndex(), (byte) '\r') == -1) {
+			return query;
+		}
+
+		final ByteBuf copy = bytes.copy();
+		for (int i = copy.readerIndex(); i < copy.writerIndex(); i++) {
+			final byte b = copy.getByte(i);
+			if (b == '\n' || b == '\r') {
+				copy.setByte(i, ' ');
+			}
+		}
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(copy));
+	}
+
+	/**
+	 * Split a multi search response into the response of each search.
+	 *
+	 * @param body the multi search response body
+	 * @param requests the searches, giving the type of each response
+	 * @param metrics the measures of the multi search call, shared by each response
+	 * @return the response of each search
+	 */
+	private List<Single<ESSearchResponse>> decodeMultiSearch(final Buffer body, final List<SearchRequest> requests,
+															 final ResponseMetrics metrics) {
+		final ObjectMapper bodyMapper = this.mapperFor(body);
+		final List<Single<ESSearchResponse>> responses = new ArrayList<>();
+
+		try (InputStream content = ResponseBodyCollector.toInputStream(body);
+			 JsonParser parser = bodyMapper.getFactory().createParser(content)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Invalid multi search response");
+			}
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				final JsonToken value = parser.nextToken();
+
+				if ("responses".equals(field) && value == JsonToken.START_ARRAY) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						final long start = System.nanoTime();
+						final JsonNode response = bodyMapper.readTree(parser);
+
+						if (response.has("error")) {
+							final int status = response.path("status").asInt(HttpStatusCode.INTERNAL_SERVER_ERROR_500);
+							responses.add(Single.error(new ElasticsearchException(
+									"Search failed with status " + status + ": " + response.get("error"), status)));
+						} else {
+							final Class<? extends ESSearchResponse> responseType = (responses.size() < requests.size()) ?
+									requests.get(responses.size()).getResponseType() : ESSearchResponse.class;
+							final ESSearchResponse searchResponse = bodyMapper.treeToValue(response, responseType);
+
+							final ResponseMetrics responseMetrics = new ResponseMetrics();
+							responseMetrics.setFirstByteTime(metrics.getFirstByteTime());
+							responseMetrics.setBodyTime(metrics.getBodyTime());
+							responseMetrics.setSize(metrics.getSize());
+							responseMetrics.setDecodeTime(System.nanoTime() - start);
+							searchResponse.setResponseMetrics(responseMetrics);
+
+							responses.add(Single.just(searchResponse));
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} catch (IOException ioe) {
+			throw Exceptions.propagate(ioe);
+		}
+
+		return responses;
 	}
 
 	/**
@@ -304,88 +736,450 @@ public class ElasticsearchComponent {
 	 *             when a problem occur during the http call
 	 */
 	public void ensureTemplate() throws TechnicalException {
+		await(this.ensureTemplateAsync().toSingleDefault(Boolean.TRUE));
+	}
+
+	/**
+	 * Put the ES template without blocking the caller.
+	 *
+	 * @return completes once the template is put, or fails with a {@link TechnicalException} when a problem occur
+	 * during the http call
+	 */
+	public Completable ensureTemplateAsync() {
+		final String templateUrl = URL_TEMPLATE + "/gravitee";
+
+		return Single
+				.fromCallable(() -> {
+					final Map<String, Object> data = new HashMap<>();
+					data.put("indexName", this.configuration.getIndexName());
+					data.put("numberOfShards", this.configuration.getNumberOfShards());
+					data.put("numberOfReplicas", this.configuration.getNumberOfReplicas());
+					final String template = this.freeMarkerComponent.generateFromTemplate("index-template-es-" + this.majorVersion + "x.ftl", data);
+
+					logger.debug("PUT template : {}", template);
+					return template;
+				})
+				.flatMap(template -> execute(HttpMethod.PUT, templateUrl, CONTENT_TYPE, template).toSingle())
+				.doOnSuccess(body -> logger.debug("Response of ES for PUT {} : {}", templateUrl, body))
+				.toCompletable()
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to call Elasticsearch", throwable);
+					return Completable.error(new TechnicalException("Impossible to call Elasticsearch.", throwable));
+				});
+	}
+
+	/**
+	 * Register the stored search templates.
+	 *
+	 * @throws TechnicalException
+	 *             when a problem occur during the http call
+	 */
+	public void ensureSearchTemplates() throws TechnicalException {
+		await(this.ensureSearchTemplatesAsync().toSingleDefault(Boolean.TRUE));
+	}
+
+	/**
+	 * Register the stored search templates without blocking the caller. A template which fails to be registered is
+	 * not used, its searches keep sending the whole body.
+	 *
+	 * @return completes once the templates are registered, or fails with a {@link TechnicalException} when a problem
+	 * occur during the http call
+	 */
+	public Completable ensureSearchTemplatesAsync() {
+		return Completable
+				.merge(Observable.from(SearchTemplate.values()).map(this::registerSearchTemplate))
+				.onErrorResumeNext(throwable -> {
+					logger.error("Impossible to register the search templates", throwable);
+					return Completable.error(new TechnicalException("Impossible to call Elasticsearch.", throwable));
+				});
+	}
+
+	/**
+	 * Store a search template in Elasticsearch. Search templates are scripts since Elasticsearch 6.
+	 *
+	 * @param template the template
+	 * @return completes once the template is stored
+	 */
+	private Completable registerSearchTemplate(final SearchTemplate template) {
+		final String templateUrl = ((this.majorVersion >= 6) ? URL_SCRIPTS : URL_SEARCH_TEMPLATE) + '/' + template.getId();
+
+		return Single
+				.fromCallable(() -> {
+					final ObjectNode body = this.mapper.createObjectNode();
+					if (this.majorVersion >= 6) {
+						body.putObject("script")
+								.put("lang", "mustache")
+								.put("source", template.getSource());
+					} else {
+						body.put("template", template.getSource());
+					}
+					return body.toString();
+				})
+				.flatMap(body -> execute(HttpMethod.POST, templateUrl, CONTENT_TYPE, body).toSingle())
+				.doOnSuccess(body -> {
+					logger.debug("Response of ES for POST {} : {}", templateUrl, body);
+					this.registeredSearchTemplates.add(template);
+				})
+				.toCompletable();
+	}
+
+	/**
+	 * Queue bulk actions. They are sent to Elasticsearch asynchronously, in batches.
+	 *
+	 * @param bulk newline delimited bulk actions
+	 */
+	public void index(final String bulk) {
 		try {
-			String templateUrl = URL_TEMPLATE + "/gravitee";
+			logger.debug("Queue bulk actions {}", bulk);
+			this.bulkProcessor.add(bulk);
+		} catch (Exception ex) {
+			logger.error("Unexpected error while bulk indexing data to Elasticsearch", ex);
+		}
+	}
+
+	/**
+	 * Send a batch of bulk actions.
+	 *
+	 * @param bulk newline delimited bulk actions
+	 * @return the Elasticsearch response
+	 */
+	private Single<JsonNode> bulk(final String bulk) {
+		return Observable
+				.defer(() -> {
+					final Buffer body = Buffer.buffer(bulk);
+					final int threshold = this.configuration.getHttpBulkCompressionThreshold();
+
+					if (threshold >= 0 && body.length() > threshold) {
+						try {
+							return execute(HttpMethod.POST, URL_BULK, CONTENT_TYPE_NDJSON, GZIP_ENCODING, gzip(body));
+						} catch (IOException ioe) {
+							return Observable.error(ioe);
+						}
+					}
+
+					return execute(HttpMethod.POST, URL_BULK, CONTENT_TYPE_NDJSON, null, body);
+				})
+				.toSingle()
+				.map(response -> {
+					try (InputStream content = ResponseBodyCollector.toInputStream(response)) {
+						return this.mapperFor(response).readTree(content);
+					} catch (IOException ioe) {
+						throw Exceptions.propagate(ioe);
+					}
+				});
+	}
 
-			final Map<String, Object> data = new HashMap<>();
-			data.put("indexName", this.configuration.getIndexName());
-			data.put("numberOfShards", this.configuration.getNumberOfShards());
-			data.put("numberOfReplicas", this.configuration.getNumberOfReplicas());
-			final String template = this.freeMarkerComponent.generateFromTemplate("index-template-es-" + this.majorVersion + "x.ftl", data);
+	/**
+	 * Compress a request body with gzip.
+	 *
+	 * @param body the body to compress
+	 * @return the compressed body
+	 * @throws IOException when the body can not be compressed
+	 */
+	private static Buffer gzip(final Buffer body) throws IOException {
+		final ByteBuf content = body.getDelegate().getByteBuf();
+		final ByteBuf compressed = Unpooled.buffer(body.length() / 4);
+		try (OutputStream out = new GZIPOutputStream(new ByteBufOutputStream(compressed))) {
+			content.readBytes(out, content.readableBytes());
+		}
 
-			logger.debug("PUT template : {}", template);
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(compressed));
+	}
 
-			Observable<String> observable = Observable.unsafeCreate(subscriber -> {
-				HttpClientRequest req = httpClient
-						.put(templateUrl)
-						.putHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE);
+	/**
+	 * Perform an HTTP request on the next selected endpoint and collect the response body.
+	 * The endpoint is marked as down if the request fails before any response is received.
+	 *
+	 * @param method HTTP method
+	 * @param uri request URI
+	 * @param contentType content type of the body, may be null
+	 * @param body request body, may be null
+	 * @return the response body, or an error if Elasticsearch does not answer with a 200 status
+	 */
+	private Observable<Buffer> execute(final HttpMethod method, final String uri, final String contentType, final String body) {
+		return execute(method, uri, contentType, null, (body != null) ? Buffer.buffer(body) : null);
+	}
+
+	/**
+	 * Perform an HTTP request on the next selected endpoint and collect the response body.
+	 * The endpoint is marked as down if the request fails before any response is received. The outcome of the request
+	 * is reported to the circuit breaker of the endpoint, and the request fails fast if the circuit is open. A request
+	 * receiving no data during the request timeout fails, without marking the endpoint as down.
+	 *
+	 * @param method HTTP method
+	 * @param uri request URI
+	 * @param contentType content type of the body, may be null
+	 * @param contentEncoding content encoding of the body, may be null
+	 * @param body request body, may be null
+	 * @return the response body, or an error if Elasticsearch does not answer with a 200 status
+	 */
+	private Observable<Buffer> execute(final HttpMethod method, final String uri, final String contentType,
+									   final String contentEncoding, final Buffer body) {
+		return execute(method, uri, contentType, contentEncoding, body, null);
+	}
+
+	/**
+	 * Perform an HTTP request on the next selected endpoint and collect the response body, measuring the time to the
+	 * response headers, the time to the whole body and the size of the body.
+	 *
+	 * @param method HTTP method
+	 * @param uri request URI
+	 * @param contentType content type of the body, may be null
+	 * @param contentEncoding content encoding of the body, may be null
+	 * @param body request body, may be null
+	 * @param metrics the measures of the call, overwritten by each attempt if retried, may be null
+	 * @return the response body, or an error if Elasticsearch does not answer with a 200 status
+	 */
+	private Observable<Buffer> execute(final HttpMethod method, final String uri, final String contentType,
+									   final String contentEncoding, final Buffer body, final ResponseMetrics metrics) {
+		return Observable.defer(() -> {
+			final EndpointClient endpoint = this.endpointPool.next();
+			final CircuitBreaker circuitBreaker = endpoint.getCircuitBreaker();
+			if (! circuitBreaker.tryAcquirePermission()) {
+				return Observable.error(new CircuitBreakerOpenException(endpoint));
+			}
+
+			final AtomicBoolean responded = new AtomicBoolean();
+			final AtomicBoolean reported = new AtomicBoolean();
+
+			final Observable<Buffer> call = Observable.unsafeCreate(subscriber -> {
+				final long start = System.nanoTime();
+				HttpClientRequest req = endpoint.getHttpClient().request(method, uri);
+				if (contentType != null) {
+					req.putHeader(HttpHeaders.CONTENT_TYPE, contentType);
+				}
+				if (contentEncoding != null) {
+					req.putHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+				}
 				addCommonHeaders(req);
+				if (configuration.getHttpRequestTimeout() > 0) {
+					req.setTimeout(configuration.getHttpRequestTimeout());
+				}
+
 				req
-						.exceptionHandler(subscriber::onError)
 						.toObservable()
 						.flatMap(resp -> {
-							if (resp.statusCode() != HttpStatusCode.OK_200) {
-								subscriber.onError(new RuntimeException(
-										"Impossible to call Elasticsearch PUT {}: {}" + templateUrl + resp.statusCode()));
+							responded.set(true);
+							final long firstByte = System.nanoTime();
+							if (metrics != null) {
+								metrics.setFirstByteTime(firstByte - start);
 							}
-							return Observable.just(Buffer.buffer()).mergeWith(resp.toObservable());
+
+							return ResponseBodyCollector
+									.collect(resp)
+									.flatMap(content -> {
+										if (metrics != null) {
+											metrics.setBodyTime(System.nanoTime() - firstByte);
+											metrics.setSize(content.length());
+										}
+
+										final int status = resp.statusCode();
+										if (reported.compareAndSet(false, true)) {
+											if (status >= HttpStatusCode.INTERNAL_SERVER_ERROR_500 ||
+													status == HttpStatusCode.TOO_MANY_REQUESTS_429) {
+												circuitBreaker.onFailure();
+											} else {
+												circuitBreaker.onSuccess();
+											}
+										}
+
+										if (status != HttpStatusCode.OK_200) {
+											return Observable.error(this.responseError(method, uri, status, content));
+										}
+										return Observable.just(content);
+									});
 						})
-						.reduce(Buffer::appendBuffer)
-						.map(Buffer::toString)
 						.subscribe(subscriber);
 
-				req.end(template);
+				if (body != null) {
+					req.end(body);
+				} else {
+					req.end();
+				}
 			});
 
-			String body = observable.toBlocking().first();
+			return endpoint.track(call
+					.onErrorResumeNext(throwable -> {
+						// The node may be stuck, or only slow on a heavy query: it is not marked as down, and the
+						// circuit breaker only opens after consecutive timeouts
+						if (throwable instanceof TimeoutException) {
+							if (reported.compareAndSet(false, true)) {
+								circuitBreaker.onFailure();
+							}
+							return Observable.error(new ElasticsearchException("Elasticsearch did not answer " + method +
+									' ' + uri + " within " + configuration.getHttpRequestTimeout() + " ms", throwable));
+						}
+						if (responded.get()) {
+							return Observable.error(throwable);
+						}
+
+						if (reported.compareAndSet(false, true)) {
+							circuitBreaker.onFailure();
+						}
+						this.endpointPool.markDown(endpoint, throwable);
+						return Observable.error(new ElasticsearchException(
+								"Impossible to call Elasticsearch " + method + ' ' + uri, throwable));
+					})
+					.doOnUnsubscribe(() -> {
+						if (reported.compareAndSet(false, true)) {
+							circuitBreaker.onCancel();
+						}
+					}));
+		});
+	}
 
-			logger.debug("Response of ES for PUT {} : {}",  URL_TEMPLATE + "/gravitee", body);
-		} catch (final Exception e) {
-			logger.error("Impossible to call Elasticsearch", e);
-			throw new TechnicalException("Impossible to call Elasticsearch.", e);
+	/**
+	 * Build the error of a call Elasticsearch did not answer with a 200 status, with the type and the reason of the
+	 * error read from the response body, if any.
+	 */
+	private ElasticsearchException responseError(final HttpMethod method, final String uri, final int status,
+												 final Buffer content) {
+		String type = null;
+		String reason = null;
+
+		try (InputStream body = ResponseBodyCollector.toInputStream(content)) {
+			final JsonNode response = (content.length() > 0) ? this.mapperFor(content).readTree(body) : null;
+			final JsonNode error = (response != null) ? response.path("error") : null;
+			if (error != null && error.isTextual()) {
+				reason = error.textValue();
+			} else if (error != null) {
+				type = error.path("type").textValue();
+				reason = error.path("reason").textValue();
+			}
+		} catch (IOException ioe) {
+			logger.debug("Elasticsearch error response is not a JSON document", ioe);
 		}
+
+		return new ElasticsearchException("Impossible to call Elasticsearch " + method + ' ' + uri +
+				". Elasticsearch response code is " + status + ((reason != null) ? ": " + reason : ""),
+				status, type, reason);
 	}
 
-	public void index(final String bulk) {
-		try {
-			logger.debug("Try to call POST {}, with body {}", URL_BULK, bulk);
-
-			HttpClientRequest req = httpClient
-					.post(URL_BULK)
-					.putHeader(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
-			addCommonHeaders(req);
-
-			req
-					.toObservable()
-					.flatMap(resp -> {
-						if (resp.statusCode() != HttpStatusCode.OK_200) {
-							new RuntimeException(
-									"Impossible to call Elasticsearch PUT {}: {}" + URL_BULK + resp.statusCode());
-						}
-						return Observable.just(Buffer.buffer()).mergeWith(resp.toObservable());
-					})
-					.reduce(Buffer::appendBuffer)
-					.map(Buffer::toString)
-					.subscribe(new Subscriber<String>() {
-						@Override
-						public void onCompleted() {
+	/**
+	 * Retry an idempotent call failing on a connection error or rejected by an overloaded Elasticsearch, with an
+	 * exponential and randomized backoff.
+	 *
+	 * @param call the call to retry
+	 * @return the call, retried as configured
+	 */
+	private <T> Observable<T> withRetry(final Observable<T> call) {
+		final int maxRetries = this.configuration.getRetryMaxRetries();
+		if (maxRetries <= 0) {
+			return call;
+		}
 
-						}
+		return call.retryWhen(errors -> {
+			final AtomicInteger attempts = new AtomicInteger();
 
-						@Override
-						public void onError(Throwable t) {
-							logger.error("An error occurs while calling Elasticsearch POST {}", URL_BULK, t);
-						}
+			return errors.flatMap(throwable -> {
+				final int attempt = attempts.incrementAndGet();
+				final boolean retryable = ElasticsearchException.isRetryable(throwable) ||
+						(this.configuration.isRetryOnTimeout() && ElasticsearchException.isTimeout(throwable));
+				if (attempt > maxRetries || ! retryable) {
+					return Observable.error(throwable);
+				}
 
-						@Override
-						public void onNext(String response) {
-							logger.debug("Response of ES for POST {} : {}", URL_BULK, response);
-						}
-					});
+				final long backoff = Math.min(this.configuration.getRetryMaxBackoff(),
+						this.configuration.getRetryBackoff() << (attempt - 1));
+				final long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
 
-			req.end(bulk);
-		} catch (Exception ex) {
-			logger.error("Unexpected error while bulk indexing data to Elasticsearch", ex);
+				logger.debug("Retry Elasticsearch call in {} ms ({}/{}): {}", delay, attempt, maxRetries,
+						throwable.getMessage());
+				return Observable.timer(delay, TimeUnit.MILLISECONDS);
+			});
+		});
+	}
+
+	/**
+	 * Decode a JSON response body.
+	 * The body is parsed straight from the collected bytes, without copying them to an intermediate String.
+	 *
+	 * @param body the response body
+	 * @param type the expected type
+	 * @return the decoded response
+	 */
+	private <T> Single<T> decode(final Buffer body, final Class<T> type) {
+		try (InputStream content = ResponseBodyCollector.toInputStream(body)) {
+			return Single.just(this.mapperFor(body).readValue(content, type));
+		} catch (IOException ioe) {
+			return Single.error(ioe);
+		}
+	}
+
+	/**
+	 * Decode a search response body, and attach the measures of the call to the response.
+	 *
+	 * @param body the response body
+	 * @param type the expected type
+	 * @param metrics the measures of the call, completed with the decoding time
+	 * @return the decoded response
+	 */
+	private <T extends ESSearchResponse> Single<T> decode(final Buffer body, final Class<T> type,
+														  final ResponseMetrics metrics) {
+		final long start = System.nanoTime();
+
+		return this.decode(body, type)
+				.doOnSuccess(response -> {
+					metrics.setDecodeTime(System.nanoTime() - start);
+					response.setResponseMetrics(metrics);
+				});
+	}
+
+	/**
+	 * Get the mapper able to read a response body.
+	 * Elasticsearch answers with the requested binary format, except for some APIs and versions which always answer
+	 * with JSON: the format is detected from the first byte of the body.
+	 *
+	 * @param body the response body
+	 * @return the mapper to use
+	 */
+	private ObjectMapper mapperFor(final Buffer body) {
+		if (this.binaryMapper != null && body.length() > 0 && body.getByte(0) != '{') {
+			return this.binaryMapper;
+		}
+		return this.mapper;
+	}
+
+	/**
+	 * Encode a JSON query into the configured format.
+	 *
+	 * @param json the JSON query, UTF-8 encoded
+	 * @return the encoded query
+	 * @throws IOException when the query is not valid JSON
+	 */
+	private Buffer encode(final Buffer json) throws IOException {
+		if (this.binaryMapper == null) {
+			return json;
+		}
+
+		final ByteBuf encoded = Unpooled.buffer(json.length());
+		try (InputStream in = ResponseBodyCollector.toInputStream(json);
+			 JsonParser parser = this.mapper.getFactory().createParser(in);
+			 OutputStream out = new ByteBufOutputStream(encoded);
+			 JsonGenerator generator = this.binaryMapper.getFactory().createGenerator(out)) {
+			while (parser.nextToken() != null) {
+				generator.copyCurrentEvent(parser);
+			}
+		}
+
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(encoded));
+	}
+
+	/**
+	 * Wait for the result of an asynchronous call. Used by the blocking methods.
+	 *
+	 * @param single the asynchronous call
+	 * @return the result of the call
+	 * @throws TechnicalException when the call fails
+	 */
+	private static <T> T await(final Single<T> single) throws TechnicalException {
+		try {
+			return single.toBlocking().value();
+		} catch (final RuntimeException re) {
+			if (re.getCause() instanceof TechnicalException) {
+				throw (TechnicalException) re.getCause();
+			}
+			throw new TechnicalException("Impossible to call Elasticsearch.", re);
 		}
 	}
 
@@ -398,7 +1192,7 @@ public class ElasticsearchComponent {
 	 */
 	private void addCommonHeaders(final HttpClientRequest request) {
 		request
-				.putHeader(HttpHeaders.ACCEPT, CONTENT_TYPE)
+				.putHeader(HttpHeaders.ACCEPT, this.wireFormat.getContentType())
 				.putHeader(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name());
 
 		// basic auth
@@ -30,6 +30,8 @@ import io.gravitee.repository.analytics.api.AnalyticsRepository;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.response.Response;
 import io.gravitee.repository.elasticsearch.AbstractElasticRepository;
+import io.gravitee.repository.elasticsearch.analytics.cache.AnalyticsQueryCache;
+import rx.Single;
 
 /**
  * @author David BRASSELY (david.brassely at graviteesource.com)
@@ -53,6 +55,12 @@ public class ElasticAnalyticsRepository extends AbstractElasticRepository implem
     
     private final Map<Class<? extends Query<?>>, ElasticsearchQueryCommand<?>> queryCommands = new HashMap<>();
 
+    /**
+     * Cache of the query responses.
+     */
+    @Autowired
+    private AnalyticsQueryCache queryCache;
+
     /**
      * Initialize the map of command.
      */
@@ -63,7 +71,31 @@ public class ElasticAnalyticsRepository extends AbstractElasticRepository implem
     
     @Override
     public <T extends Response> T query(final Query<T> query) throws AnalyticsException {
-    	
+    	try {
+    		return this.queryAsync(query).toBlocking().value();
+    	} catch (final RuntimeException re) {
+    		if (re.getCause() instanceof AnalyticsException) {
+    			throw (AnalyticsException) re.getCause();
+    		}
+    		throw new AnalyticsException("Impossible to perform " + query.getClass().getSimpleName(), re);
+    	}
+    }
+
+    /**
+     * Execute an analytic query without blocking the caller.
+     * @param query query to execute
+     * @return response, or an {@link AnalyticsException} if the query can not be performed
+     */
+    public <T extends Response> Single<T> queryAsync(final Query<T> query) {
+    	try {
+    		final ElasticsearchQueryCommand<T> handler = this.getHandler(query);
+    		return this.queryCache.get(query, handler::executeQueryAsync);
+    	} catch (final AnalyticsException ae) {
+    		return Single.error(ae);
+    	}
+    }
+
+    private <T extends Response> ElasticsearchQueryCommand<T> getHandler(final Query<T> query) throws AnalyticsException {
     	@SuppressWarnings("unchecked")
 		final ElasticsearchQueryCommand<T> handler = (ElasticsearchQueryCommand<T>) this.queryCommands.get(query.getClass());
     	
@@ -71,6 +103,6 @@ public class ElasticAnalyticsRepository extends AbstractElasticRepository implem
     		logger.error("No command found to handle query of type {}", query.getClass());
     		throw new AnalyticsException("No command found to handle query of type " + query.getClass());
     	}
-    	return handler.executeQuery(query);	
+    	return handler;
     }
 }
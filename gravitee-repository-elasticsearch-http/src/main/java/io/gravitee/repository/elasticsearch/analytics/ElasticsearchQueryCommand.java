@@ -18,6 +18,7 @@ package io.gravitee.repository.elasticsearch.analytics;
 import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.response.Response;
+import rx.Single;
 
 /**
  * Common interface used to execute an analytic Elasticsearch query.
@@ -41,6 +42,15 @@ public interface ElasticsearchQueryCommand<T extends Response> {
 	 */
 	T executeQuery(final Query<T> query) throws AnalyticsException;
 
+	/**
+	 * Execute an analytic Elasticsearch query without blocking the caller.
+	 *
+	 * @param query
+	 *            query to execute
+	 * @return response, or an {@link AnalyticsException} in case of analytic exception
+	 */
+	Single<T> executeQueryAsync(final Query<T> query);
+
 	/**
 	 * Get the supported query
 	 * 
@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.AbstractQuery;
+import io.gravitee.repository.analytics.query.DateRange;
+import io.gravitee.repository.analytics.query.Query;
+import io.gravitee.repository.analytics.query.count.CountResponse;
+import io.gravitee.repository.analytics.query.groupby.GroupByResponse;
+import io.gravitee.repository.analytics.query.response.Response;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import io.gravitee.repository.elasticsearch.utils.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import rx.Observable;
+import rx.Single;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of the analytic query responses.
+ *
+ * Queries are normalized, the time range of the date histograms being widened to whole buckets. Responses of ranges
+ * ending long enough ago are immutable and kept for a long time; responses of date histograms ending close to now are
+ * only kept for a short time. Counts and group by ending close to now are not cached, their range changing with each
+ * refresh.
+ * The cache is bounded by the estimated size of the responses, expired entries being purged and then least recently
+ * used entries being evicted first.
+ *
+ * Cached responses are shared between the callers and must not be modified.
+ *
+ * @author GraviteeSource Team
+ */
+public class AnalyticsQueryCache {
+
+	/**
+	 * Estimated size of an object header and reference, used to weigh the responses.
+	 */
+	private static final int OBJECT_WEIGHT = 16;
+
+	@Autowired
+	private ElasticConfiguration configuration;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long weight;
+
+	public AnalyticsQueryCache() {
+	}
+
+	AnalyticsQueryCache(final ElasticConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Get the response of a query from the cache, or load it.
+	 *
+	 * @param query the query
+	 * @param loader performs the query
+	 * @return the response
+	 */
+	public <T extends Response> Single<T> get(final Query<T> query, final Function<Query<T>, Single<T>> loader) {
+		if (!configuration.isCacheEnabled()) {
+			return loader.apply(query);
+		}
+
+		final NormalizedQuery<T> normalized = NormalizedQuery.normalize(query);
+		if (normalized == null) {
+			return loader.apply(query);
+		}
+
+		return Single.defer(() -> {
+			// The exact range of a count or a group by ending close to now moves with each refresh, it is never hit
+			if (!normalized.isWidened() && !this.isSettled(normalized, System.currentTimeMillis())) {
+				return loader.apply(query);
+			}
+
+			final T cached = this.lookup(normalized.getKey(), query.responseType());
+			if (cached != null) {
+				return Single.just(cached);
+			}
+
+			return loader
+					.apply(normalized.getQuery())
+					.doOnSuccess(response -> this.put(normalized, response));
+		});
+	}
+
+	/**
+	 * Get the response of a query by merging the responses of each of its days.
+	 *
+	 * Each whole day is looked up in the cache: days ending long enough ago are kept for a long time, so only the
+	 * current day has to be queried again. The partial days at the edges of the range are performed without being
+	 * cached, as a sliding range gives them a new key on each refresh. The query is performed as a whole when it can
+	 * not be split.
+	 *
+	 * @param query the query
+	 * @param loader performs the query of a single day, or the whole query
+	 * @param merger merges the responses of the days, given in chronological order
+	 * @return the response
+	 */
+	public <T extends Response> Single<T> getByDay(final Query<T> query, final Function<Query<T>, Single<T>> loader,
+												   final Function<List<T>, T> merger) {
+		if (!configuration.isCacheEnabled() || !configuration.isCacheDailySplit()) {
+			return loader.apply(query);
+		}
+
+		final List<Query<T>> days = NormalizedQuery.splitByDay(query);
+		if (days == null || days.size() < 2) {
+			return loader.apply(query);
+		}
+
+		return Observable
+				.from(days)
+				.concatMapEager(day -> this.getDay(day, loader).toObservable(), days.size(),
+						configuration.getCacheDailyConcurrency())
+				.toList()
+				.map(merger::apply)
+				.toSingle();
+	}
+
+	private <T extends Response> Single<T> getDay(final Query<T> day, final Function<Query<T>, Single<T>> loader) {
+		final DateRange range = ((AbstractQuery<T>) day).timeRange().range();
+		if (!DateUtils.isWholeDay(range.from(), range.to())) {
+			return loader.apply(day);
+		}
+
+		return this.get(day, loader);
+	}
+
+	/**
+	 * Remove all the cached responses.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long weight() {
+		return weight;
+	}
+
+	private synchronized <T> T lookup(final String key, final Class<T> type) {
+		final Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+
+		if (entry.expiresAt <= System.currentTimeMillis() || !type.isInstance(entry.response)) {
+			remove(key, entry);
+			return null;
+		}
+
+		return type.cast(entry.response);
+	}
+
+	private void put(final NormalizedQuery<?> query, final Response response) {
+		final long ttl = ttl(query, System.currentTimeMillis());
+		if (ttl <= 0) {
+			return;
+		}
+
+		final long responseWeight = query.getKey().length() * 2 + weigh(response);
+		final long maxWeight = configuration.getCacheMaxSize();
+		if (responseWeight > maxWeight) {
+			return;
+		}
+
+		synchronized (this) {
+			final long now = System.currentTimeMillis();
+			final Iterator<Map.Entry<String, Entry>> expired = entries.entrySet().iterator();
+			while (expired.hasNext()) {
+				final Entry entry = expired.next().getValue();
+				if (entry.expiresAt <= now) {
+					weight -= entry.weight;
+					expired.remove();
+				}
+			}
+
+			final Entry previous = entries.put(query.getKey(), new Entry(response, responseWeight, now + ttl));
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+			weight += responseWeight;
+
+			final Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+			while (weight > maxWeight && eldest.hasNext()) {
+				weight -= eldest.next().getValue().weight;
+				eldest.remove();
+			}
+		}
+	}
+
+	private void remove(final String key, final Entry entry) {
+		entries.remove(key);
+		weight -= entry.weight;
+	}
+
+	/**
+	 * Compute how long the response of a query can be kept.
+	 * Data is still being indexed until the end of the range is older than the settle delay.
+	 */
+	long ttl(final NormalizedQuery<?> query, final long now) {
+		if (isSettled(query, now)) {
+			return configuration.getCacheImmutableTtl();
+		}
+
+		final long ttl = configuration.getCacheLiveTtl();
+		return (query.getInterval() > 0) ? Math.min(ttl, query.getInterval()) : ttl;
+	}
+
+	private boolean isSettled(final NormalizedQuery<?> query, final long now) {
+		return now - query.getTo() >= configuration.getCacheSettleDelay();
+	}
+
+	/**
+	 * Estimate the size in bytes of a response.
+	 */
+	static long weigh(final Response response) {
+		long weight = OBJECT_WEIGHT;
+
+		if (response instanceof DateHistogramResponse) {
+			final DateHistogramResponse histogram = (DateHistogramResponse) response;
+			weight += histogram.timestamps().size() * (long) (OBJECT_WEIGHT + 8);
+			for (Bucket bucket : histogram.values()) {
+				weight += weigh(bucket);
+			}
+		} else if (response instanceof GroupByResponse) {
+			for (GroupByResponse.Bucket bucket : ((GroupByResponse) response).values()) {
+				weight += OBJECT_WEIGHT * 2 + 8 + ((bucket.name() != null) ? bucket.name().length() * 2 : 0);
+			}
+		} else if (response instanceof CountResponse) {
+			weight += 8;
+		}
+
+		return weight;
+	}
+
+	private static long weigh(final Bucket bucket) {
+		long weight = OBJECT_WEIGHT * 2 + ((bucket.name() != null) ? bucket.name().length() * 2 : 0);
+
+		for (Map.Entry<String, List<Data>> data : bucket.data().entrySet()) {
+			weight += OBJECT_WEIGHT + data.getKey().length() * 2 + data.getValue().size() * (long) (OBJECT_WEIGHT * 2 + 16);
+		}
+		for (Bucket child : bucket.buckets()) {
+			weight += weigh(child);
+		}
+
+		return weight;
+	}
+
+	private static class Entry {
+
+		private final Response response;
+
+		private final long weight;
+
+		private final long expiresAt;
+
+		Entry(final Response response, final long weight, final long expiresAt) {
+			this.response = response;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.Query;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keep the settled buckets of the date histograms, so that refreshing a histogram only queries its newest buckets.
+ *
+ * A bucket is settled once its end is older than the settle delay. For each query shape, the buckets settled by the
+ * previous query are kept; the next query with the same shape only asks Elasticsearch for the buckets starting after
+ * them, and the response is spliced with the kept ones.
+ *
+ * @author GraviteeSource Team
+ */
+public class DateHistogramDeltaCache {
+
+	@Autowired
+	private ElasticConfiguration configuration;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+			return size() > configuration.getCacheDeltaMaxEntries();
+		}
+	};
+
+	public DateHistogramDeltaCache() {
+	}
+
+	DateHistogramDeltaCache(final ElasticConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Get the response of a date histogram query, only querying the buckets not settled yet.
+	 *
+	 * @param query the query
+	 * @param loader performs a query
+	 * @param merger merges the responses of consecutive time ranges, given in chronological order
+	 * @return the response
+	 */
+	public Single<DateHistogramResponse> get(final DateHistogramQuery query,
+			final Function<Query<DateHistogramResponse>, Single<DateHistogramResponse>> loader,
+			final Function<List<DateHistogramResponse>, DateHistogramResponse> merger) {
+		if (!configuration.isCacheEnabled() || !configuration.isCacheDeltaRefresh()
+				|| query.timeRange() == null || query.timeRange().interval() == null) {
+			return loader.apply(query);
+		}
+
+		final long interval = query.timeRange().interval().toMillis();
+		final long from = query.timeRange().range().from();
+		final long to = query.timeRange().range().to();
+		if (interval <= 0 || from % interval != 0) {
+			return loader.apply(query);
+		}
+
+		final String shape = NormalizedQuery.shape(query);
+		final Entry entry = this.lookup(shape);
+
+		if (entry == null || entry.from > from || entry.settled <= from || entry.settled > to) {
+			return loader
+					.apply(query)
+					.doOnSuccess(response -> this.store(shape, response, from, to, interval));
+		}
+
+		final DateHistogramResponse settled = trim(entry.response, from, entry.settled);
+		return loader
+				.apply(NormalizedQuery.withRange(query, entry.settled, to))
+				.map(delta -> merger.apply(Arrays.asList(settled, delta)))
+				.doOnSuccess(response -> this.store(shape, response, from, to, interval));
+	}
+
+	private synchronized Entry lookup(final String shape) {
+		return entries.get(shape);
+	}
+
+	private void store(final String shape, final DateHistogramResponse response, final long from, final long to,
+					   final long interval) {
+		// Fully settled ranges are kept by the analytics cache, only the ones still growing are kept here
+		final long limit = System.currentTimeMillis() - configuration.getCacheSettleDelay();
+		if (to < limit) {
+			return;
+		}
+
+		final long settled = Math.floorDiv(limit, interval) * interval;
+		if (settled <= from) {
+			return;
+		}
+
+		final Entry entry = new Entry(trim(response, from, settled), from, settled);
+		synchronized (this) {
+			entries.put(shape, entry);
+		}
+	}
+
+	/**
+	 * Copy the buckets of a response within a time range.
+	 *
+	 * @param response the response, which is not modified
+	 * @param from start of the time range, inclusive
+	 * @param to end of the time range, exclusive
+	 * @return a new response
+	 */
+	static DateHistogramResponse trim(final DateHistogramResponse response, final long from, final long to) {
+		final DateHistogramResponse trimmed = new DateHistogramResponse();
+
+		for (Long timestamp : response.timestamps()) {
+			if (timestamp >= from && timestamp < to) {
+				trimmed.timestamps().add(timestamp);
+			}
+		}
+
+		for (Bucket bucket : response.values()) {
+			if (bucket == null) {
+				trimmed.values().add(null);
+				continue;
+			}
+
+			final Bucket trimmedBucket = new Bucket(bucket.name(), bucket.field());
+			for (Map.Entry<String, List<Data>> data : bucket.data().entrySet()) {
+				final List<Data> trimmedData = new ArrayList<>(data.getValue().size());
+				for (Data point : data.getValue()) {
+					if (point.timestamp() >= from && point.timestamp() < to) {
+						trimmedData.add(point);
+					}
+				}
+				if (!trimmedData.isEmpty()) {
+					trimmedBucket.data().put(data.getKey(), trimmedData);
+				}
+			}
+			trimmed.values().add(trimmedBucket);
+		}
+
+		return trimmed;
+	}
+
+	private static class Entry {
+
+		/**
+		 * Settled buckets.
+		 */
+		private final DateHistogramResponse response;
+
+		private final long from;
+
+		/**
+		 * End of the settled buckets, exclusive.
+		 */
+		private final long settled;
+
+		Entry(final DateHistogramResponse response, final long from, final long settled) {
+			this.response = response;
+			this.from = from;
+			this.settled = settled;
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.*;
+import io.gravitee.repository.analytics.query.count.CountQuery;
+import io.gravitee.repository.analytics.query.count.CountQueryBuilder;
+import io.gravitee.repository.analytics.query.groupby.GroupByQuery;
+import io.gravitee.repository.analytics.query.groupby.GroupByQueryBuilder;
+import io.gravitee.repository.analytics.query.response.Response;
+import io.gravitee.repository.elasticsearch.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An analytic query to perform on a cache miss, with the cache key identifying it.
+ *
+ * The time range of a date histogram is widened to whole buckets: its start is moved back to the start of its bucket
+ * and its end is moved forward to the end of its bucket, so that successive refreshes within the same bucket share the
+ * same key. The edge buckets then cover their whole interval instead of the part of it within the requested range.
+ *
+ * Count and group by queries have no bucket to widen: they are performed on their exact time range, which is part of
+ * their key. This key only identifies the same query again once the range is settled: while its end moves with each
+ * refresh of a dashboard, the query is not cached at all.
+ *
+ * @author GraviteeSource Team
+ */
+class NormalizedQuery<T extends Response> {
+
+	private final String key;
+
+	private final Query<T> query;
+
+	private final long from;
+
+	private final long to;
+
+	private final long interval;
+
+	/**
+	 * Whether the time range is widened to whole buckets.
+	 */
+	private final boolean widened;
+
+	private NormalizedQuery(final String key, final Query<T> query, final long from, final long to,
+							final long interval, final boolean widened) {
+		this.key = key;
+		this.query = query;
+		this.from = from;
+		this.to = to;
+		this.interval = interval;
+		this.widened = widened;
+	}
+
+	/**
+	 * Normalize a query.
+	 *
+	 * @param query the query
+	 * @return the normalized query, or null if the query can not be cached
+	 */
+	static <T extends Response> NormalizedQuery<T> normalize(final Query<T> query) {
+		if (!(query instanceof AbstractQuery)) {
+			return null;
+		}
+
+		final AbstractQuery<T> abstractQuery = (AbstractQuery<T>) query;
+		if (abstractQuery.timeRange() == null || abstractQuery.timeRange().range() == null) {
+			return null;
+		}
+
+		final Interval interval = abstractQuery.timeRange().interval();
+		final long millis = (interval != null) ? interval.toMillis() : 0;
+		long from = abstractQuery.timeRange().range().from();
+		long to = abstractQuery.timeRange().range().to();
+
+		final Query<T> normalized;
+		if (millis > 0 && query instanceof DateHistogramQuery) {
+			from = Math.floorDiv(from, millis) * millis;
+			to = Math.floorDiv(to, millis) * millis + millis - 1;
+			normalized = withRange(query, from, to);
+		} else if (query instanceof DateHistogramQuery || query instanceof CountQuery || query instanceof GroupByQuery) {
+			normalized = query;
+		} else {
+			normalized = null;
+		}
+
+		if (normalized == null) {
+			return null;
+		}
+
+		final String key = shape(abstractQuery) + '|' + from + '|' + to;
+		return new NormalizedQuery<>(key, normalized, from, to, millis, normalized != query);
+	}
+
+	/**
+	 * Identify a query regardless of its time range.
+	 *
+	 * @param query the query
+	 * @return a key shared by all the queries only differing by their time range
+	 */
+	static String shape(final AbstractQuery<?> query) {
+		final Interval interval = (query.timeRange() != null) ? query.timeRange().interval() : null;
+		final StringBuilder key = new StringBuilder()
+				.append(query.getClass().getSimpleName())
+				.append('|').append((interval != null) ? interval.toMillis() : 0)
+				.append('|').append((query.query() != null) ? query.query().filter() : null)
+				.append('|').append((query.root() != null) ? query.root().field() + '=' + query.root().id() : null);
+
+		if (query instanceof DateHistogramQuery) {
+			for (Aggregation aggregation : ((DateHistogramQuery) query).aggregations()) {
+				key.append('|').append(aggregation.type()).append(':').append(aggregation.field());
+			}
+		} else if (query instanceof GroupByQuery) {
+			final GroupByQuery groupByQuery = (GroupByQuery) query;
+			key.append('|').append(groupByQuery.field());
+			if (groupByQuery.sort() != null) {
+				key.append('|').append(groupByQuery.sort().getType())
+						.append(':').append(groupByQuery.sort().getField())
+						.append(':').append(groupByQuery.sort().getOrder());
+			}
+			for (Range<Double> group : groupByQuery.groups()) {
+				key.append('|').append(group.from()).append('-').append(group.to());
+			}
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Split a query into one query per day, using the same days as the daily indices.
+	 *
+	 * The query is only split when every day boundary is also a boundary of its interval, so that no bucket of the
+	 * response overlaps two days.
+	 *
+	 * @param query the query
+	 * @return the query of each day, or null if the query can not be split
+	 */
+	static <T extends Response> List<Query<T>> splitByDay(final Query<T> query) {
+		if (!(query instanceof AbstractQuery)) {
+			return null;
+		}
+
+		final AbstractQuery<T> abstractQuery = (AbstractQuery<T>) query;
+		if (abstractQuery.timeRange() == null || abstractQuery.timeRange().range() == null) {
+			return null;
+		}
+
+		final Interval interval = abstractQuery.timeRange().interval();
+		final long millis = (interval != null) ? interval.toMillis() : 0;
+		final List<long[]> days = DateUtils.dailyRanges(
+				abstractQuery.timeRange().range().from(), abstractQuery.timeRange().range().to());
+
+		final List<Query<T>> slices = new ArrayList<>(days.size());
+		for (int i = 0; i < days.size(); i++) {
+			final long[] day = days.get(i);
+			if (millis > 0 && ((i > 0 && day[0] % millis != 0) || (i < days.size() - 1 && (day[1] + 1) % millis != 0))) {
+				return null;
+			}
+
+			final Query<T> slice = withRange(query, day[0], day[1]);
+			if (slice == null) {
+				return null;
+			}
+			slices.add(slice);
+		}
+
+		return slices;
+	}
+
+	/**
+	 * Copy a query with another time range.
+	 *
+	 * @return the copy, or null if the query type is not supported
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Response> Query<T> withRange(final Query<T> query, final long from, final long to) {
+		final AbstractQuery<T> abstractQuery = (AbstractQuery<T>) query;
+		final Interval interval = abstractQuery.timeRange().interval();
+		final DateRange range = DateRangeBuilder.between(from, to);
+
+		if (query instanceof DateHistogramQuery) {
+			final DateHistogramQueryBuilder builder = filters(QueryBuilders.dateHistogram(), abstractQuery)
+					.timeRange(range, interval);
+			((DateHistogramQuery) query).aggregations().forEach(builder::aggregation);
+			return (Query<T>) builder.build();
+		} else if (query instanceof GroupByQuery) {
+			final GroupByQuery groupByQuery = (GroupByQuery) query;
+			final GroupByQueryBuilder builder = filters(QueryBuilders.groupBy(), abstractQuery)
+					.timeRange(range, interval)
+					.field(groupByQuery.field());
+			if (groupByQuery.sort() != null) {
+				builder.sort(groupByQuery.sort());
+			}
+			groupByQuery.groups().forEach(builder::range);
+			return (Query<T>) builder.build();
+		} else if (query instanceof CountQuery) {
+			return (Query<T>) filters(QueryBuilders.count(), abstractQuery).timeRange(range, interval).build();
+		}
+
+		return null;
+	}
+
+	private static <B extends AbstractQueryBuilder<B, ?>> B filters(final B builder, final AbstractQuery<?> query) {
+		if (query.query() != null) {
+			builder.query(query.query().filter());
+		}
+		if (query.root() != null) {
+			builder.root(query.root().field(), query.root().id());
+		}
+		return builder;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	Query<T> getQuery() {
+		return query;
+	}
+
+	long getFrom() {
+		return from;
+	}
+
+	long getTo() {
+		return to;
+	}
+
+	long getInterval() {
+		return interval;
+	}
+
+	boolean isWidened() {
+		return widened;
+	}
+}
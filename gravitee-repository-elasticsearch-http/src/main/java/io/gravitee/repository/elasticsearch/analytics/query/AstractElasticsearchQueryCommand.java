@@ -15,19 +15,27 @@
  */
 package io.gravitee.repository.elasticsearch.analytics.query;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.response.Response;
 import io.gravitee.repository.elasticsearch.ElasticsearchComponent;
 import io.gravitee.repository.elasticsearch.analytics.ElasticsearchQueryCommand;
+import io.gravitee.repository.elasticsearch.analytics.cache.AnalyticsQueryCache;
+import io.gravitee.repository.elasticsearch.metrics.MetricsRegistry;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
+import io.gravitee.repository.elasticsearch.query.SearchBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.SearchBodyRenderer;
 import io.gravitee.repository.elasticsearch.utils.ElasticsearchIndexUtil;
-import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 /**
  * Abstract class used to execute an analytic Elasticsearch query.
@@ -52,10 +60,10 @@ public abstract class AstractElasticsearchQueryCommand<T extends Response> imple
 	protected ElasticsearchComponent elasticsearchComponent;
 
 	/**
-	 * Templating component
+	 * Renderer of the search bodies.
 	 */
 	@Autowired
-	private FreeMarkerComponent freeMarkerComponent;
+	private SearchBodyRenderer searchBodyRenderer;
 
 	/**
 	 * Util component used to compute index name.
@@ -63,21 +71,97 @@ public abstract class AstractElasticsearchQueryCommand<T extends Response> imple
 	@Autowired
 	protected ElasticsearchIndexUtil elasticsearchIndexUtil;
 
+	/**
+	 * Cache of the responses of each day.
+	 */
+	@Autowired
+	private AnalyticsQueryCache queryCache;
+
+	/**
+	 * Registry of the query metrics, the queries are not measured when none is declared.
+	 */
+	@Autowired(required = false)
+	private MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
+
 	protected final static String ES_TYPE_METRICS = "request";
 
+	@Override
+	public Single<T> executeQueryAsync(final Query<T> query) {
+		return this.metrics(query).measure(() -> {
+			final Function<List<T>, T> merger = this.merger(query);
+			if (merger != null) {
+				return this.queryCache.getByDay(query, this::executeSearchAsync, merger);
+			}
+
+			return this.executeSearchAsync(query);
+		});
+	}
+
+	/**
+	 * Perform the Elasticsearch search of an analytic query.
+	 *
+	 * @param query query to execute
+	 * @return response, or an {@link AnalyticsException} in case of analytic exception
+	 */
+	protected abstract Single<T> executeSearchAsync(final Query<T> query);
+
+	/**
+	 * Get the merger of the responses of a query on consecutive time ranges into the response of the query on the
+	 * whole time range. The responses are given in chronological order.
+	 *
+	 * @param query query to execute
+	 * @return the merger, or null if the responses of this query can not be merged
+	 */
+	protected Function<List<T>, T> merger(final Query<T> query) {
+		return null;
+	}
+
+	@Override
+	public T executeQuery(final Query<T> query) throws AnalyticsException {
+		try {
+			return this.executeQueryAsync(query).toBlocking().value();
+		} catch (final RuntimeException re) {
+			if (re.getCause() instanceof AnalyticsException) {
+				throw (AnalyticsException) re.getCause();
+			}
+			throw new AnalyticsException("Impossible to perform " + query.getClass().getSimpleName(), re);
+		}
+	}
+
+	/**
+	 * Wrap the error of an analytic query.
+	 * @param queryName name of the query, used in the error message
+	 * @param throwable the error
+	 * @return an {@link AnalyticsException} error
+	 */
+	protected Single<T> error(final String queryName, final Throwable throwable) {
+		logger.error("Impossible to perform {}", queryName, throwable);
+		return Single.error(new AnalyticsException("Impossible to perform " + queryName, throwable));
+	}
+
+	/**
+	 * Get the metrics of a type of query.
+	 * @param query the query
+	 * @return the metrics of the queries of the same type
+	 */
+	protected QueryMetrics metrics(final Query<T> query) {
+		return new QueryMetrics(this.metricsRegistry, "analytics." + query.getClass().getSimpleName());
+	}
+
 	/**
 	 * Create the elasticsearch query
-	 * @param templateName Freemarker template name
+	 * @param builder builder of the query
+	 * @param templateName Freemarker template name, used when the templates are the configured renderer
 	 * @param query query parameter
 	 * @return the elasticsearch json query
 	 */
-	protected String createQuery(final String templateName, final Query<T> query) {
-		final Map<String, Object> data = new HashMap<>();
-		data.put("query", query);
-		final String request = this.freeMarkerComponent.generateFromTemplate(templateName, data);
-		
+	protected <Q extends Query<T>> Buffer createQuery(final SearchBodyBuilder<Q> builder, final String templateName,
+			final Q query) {
+		final Buffer request = this.metrics(query).time(Phase.RENDER,
+				() -> this.searchBodyRenderer.render(builder, templateName, "query", query));
+
 		logger.debug("ES request {}", request);
-		
+
 		return request;
 	}
 }
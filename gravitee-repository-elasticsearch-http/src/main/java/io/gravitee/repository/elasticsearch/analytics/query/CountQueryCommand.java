@@ -15,15 +15,17 @@
  */
 package io.gravitee.repository.elasticsearch.analytics.query;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.count.CountQuery;
 import io.gravitee.repository.analytics.query.count.CountResponse;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.query.CountBodyBuilder;
+import rx.Single;
+
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Commmand used to handle CountQuery
@@ -34,40 +36,46 @@ import io.gravitee.repository.exceptions.TechnicalException;
  */
 public class CountQueryCommand extends AstractElasticsearchQueryCommand<CountResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(CountQueryCommand.class);
-
 	private final static String TEMPLATE = "count.ftl";
 
+	private final static CountBodyBuilder BUILDER = new CountBodyBuilder();
+
 	@Override
 	public Class<? extends Query<CountResponse>> getSupportedQuery() {
 		return CountQuery.class;
 	}
 
 	@Override
-	public CountResponse executeQuery(Query<CountResponse> query) throws AnalyticsException {
+	protected Single<CountResponse> executeSearchAsync(Query<CountResponse> query) {
 		final CountQuery countQuery = (CountQuery) query;
-		
-		final String request = this.createQuery(TEMPLATE, query);
-		
-		try {
-			final ESSearchResponse result;
+		final QueryMetrics metrics = this.metrics(query);
 
-			if (countQuery.timeRange() != null) {
-				final Long from = countQuery.timeRange().range().from();
-				final Long to = countQuery.timeRange().range().to();
+		final String index;
+		if (countQuery.timeRange() != null) {
+			final Long from = countQuery.timeRange().range().from();
+			final Long to = countQuery.timeRange().range().to();
 
-				result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_METRICS, request);
-			} else {
-				result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getTodayIndexName(), ES_TYPE_METRICS, request);
-			}
-			return this.toCountResponse(result);
-		} catch (final TechnicalException e) {
-			logger.error("Impossible to perform GroupByQuery", e);
-			throw new AnalyticsException("Impossible to perform GroupByQuery", e);
+			index = this.elasticsearchIndexUtil.getIndexName(from, to);
+		} else {
+			index = this.elasticsearchIndexUtil.getTodayIndexName();
 		}
+
+		return this.elasticsearchComponent.searchAsync(index, ES_TYPE_METRICS, BUILDER.stored(countQuery),
+						() -> this.createQuery(BUILDER, TEMPLATE, countQuery))
+				.map(metrics::received)
+				.map(response -> metrics.time(Phase.CONVERSION, () -> this.toCountResponse(response)))
+				.onErrorResumeNext(throwable -> this.error("CountQuery", throwable));
+	}
+
+	@Override
+	protected Function<List<CountResponse>, CountResponse> merger(final Query<CountResponse> query) {
+		return this::merge;
+	}
+
+	private CountResponse merge(final List<CountResponse> responses) {
+		final CountResponse countResponse = new CountResponse();
+		countResponse.setCount(responses.stream().mapToLong(CountResponse::getCount).sum());
+		return countResponse;
 	}
 
 	private CountResponse toCountResponse(final ESSearchResponse response) {
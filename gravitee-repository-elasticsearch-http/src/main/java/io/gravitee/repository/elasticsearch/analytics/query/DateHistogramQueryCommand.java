@@ -15,20 +15,25 @@
  */
 package io.gravitee.repository.elasticsearch.analytics.query;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import io.gravitee.repository.analytics.AnalyticsException;
+import io.gravitee.repository.analytics.query.Aggregation;
 import io.gravitee.repository.analytics.query.AggregationType;
 import io.gravitee.repository.analytics.query.DateHistogramQuery;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.response.histogram.Bucket;
 import io.gravitee.repository.analytics.query.response.histogram.Data;
 import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
-import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.gravitee.repository.elasticsearch.analytics.cache.DateHistogramDeltaCache;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DateHistogramAggregation;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DateHistogramSearchResponse;
+import io.gravitee.repository.elasticsearch.query.DateHistogramBodyBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Commmand used to handle DateHistogramQuery
@@ -38,120 +43,125 @@ import java.util.*;
  */
 public class DateHistogramQueryCommand extends AstractElasticsearchQueryCommand<DateHistogramResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(DateHistogramQueryCommand.class);
-
 	private final static String TEMPLATE = "dateHistogram.ftl";
 
+	private final static DateHistogramBodyBuilder BUILDER = new DateHistogramBodyBuilder();
+
 	
 	@Override
 	public Class<? extends Query<DateHistogramResponse>> getSupportedQuery() {
 		return DateHistogramQuery.class;
 	}
 
+	/**
+	 * Settled buckets of the previous responses.
+	 */
+	@Autowired
+	private DateHistogramDeltaCache deltaCache;
+
 	@Override
-	public DateHistogramResponse executeQuery(Query<DateHistogramResponse> query) throws AnalyticsException {
+	protected Single<DateHistogramResponse> executeSearchAsync(Query<DateHistogramResponse> query) {
+		return this.deltaCache.get((DateHistogramQuery) query, this::search, responses -> this.merge(query, responses));
+	}
+
+	private Single<DateHistogramResponse> search(Query<DateHistogramResponse> query) {
 		final DateHistogramQuery dateHistogramQuery = (DateHistogramQuery) query;
+		final QueryMetrics metrics = this.metrics(query);
 
-		final String request = this.createQuery(TEMPLATE, query);
+		final Buffer request = this.createQuery(BUILDER, TEMPLATE, dateHistogramQuery);
 
 		final Long from = dateHistogramQuery.timeRange().range().from();
 		final Long to = dateHistogramQuery.timeRange().range().to();
 
-		try {
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_METRICS, request);
-			return this.toDateHistogramResponse(result, dateHistogramQuery);
-		} catch (final TechnicalException e) {
-			logger.error("Impossible to perform DateHistogramQuery", e);
-			throw new AnalyticsException("Impossible to perform DateHistogramQuery", e);
-		}
+		return this.elasticsearchComponent
+				.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_METRICS, request,
+						DateHistogramSearchResponse.class)
+				.map(metrics::received)
+				.map(result -> metrics.time(Phase.CONVERSION,
+						() -> this.toDateHistogramResponse(result, dateHistogramQuery)))
+				.onErrorResumeNext(throwable -> this.error("DateHistogramQuery", throwable));
 	}
 
-	private DateHistogramResponse toDateHistogramResponse(final ESSearchResponse response,
-			final DateHistogramQuery query) {
+	/**
+	 * The query is only split on boundaries of its interval, so the buckets of each time range are complete.
+	 */
+	@Override
+	protected Function<List<DateHistogramResponse>, DateHistogramResponse> merger(
+			final Query<DateHistogramResponse> query) {
+		return responses -> this.merge(query, responses);
+	}
+
+	private DateHistogramResponse merge(final Query<DateHistogramResponse> query,
+			final List<DateHistogramResponse> responses) {
 		final DateHistogramResponse dateHistogramResponse = new DateHistogramResponse();
+		boolean hasValues = false;
 
-		if (response.getAggregations() == null) {
+		for (final DateHistogramResponse response : responses) {
+			dateHistogramResponse.timestamps().addAll(response.timestamps());
+			hasValues |= !response.values().isEmpty();
+		}
+
+		if (!hasValues) {
 			return dateHistogramResponse;
 		}
 
-		// Prepare data
-		final Map<String, Bucket> fieldBuckets = new HashMap<>();
+		// Responses may be cached, their buckets are copied
+		final List<Aggregation> aggregations = ((DateHistogramQuery) query).aggregations();
+		for (int i = 0; i < aggregations.size(); i++) {
+			Bucket merged = null;
 
-		final io.gravitee.repository.elasticsearch.model.elasticsearch.Aggregation dateHistogram = response
-				.getAggregations().get("by_date");
-		for (JsonNode dateBucket : dateHistogram.getBuckets()) {
-			final long keyAsDate = dateBucket.get("key").asLong();
-			dateHistogramResponse.timestamps().add(keyAsDate);
-
-			final Iterator<String> fieldNamesInDateBucket = dateBucket.fieldNames();
-			while (fieldNamesInDateBucket.hasNext()) {
-				final String fieldNameInDateBucket = fieldNamesInDateBucket.next();
-				this.handleSubAggregation(fieldBuckets, fieldNameInDateBucket, dateBucket, keyAsDate);
+			for (final DateHistogramResponse response : responses) {
+				final Bucket bucket = (i < response.values().size()) ? response.values().get(i) : null;
+				if (bucket == null) {
+					continue;
+				}
+				if (merged == null) {
+					merged = new Bucket(bucket.name(), bucket.field());
+				}
+				for (final Map.Entry<String, List<Data>> data : bucket.data().entrySet()) {
+					merged.data().computeIfAbsent(data.getKey(), key -> new ArrayList<>()).addAll(data.getValue());
+				}
 			}
-		}
 
-		if (!query.aggregations().isEmpty()) {
-			query.aggregations().forEach(aggregation -> {
-				String key = aggregation.type().name().toLowerCase() + '_' + aggregation.field();
-				if (aggregation.type() == AggregationType.FIELD) {
-					key = "by_" + aggregation.field();
-				}
+			// No time range had this aggregation
+			if (merged == null) {
+				merged = new Bucket(aggregationName(aggregations.get(i)), aggregations.get(i).field());
+			}
 
-				dateHistogramResponse.values().add(fieldBuckets.get(key));
-			});
+			dateHistogramResponse.values().add(merged);
 		}
+
 		return dateHistogramResponse;
 	}
 
-	private void handleSubAggregation(final Map<String, Bucket> fieldBuckets, final String fieldNameInDateBucket,
-			final JsonNode dateBucket, final long keyAsDate) {
-		if (!fieldNameInDateBucket.startsWith("by_") && !fieldNameInDateBucket.startsWith("avg_")
-				&& !fieldNameInDateBucket.startsWith("min_") && !fieldNameInDateBucket.startsWith("max_")) {
-			return;
-		}
-
-		final String kindAggregation = fieldNameInDateBucket.split("_")[0];
-		final String fieldName = fieldNameInDateBucket.split("_")[1];
+	// Visible for benchmarks
+	DateHistogramResponse toDateHistogramResponse(final DateHistogramSearchResponse response,
+			final DateHistogramQuery query) {
+		final DateHistogramResponse dateHistogramResponse = new DateHistogramResponse();
 
-		Bucket fieldBucket = fieldBuckets.get(fieldNameInDateBucket);
-		if (fieldBucket == null) {
-			fieldBucket = new Bucket(fieldNameInDateBucket, fieldName);
-			fieldBuckets.put(fieldNameInDateBucket, fieldBucket);
+		if (response.getAggregations() == null) {
+			return dateHistogramResponse;
 		}
 
-		final Map<String, List<Data>> bucketData = fieldBucket.data();
-		List<Data> data;
+		// Buckets are already decoded by sub-aggregation
+		final DateHistogramAggregation dateHistogram = (DateHistogramAggregation) response
+				.getAggregations().get("by_date");
+		for (final long timestamp : dateHistogram.getTimestamps()) {
+			dateHistogramResponse.timestamps().add(timestamp);
+		}
 
-		switch (kindAggregation) {
-		case "by":
-			for (final JsonNode termBucket : dateBucket.get(fieldNameInDateBucket).get("buckets")) {
+		if (!query.aggregations().isEmpty()) {
+			final Map<String, Bucket> fieldBuckets = dateHistogram.getFieldBuckets();
+			query.aggregations().forEach(aggregation ->
+					dateHistogramResponse.values().add(fieldBuckets.get(aggregationName(aggregation))));
+		}
+		return dateHistogramResponse;
+	}
 
-				final String keyAsString = termBucket.get("key").asText();
-				data = bucketData.get(keyAsString);
-				if (data == null) {
-					data = new ArrayList<>();
-					bucketData.put(keyAsString, data);
-				}
-				data.add(new Data(keyAsDate, termBucket.get("doc_count").asLong()));
-			}
-			break;
-		case "min":
-		case "max":
-		case "avg":
-			final JsonNode numericBucket = dateBucket.get(fieldNameInDateBucket);
-			if (numericBucket.get("value") != null && numericBucket.get("value").isNumber()) {
-				final double value = numericBucket.get("value").asDouble();
-				data = bucketData.get(fieldNameInDateBucket);
-				if (data == null) {
-					data = new ArrayList<>();
-					bucketData.put(fieldNameInDateBucket, data);
-				}
-				data.add(new Data(keyAsDate, (long) value));
-			}
-			break;
+	private static String aggregationName(final Aggregation aggregation) {
+		if (aggregation.type() == AggregationType.FIELD) {
+			return "by_" + aggregation.field();
 		}
+		return aggregation.type().name().toLowerCase() + '_' + aggregation.field();
 	}
 }
@@ -15,19 +15,21 @@
  */
 package io.gravitee.repository.elasticsearch.analytics.query;
 
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.fasterxml.jackson.databind.JsonNode;
-
-import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.Query;
 import io.gravitee.repository.analytics.query.groupby.GroupByQuery;
 import io.gravitee.repository.analytics.query.groupby.GroupByResponse;
-import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.GroupByAggregation;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.GroupBySearchResponse;
+import io.gravitee.repository.elasticsearch.query.GroupByBodyBuilder;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 /**
  * Command used to handle GroupByQuery.
@@ -39,37 +41,60 @@ import io.gravitee.repository.exceptions.TechnicalException;
  */
 public class GroupByQueryCommand extends AstractElasticsearchQueryCommand<GroupByResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(GroupByQueryCommand.class);
-
 	private final static String TEMPLATE = "groupBy.ftl";
 
+	private final static GroupByBodyBuilder BUILDER = new GroupByBodyBuilder();
+
 	@Override
 	public Class<? extends Query<GroupByResponse>> getSupportedQuery() {
 		return GroupByQuery.class;
 	}
 
 	@Override
-	public GroupByResponse executeQuery(Query<GroupByResponse> query) throws AnalyticsException {
+	protected Single<GroupByResponse> executeSearchAsync(Query<GroupByResponse> query) {
 		final GroupByQuery groupByQuery = (GroupByQuery) query;
+		final QueryMetrics metrics = this.metrics(query);
+
+		final Buffer request = this.createQuery(BUILDER, TEMPLATE, groupByQuery);
+
+		final Long from = groupByQuery.timeRange().range().from();
+		final Long to = groupByQuery.timeRange().range().to();
+
+		return this.elasticsearchComponent
+				.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_METRICS, request,
+						GroupBySearchResponse.class)
+				.map(metrics::received)
+				.map(response -> metrics.time(Phase.CONVERSION, () -> this.toGroupByResponse(response)))
+				.onErrorResumeNext(throwable -> this.error("GroupByQuery", throwable));
+	}
+
+	/**
+	 * Only the range groups can be merged: the terms of each time range are limited to the top ones.
+	 */
+	@Override
+	protected Function<List<GroupByResponse>, GroupByResponse> merger(final Query<GroupByResponse> query) {
+		return ((GroupByQuery) query).groups().isEmpty() ? null : this::merge;
+	}
 
-		final String request = this.createQuery(TEMPLATE, query);
-
-		try {
-			final Long from = groupByQuery.timeRange().range().from();
-			final Long to = groupByQuery.timeRange().range().to();
-			
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_METRICS, request);
-			return this.toGroupByResponse(result);
-		} catch (TechnicalException e) {
-			logger.error("Impossible to perform GroupByQuery", e);
-			throw new AnalyticsException("Impossible to perform GroupByQuery", e);
+	private GroupByResponse merge(final List<GroupByResponse> responses) {
+		final GroupByResponse groupByResponse = new GroupByResponse();
+		final Map<String, Long> values = new LinkedHashMap<>();
+
+		for (final GroupByResponse response : responses) {
+			if (groupByResponse.getField() == null) {
+				groupByResponse.setField(response.getField());
+			}
+			for (final GroupByResponse.Bucket bucket : response.values()) {
+				values.merge(bucket.name(), bucket.value(), Long::sum);
+			}
 		}
+
+		values.forEach((name, value) -> groupByResponse.values().add(new GroupByResponse.Bucket(name, value)));
+		return groupByResponse;
 	}
 
-	private GroupByResponse toGroupByResponse(final ESSearchResponse response) {
+	// Visible for benchmarks
+	GroupByResponse toGroupByResponse(final GroupBySearchResponse response) {
 		final GroupByResponse groupByresponse = new GroupByResponse();
 
 		if (response.getAggregations() == null) {
@@ -77,56 +102,16 @@ public class GroupByQueryCommand extends AstractElasticsearchQueryCommand<GroupB
 		}
 
 		final String aggregationName = response.getAggregations().keySet().iterator().next();
-		final io.gravitee.repository.elasticsearch.model.elasticsearch.Aggregation aggregation = response
-				.getAggregations().get(aggregationName);
+		final GroupByAggregation aggregation = (GroupByAggregation) response.getAggregations().get(aggregationName);
 
 		final String fieldName = aggregationName.substring(aggregationName.indexOf('_') + 1);
 
 		groupByresponse.setField(fieldName);
 
-		if (aggregationName.endsWith("_range")) {
-
-			for (final JsonNode bucket : aggregation.getBuckets()) {
-
-				final String keyAsString = bucket.get("key").asText();
-				final long docCount = bucket.get("doc_count").asLong();
-				GroupByResponse.Bucket value = new GroupByResponse.Bucket(keyAsString, docCount);
-				groupByresponse.values().add(value);
-			}
-
-		} else if (aggregationName.startsWith("by_")) {
-
-			for (final JsonNode bucket : aggregation.getBuckets()) {
-				final JsonNode subAggragation = this.getFirstSubAggregation(bucket);
-
-				if (subAggragation != null) {
-					final JsonNode aggValue = subAggragation.get("value");
-					if (aggValue.isNumber()) {
-						final String keyAsString = bucket.get("key").asText();
-						GroupByResponse.Bucket value = new GroupByResponse.Bucket(keyAsString, aggValue.asLong());
-						groupByresponse.values().add(value);
-					}
-
-				} else {
-					final String keyAsString = bucket.get("key").asText();
-					final long docCount = bucket.get("doc_count").asLong();
-					final GroupByResponse.Bucket value = new GroupByResponse.Bucket(keyAsString, docCount);
-					groupByresponse.values().add(value);
-				}
-			}
+		// Buckets are already decoded, with the value of their metric sub-aggregation if any
+		if (aggregationName.endsWith("_range") || aggregationName.startsWith("by_")) {
+			groupByresponse.values().addAll(aggregation.getValues());
 		}
 		return groupByresponse;
-
-	}
-
-	private JsonNode getFirstSubAggregation(JsonNode bucket) {
-
-		for (final Iterator<String> it = bucket.fieldNames(); it.hasNext();) {
-			final String fieldName = it.next();
-			if (fieldName.startsWith("by_") || fieldName.startsWith("avg_") || fieldName.startsWith("min_")
-					|| fieldName.startsWith("max_"))
-				return bucket.get(fieldName);
-		}
-		return null;
 	}
 }
@@ -0,0 +1,391 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.gravitee.common.http.HttpStatusCode;
+import io.vertx.core.Context;
+import io.vertx.rxjava.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Completable;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Batch the bulk actions sent to Elasticsearch.
+ *
+ * Actions are queued in a bounded queue and sent when enough of them are waiting or when the flush interval elapses,
+ * with a limited number of concurrent <code>_bulk</code> requests. Actions rejected by Elasticsearch because it is
+ * overloaded (429 or 503) are queued again, with an exponential backoff, up to the maximum number of retries.
+ *
+ * With the BLOCK overflow policy, callers wait for free space in the queue; callers running on a Vert.x event loop
+ * must not be blocked, their actions are dropped as with the DROP policy when the queue is full.
+ *
+ * @author GraviteeSource Team
+ */
+public class BulkProcessor {
+
+	/** Logger. */
+	private final Logger logger = LoggerFactory.getLogger(BulkProcessor.class);
+
+	private final Vertx vertx;
+
+	/**
+	 * Send a <code>_bulk</code> body and return the Elasticsearch response.
+	 */
+	private final Function<String, Single<JsonNode>> sender;
+
+	private final BlockingQueue<BulkItem> queue;
+
+	/**
+	 * Number of actions sent in a single request.
+	 */
+	private final int actions;
+
+	/**
+	 * Maximum size in bytes of a single request.
+	 */
+	private final long maxSize;
+
+	private final Semaphore concurrentRequests;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final long blockTimeout;
+
+	private final int maxRetries;
+
+	private final long retryBackoff;
+
+	private final AtomicLong queuedBytes = new AtomicLong();
+
+	private final AtomicLong droppedItems = new AtomicLong();
+
+	/**
+	 * Number of requests in flight and of retries waiting for their backoff.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * Completes the stop once the queue is drained, null until the processor is stopped.
+	 */
+	private final AtomicReference<Runnable> onDrained = new AtomicReference<>();
+
+	private volatile boolean stopping;
+
+	private long flushTimerId = -1;
+
+	public BulkProcessor(final Vertx vertx, final Function<String, Single<JsonNode>> sender, final int actions,
+						 final long maxSize, final int concurrentRequests, final int queueSize,
+						 final OverflowPolicy overflowPolicy, final long blockTimeout, final int maxRetries,
+						 final long retryBackoff) {
+		this.vertx = vertx;
+		this.sender = sender;
+		this.actions = actions;
+		this.maxSize = maxSize;
+		this.concurrentRequests = new Semaphore(concurrentRequests);
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.overflowPolicy = overflowPolicy;
+		this.blockTimeout = blockTimeout;
+		this.maxRetries = maxRetries;
+		this.retryBackoff = retryBackoff;
+	}
+
+	/**
+	 * Start flushing the queue periodically.
+	 *
+	 * @param flushInterval delay between two flushes in milliseconds
+	 */
+	public void start(final long flushInterval) {
+		if (flushInterval > 0) {
+			this.flushTimerId = vertx.setPeriodic(flushInterval, timerId -> this.flush(true));
+		}
+	}
+
+	/**
+	 * Stop the periodic flush and send the remaining actions, including the ones being retried.
+	 *
+	 * @param timeout maximum delay in milliseconds to wait for the remaining actions to be sent
+	 * @return completes once every remaining action is sent, or once the timeout elapses
+	 */
+	public Completable stop(final long timeout) {
+		if (flushTimerId != -1) {
+			vertx.cancelTimer(flushTimerId);
+			flushTimerId = -1;
+		}
+
+		return Completable
+				.fromEmitter(emitter -> {
+					this.onDrained.set(emitter::onCompleted);
+					this.stopping = true;
+					this.flush(true);
+					this.checkDrained();
+				})
+				.timeout(timeout, TimeUnit.MILLISECONDS, Completable.fromAction(() ->
+						logger.warn("Bulk processor stopped with {} actions queued and {} requests pending",
+								queue.size(), pending.get())));
+	}
+
+	/**
+	 * Queue the actions of a <code>_bulk</code> body.
+	 *
+	 * @param bulk newline delimited actions, each one being an action line optionally followed by a source line
+	 */
+	public void add(final String bulk) {
+		for (BulkItem item : split(bulk)) {
+			enqueue(item);
+		}
+
+		if (queue.size() >= actions || queuedBytes.get() >= maxSize) {
+			flush(false);
+		}
+	}
+
+	/**
+	 * Send the queued actions, as long as the concurrent requests limit is not reached.
+	 *
+	 * @param force send the queued actions even if there is not enough of them to fill a request
+	 */
+	public void flush(final boolean force) {
+		while (!queue.isEmpty() && (force || queue.size() >= actions || queuedBytes.get() >= maxSize)
+				&& concurrentRequests.tryAcquire()) {
+			// Counted before draining, so that the batch is always either queued or pending
+			pending.incrementAndGet();
+			final List<BulkItem> batch = drain();
+			if (batch.isEmpty()) {
+				concurrentRequests.release();
+				pending.decrementAndGet();
+				return;
+			}
+
+			send(batch);
+		}
+	}
+
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	public long getDroppedItems() {
+		return droppedItems.get();
+	}
+
+	private void enqueue(final BulkItem item) {
+		boolean queued;
+		try {
+			// Never block an event loop
+			queued = (overflowPolicy == OverflowPolicy.BLOCK && !Context.isOnEventLoopThread()) ?
+					queue.offer(item, blockTimeout, TimeUnit.MILLISECONDS) : queue.offer(item);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+
+		if (queued) {
+			queuedBytes.addAndGet(item.length());
+		} else if (droppedItems.getAndIncrement() % 1000 == 0) {
+			logger.warn("Bulk queue is full, {} actions dropped so far", droppedItems.get());
+		}
+	}
+
+	private List<BulkItem> drain() {
+		final List<BulkItem> batch = new ArrayList<>(actions);
+		long size = 0;
+
+		BulkItem item;
+		while (batch.size() < actions && size < maxSize && (item = queue.poll()) != null) {
+			batch.add(item);
+			size += item.length();
+		}
+
+		queuedBytes.addAndGet(-size);
+		return batch;
+	}
+
+	private void send(final List<BulkItem> batch) {
+		final StringBuilder body = new StringBuilder();
+		for (BulkItem item : batch) {
+			body.append(item.action).append('\n');
+			if (item.source != null) {
+				body.append(item.source).append('\n');
+			}
+		}
+
+		sender
+				.apply(body.toString())
+				.doAfterTerminate(() -> {
+					concurrentRequests.release();
+					pending.decrementAndGet();
+					flush(stopping);
+					checkDrained();
+				})
+				.subscribe(
+						response -> this.handleResponse(batch, response),
+						throwable -> {
+							logger.error("An error occurs while sending {} bulk actions to Elasticsearch", batch.size(),
+									throwable);
+							if (ElasticsearchException.isRetryable(throwable)) {
+								retry(batch);
+							} else {
+								droppedItems.addAndGet(batch.size());
+							}
+						});
+	}
+
+	/**
+	 * Check the status of each action of a <code>_bulk</code> response and retry the rejected ones.
+	 */
+	void handleResponse(final List<BulkItem> batch, final JsonNode response) {
+		if (!response.path("errors").asBoolean(false)) {
+			return;
+		}
+
+		final List<BulkItem> rejected = new ArrayList<>();
+		int failed = 0;
+
+		final Iterator<JsonNode> items = response.path("items").elements();
+		for (int i = 0; i < batch.size() && items.hasNext(); i++) {
+			final JsonNode entry = items.next();
+			final JsonNode result = (entry.size() > 0) ? entry.elements().next() : entry;
+			final int status = result.path("status").asInt();
+
+			if (status == HttpStatusCode.TOO_MANY_REQUESTS_429 || status == HttpStatusCode.SERVICE_UNAVAILABLE_503) {
+				rejected.add(batch.get(i));
+			} else if (status >= HttpStatusCode.BAD_REQUEST_400) {
+				if (failed++ == 0) {
+					logger.warn("Bulk action failed with status {}: {}", status, result.path("error"));
+				}
+			}
+		}
+
+		if (failed > 0) {
+			logger.warn("{} bulk actions failed and are discarded", failed);
+		}
+
+		retry(rejected);
+	}
+
+	private void retry(final List<BulkItem> items) {
+		final List<BulkItem> retries = new ArrayList<>(items.size());
+		int attempt = 0;
+
+		for (BulkItem item : items) {
+			if (item.attempts < maxRetries) {
+				item.attempts++;
+				attempt = Math.max(attempt, item.attempts);
+				retries.add(item);
+			} else {
+				droppedItems.incrementAndGet();
+			}
+		}
+
+		if (retries.size() < items.size()) {
+			logger.warn("{} bulk actions dropped after {} retries", items.size() - retries.size(), maxRetries);
+		}
+
+		if (!retries.isEmpty()) {
+			pending.incrementAndGet();
+			vertx.setTimer(Math.max(1, retryBackoff << (attempt - 1)), timerId -> {
+				retries.forEach(item -> {
+					if (queue.offer(item)) {
+						queuedBytes.addAndGet(item.length());
+					} else {
+						droppedItems.incrementAndGet();
+					}
+				});
+				pending.decrementAndGet();
+				if (stopping) {
+					flush(true);
+					checkDrained();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Complete the stop once nothing is queued, in flight or waiting to be retried.
+	 */
+	private void checkDrained() {
+		if (stopping && queue.isEmpty() && pending.get() == 0) {
+			final Runnable drained = onDrained.getAndSet(null);
+			if (drained != null) {
+				drained.run();
+			}
+		}
+	}
+
+	/**
+	 * Split a <code>_bulk</code> body into actions.
+	 */
+	static List<BulkItem> split(final String bulk) {
+		final List<BulkItem> items = new ArrayList<>();
+		final String[] lines = bulk.split("\n");
+
+		for (int i = 0; i < lines.length; i++) {
+			final String action = lines[i];
+			if (action.trim().isEmpty()) {
+				continue;
+			}
+
+			// Only the delete action has no source line
+			if (!isDelete(action) && i + 1 < lines.length) {
+				items.add(new BulkItem(action, lines[++i]));
+			} else {
+				items.add(new BulkItem(action, null));
+			}
+		}
+
+		return items;
+	}
+
+	private static boolean isDelete(final String action) {
+		final int start = action.indexOf('"');
+		return start != -1 && action.startsWith("delete\"", start + 1);
+	}
+
+	/**
+	 * A single bulk action.
+	 */
+	static class BulkItem {
+
+		final String action;
+
+		final String source;
+
+		int attempts;
+
+		BulkItem(final String action, final String source) {
+			this.action = action;
+			this.source = source;
+		}
+
+		int length() {
+			return action.length() + 1 + ((source != null) ? source.length() + 1 : 0);
+		}
+	}
+}
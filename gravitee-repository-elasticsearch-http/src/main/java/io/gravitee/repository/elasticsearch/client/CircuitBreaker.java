@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker of an Elasticsearch endpoint.
+ *
+ * After <code>failureThreshold</code> consecutive failures, the circuit is opened and calls fail fast. Once
+ * <code>openTimeout</code> has elapsed, a single trial call is let through: the circuit is closed again if it
+ * succeeds, or re-opened if it fails.
+ *
+ * @author GraviteeSource Team
+ */
+public class CircuitBreaker {
+
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+
+	private final long openTimeout;
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private final AtomicBoolean trialInProgress = new AtomicBoolean();
+
+	private volatile State state = State.CLOSED;
+
+	private volatile long openedAt;
+
+	/**
+	 * @param failureThreshold number of consecutive failures opening the circuit, 0 to never open it
+	 * @param openTimeout delay in milliseconds before a trial call is let through an open circuit
+	 */
+	public CircuitBreaker(final int failureThreshold, final long openTimeout) {
+		this.failureThreshold = failureThreshold;
+		this.openTimeout = openTimeout;
+	}
+
+	/**
+	 * Whether a call could currently be let through, without reserving it.
+	 *
+	 * @return true if the circuit is closed, or if a trial call is due
+	 */
+	public boolean isCallPermitted() {
+		switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				return System.currentTimeMillis() - openedAt >= openTimeout;
+			default:
+				return !trialInProgress.get();
+		}
+	}
+
+	/**
+	 * Reserve a call. The outcome of a permitted call must be reported with {@link #onSuccess()},
+	 * {@link #onFailure()} or {@link #onCancel()}.
+	 *
+	 * @return true if the call is permitted
+	 */
+	public boolean tryAcquirePermission() {
+		if (state == State.CLOSED) {
+			return true;
+		}
+
+		if (state == State.OPEN) {
+			if (System.currentTimeMillis() - openedAt < openTimeout) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+		}
+
+		return trialInProgress.compareAndSet(false, true);
+	}
+
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		trialInProgress.set(false);
+		state = State.CLOSED;
+	}
+
+	/**
+	 * Release a permitted call which has been cancelled before its outcome was known.
+	 */
+	public void onCancel() {
+		trialInProgress.set(false);
+	}
+
+	public void onFailure() {
+		if (state == State.HALF_OPEN) {
+			open();
+		} else if (failureThreshold > 0 && consecutiveFailures.incrementAndGet() >= failureThreshold
+				&& state == State.CLOSED) {
+			open();
+		}
+	}
+
+	State getState() {
+		return state;
+	}
+
+	private void open() {
+		openedAt = System.currentTimeMillis();
+		state = State.OPEN;
+		trialInProgress.set(false);
+	}
+}
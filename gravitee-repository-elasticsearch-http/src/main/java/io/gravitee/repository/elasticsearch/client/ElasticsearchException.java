@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.common.http.HttpStatusCode;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Error raised by a call to Elasticsearch, with the HTTP status of the response if one has been received.
+ *
+ * @author GraviteeSource Team
+ */
+public class ElasticsearchException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Status used when no response has been received.
+	 */
+	public static final int NO_RESPONSE = -1;
+
+	private final int statusCode;
+
+	/**
+	 * Type of the Elasticsearch error, as <code>resource_not_found_exception</code>, may be null.
+	 */
+	private final String errorType;
+
+	/**
+	 * Reason of the Elasticsearch error, may be null.
+	 */
+	private final String reason;
+
+	public ElasticsearchException(final String message, final int statusCode) {
+		this(message, statusCode, null, null);
+	}
+
+	public ElasticsearchException(final String message, final int statusCode, final String errorType,
+								  final String reason) {
+		super(message);
+		this.statusCode = statusCode;
+		this.errorType = errorType;
+		this.reason = reason;
+	}
+
+	public ElasticsearchException(final String message, final Throwable cause) {
+		super(message, cause);
+		this.statusCode = NO_RESPONSE;
+		this.errorType = null;
+		this.reason = null;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getErrorType() {
+		return errorType;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * Whether Elasticsearch rejected the request because it is overloaded or unavailable.
+	 *
+	 * @return true for a 429 or a 503 response
+	 */
+	public boolean isOverloaded() {
+		return statusCode == HttpStatusCode.TOO_MANY_REQUESTS_429 || statusCode == HttpStatusCode.SERVICE_UNAVAILABLE_503;
+	}
+
+	/**
+	 * Whether a failed call may succeed if it is sent again: the request did not reach Elasticsearch, or
+	 * Elasticsearch was overloaded. Calls failing because all the circuit breakers are open are not retried, nor
+	 * calls Elasticsearch did not answer within the request timeout: the request may still be running on a slow
+	 * cluster, sending it again would only add to the load.
+	 *
+	 * @param throwable the failure
+	 * @return true if the call can be retried
+	 */
+	public static boolean isRetryable(final Throwable throwable) {
+		if (throwable instanceof CircuitBreakerOpenException || isTimeout(throwable)) {
+			return false;
+		}
+		if (throwable instanceof ElasticsearchException) {
+			final ElasticsearchException ee = (ElasticsearchException) throwable;
+			return ee.statusCode == NO_RESPONSE || ee.isOverloaded();
+		}
+		return false;
+	}
+
+	/**
+	 * Whether a call failed because Elasticsearch did not answer within the request timeout.
+	 *
+	 * @param throwable the failure
+	 * @return true if the call timed out
+	 */
+	public static boolean isTimeout(final Throwable throwable) {
+		return throwable instanceof ElasticsearchException && throwable.getCause() instanceof TimeoutException;
+	}
+}
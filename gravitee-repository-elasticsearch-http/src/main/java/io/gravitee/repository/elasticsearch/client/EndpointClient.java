@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.repository.elasticsearch.configuration.Endpoint;
+import io.vertx.rxjava.core.http.HttpClient;
+import rx.Observable;
+import rx.functions.Action0;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client bound to a single Elasticsearch endpoint, with its availability state, its circuit breaker and the
+ * number of requests currently in flight.
+ *
+ * @author GraviteeSource Team
+ */
+public class EndpointClient {
+
+	private final Endpoint endpoint;
+
+	private final HttpClient httpClient;
+
+	private final CircuitBreaker circuitBreaker;
+
+	private final AtomicInteger pendingRequests = new AtomicInteger();
+
+	/**
+	 * Highest number of in-flight requests since the last report.
+	 */
+	private final AtomicInteger peakPendingRequests = new AtomicInteger();
+
+	private final AtomicLong totalRequests = new AtomicLong();
+
+	private volatile boolean available = true;
+
+	public EndpointClient(final Endpoint endpoint, final HttpClient httpClient, final CircuitBreaker circuitBreaker) {
+		this.endpoint = endpoint;
+		this.httpClient = httpClient;
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Track the given call as an in-flight request of this endpoint, from its subscription until it terminates or
+	 * is unsubscribed.
+	 *
+	 * @param call the call to track
+	 * @return the tracked call
+	 */
+	public <T> Observable<T> track(final Observable<T> call) {
+		return Observable.defer(() -> {
+			final int pending = pendingRequests.incrementAndGet();
+			peakPendingRequests.accumulateAndGet(pending, Math::max);
+			totalRequests.incrementAndGet();
+
+			final AtomicBoolean released = new AtomicBoolean();
+			final Action0 release = () -> {
+				if (released.compareAndSet(false, true)) {
+					pendingRequests.decrementAndGet();
+				}
+			};
+
+			return call
+					.doOnTerminate(release)
+					.doOnUnsubscribe(release);
+		});
+	}
+
+	public Endpoint getEndpoint() {
+		return endpoint;
+	}
+
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public int getPendingRequests() {
+		return pendingRequests.get();
+	}
+
+	/**
+	 * Get the highest number of in-flight requests since the previous call, and start a new observation period.
+	 *
+	 * @return the highest number of in-flight requests
+	 */
+	public int resetPeakPendingRequests() {
+		return peakPendingRequests.getAndSet(pendingRequests.get());
+	}
+
+	public long getTotalRequests() {
+		return totalRequests.get();
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	void setAvailable(boolean available) {
+		this.available = available;
+	}
+
+	@Override
+	public String toString() {
+		return endpoint.toString();
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.common.http.HttpStatusCode;
+import io.vertx.rxjava.core.Vertx;
+import io.vertx.rxjava.core.http.HttpClientRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pool of Elasticsearch endpoints used to spread requests across all the configured nodes.
+ *
+ * Endpoints failing at the connection level are marked as down and are no longer selected until a background probe
+ * succeeds again. A probe times out after the probe interval, and an endpoint is not probed again while its previous
+ * probe is pending, so that an endpoint which does not answer at all does not fill its connection pool.
+ *
+ * @author GraviteeSource Team
+ */
+public class EndpointPool {
+
+	/** Logger. */
+	private final Logger logger = LoggerFactory.getLogger(EndpointPool.class);
+
+	private static final String URL_PROBE = "/";
+
+	private final Vertx vertx;
+
+	private final List<EndpointClient> clients;
+
+	private final LoadBalancingStrategy strategy;
+
+	/**
+	 * Used to decorate probe requests with the common headers (authorization, ...).
+	 */
+	private final Consumer<HttpClientRequest> requestDecorator;
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	/**
+	 * Endpoints whose probe is pending.
+	 */
+	private final Set<EndpointClient> probing = ConcurrentHashMap.newKeySet();
+
+	private long probeTimerId = -1;
+
+	private long metricsTimerId = -1;
+
+	public EndpointPool(final Vertx vertx, final List<EndpointClient> clients, final LoadBalancingStrategy strategy,
+						final Consumer<HttpClientRequest> requestDecorator) {
+		this.vertx = vertx;
+		this.clients = clients;
+		this.strategy = strategy;
+		this.requestDecorator = requestDecorator;
+	}
+
+	/**
+	 * Start probing the unavailable endpoints.
+	 *
+	 * @param probeInterval delay between two probes in milliseconds
+	 */
+	public void start(final long probeInterval) {
+		// A single endpoint is never marked as down, there is nothing to probe
+		if (clients.size() > 1 && probeInterval > 0) {
+			this.probeTimerId = vertx.setPeriodic(probeInterval, timerId -> this.probe(probeInterval));
+		}
+	}
+
+	/**
+	 * Periodically report the utilisation of the connection pool of each endpoint.
+	 *
+	 * @param interval delay between two reports in milliseconds
+	 * @param capacity number of requests an endpoint can handle concurrently (pool size, times the pipelining limit
+	 *                 if pipelining is enabled)
+	 */
+	public void startMetrics(final long interval, final int capacity) {
+		if (interval > 0) {
+			this.metricsTimerId = vertx.setPeriodic(interval, timerId -> this.report(capacity));
+		}
+	}
+
+	/**
+	 * Stop the probes and close the underlying HTTP clients.
+	 */
+	public void stop() {
+		if (probeTimerId != -1) {
+			vertx.cancelTimer(probeTimerId);
+			probeTimerId = -1;
+		}
+
+		if (metricsTimerId != -1) {
+			vertx.cancelTimer(metricsTimerId);
+			metricsTimerId = -1;
+		}
+
+		clients.forEach(client -> client.getHttpClient().close());
+	}
+
+	/**
+	 * Select the endpoint which will handle the next request. Endpoints marked as down or whose circuit breaker is
+	 * open are skipped.
+	 * If no endpoint is available, endpoints are still used in turn so that the caller gets a meaningful error.
+	 *
+	 * @return the selected endpoint
+	 */
+	public EndpointClient next() {
+		final int size = clients.size();
+		final int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+
+		EndpointClient selected = null;
+		for (int i = 0; i < size; i++) {
+			final EndpointClient client = clients.get((start + i) % size);
+			if (client.isAvailable() && client.getCircuitBreaker().isCallPermitted()) {
+				if (strategy == LoadBalancingStrategy.ROUND_ROBIN) {
+					return client;
+				}
+
+				if (selected == null || client.getPendingRequests() < selected.getPendingRequests()) {
+					selected = client;
+				}
+			}
+		}
+
+		return (selected != null) ? selected : clients.get(start % size);
+	}
+
+	/**
+	 * Mark an endpoint as down. It will not be selected until the next successful probe.
+	 *
+	 * @param client the failing endpoint
+	 * @param cause the failure
+	 */
+	public void markDown(final EndpointClient client, final Throwable cause) {
+		if (client.isAvailable() && clients.size() > 1) {
+			logger.warn("Elasticsearch endpoint {} is marked as down: {}", client, cause.getMessage());
+			client.setAvailable(false);
+		}
+	}
+
+	public List<EndpointClient> getClients() {
+		return clients;
+	}
+
+	private void report(final int capacity) {
+		clients.forEach(client -> {
+			final int pending = client.getPendingRequests();
+			final int peak = client.resetPeakPendingRequests();
+
+			logger.info("Elasticsearch endpoint {}: {} in-flight requests, peak {}, {} waiting for a connection, " +
+							"peak utilisation {}%, {} requests since startup",
+					client, pending, peak, Math.max(0, pending - capacity),
+					(capacity > 0) ? Math.min(100, peak * 100 / capacity) : 0, client.getTotalRequests());
+		});
+	}
+
+	private void probe(final long timeout) {
+		clients
+				.stream()
+				.filter(client -> !client.isAvailable() && probing.add(client))
+				.forEach(client -> {
+					final HttpClientRequest request = client.getHttpClient().get(URL_PROBE);
+					requestDecorator.accept(request);
+
+					request
+							.setTimeout(timeout)
+							.exceptionHandler(throwable -> {
+								probing.remove(client);
+								logger.debug("Elasticsearch endpoint {} is still down: {}", client, throwable.getMessage());
+							})
+							.handler(response -> {
+								probing.remove(client);
+								if (response.statusCode() == HttpStatusCode.OK_200) {
+									logger.info("Elasticsearch endpoint {} is back up", client);
+									client.setAvailable(true);
+								}
+							})
+							.end();
+				});
+	}
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+/**
+ * Strategy used to select the Elasticsearch endpoint which will handle the next request.
+ *
+ * @author GraviteeSource Team
+ */
+public enum LoadBalancingStrategy {
+
+	/**
+	 * Each available endpoint is used in turn.
+	 */
+	ROUND_ROBIN,
+
+	/**
+	 * The available endpoint with the fewest in-flight requests is used.
+	 */
+	LEAST_OUTSTANDING
+}
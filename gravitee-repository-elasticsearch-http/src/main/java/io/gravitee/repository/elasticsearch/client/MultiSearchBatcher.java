@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.vertx.rxjava.core.Vertx;
+import rx.Single;
+import rx.SingleSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Gather the searches performed within a short time window and send them to Elasticsearch as a single
+ * <code>_msearch</code> request. Each search gets back its own response.
+ *
+ * @author GraviteeSource Team
+ */
+public class MultiSearchBatcher {
+
+	private final Vertx vertx;
+
+	/**
+	 * Perform a multi search and return the response of each search, in the same order.
+	 */
+	private final Function<List<SearchRequest>, Single<List<Single<ESSearchResponse>>>> sender;
+
+	/**
+	 * Delay in milliseconds during which searches are gathered.
+	 */
+	private final long window;
+
+	private final int maxBatchSize;
+
+	private List<PendingSearch> pending = new ArrayList<>();
+
+	public MultiSearchBatcher(final Vertx vertx,
+							  final Function<List<SearchRequest>, Single<List<Single<ESSearchResponse>>>> sender,
+							  final long window, final int maxBatchSize) {
+		this.vertx = vertx;
+		this.sender = sender;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Perform a search as part of the next multi search request.
+	 *
+	 * @param request the search
+	 * @return the search response
+	 */
+	public Single<ESSearchResponse> search(final SearchRequest request) {
+		return Single.create(subscriber -> this.add(new PendingSearch(request, subscriber)));
+	}
+
+	private void add(final PendingSearch search) {
+		List<PendingSearch> batch = null;
+
+		synchronized (this) {
+			pending.add(search);
+
+			if (pending.size() >= maxBatchSize) {
+				batch = pending;
+				pending = new ArrayList<>();
+			} else if (pending.size() == 1) {
+				final List<PendingSearch> current = pending;
+				vertx.setTimer(window, timerId -> this.flush(current));
+			}
+		}
+
+		if (batch != null) {
+			send(batch);
+		}
+	}
+
+	private void flush(final List<PendingSearch> batch) {
+		synchronized (this) {
+			// The batch may have already been sent because it was full
+			if (pending != batch) {
+				return;
+			}
+			pending = new ArrayList<>();
+		}
+
+		send(batch);
+	}
+
+	private void send(final List<PendingSearch> batch) {
+		batch.removeIf(search -> search.subscriber.isUnsubscribed());
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		final List<SearchRequest> requests = new ArrayList<>(batch.size());
+		batch.forEach(search -> requests.add(search.request));
+
+		sender
+				.apply(requests)
+				.subscribe(
+						responses -> {
+							for (int i = 0; i < batch.size(); i++) {
+								final SingleSubscriber<? super ESSearchResponse> subscriber = batch.get(i).subscriber;
+								if (i < responses.size()) {
+									responses.get(i).subscribe(subscriber::onSuccess, subscriber::onError);
+								} else {
+									subscriber.onError(new ElasticsearchException(
+											"No response for search " + i + " of the multi search request",
+											ElasticsearchException.NO_RESPONSE));
+								}
+							}
+						},
+						throwable -> batch.forEach(search -> search.subscriber.onError(throwable)));
+	}
+
+	private static class PendingSearch {
+
+		private final SearchRequest request;
+
+		private final SingleSubscriber<? super ESSearchResponse> subscriber;
+
+		PendingSearch(final SearchRequest request, final SingleSubscriber<? super ESSearchResponse> subscriber) {
+			this.request = request;
+			this.subscriber = subscriber;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+/**
+ * Behaviour of the bulk processor when its queue is full.
+ *
+ * @author GraviteeSource Team
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * The caller waits for free space in the queue, up to the configured timeout. Items still not queued after the
+	 * timeout are dropped. Callers running on a Vert.x event loop never wait, their items are dropped immediately.
+	 */
+	BLOCK,
+
+	/**
+	 * Items are dropped immediately.
+	 */
+	DROP
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.rxjava.core.buffer.Buffer;
+import io.vertx.rxjava.core.http.HttpClientResponse;
+import rx.Observable;
+
+import java.io.InputStream;
+
+/**
+ * Collect the chunks of an HTTP response body into a single {@link Buffer}.
+ *
+ * When the response declares its <code>Content-Length</code>, the chunks are copied once into a buffer allocated
+ * with the right size. Otherwise the chunks are gathered in a composite buffer, without any copy.
+ *
+ * @author GraviteeSource Team
+ */
+public final class ResponseBodyCollector {
+
+	/**
+	 * Upper bound of the pre-allocated buffer, the announced length is only used as a hint.
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 64 * 1024 * 1024;
+
+	private ResponseBodyCollector() {
+	}
+
+	/**
+	 * Collect the body of an HTTP response.
+	 *
+	 * @param response the HTTP response
+	 * @return the response body
+	 */
+	public static Observable<Buffer> collect(final HttpClientResponse response) {
+		final String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+
+		long length = -1;
+		if (contentLength != null) {
+			try {
+				length = Long.parseLong(contentLength);
+			} catch (NumberFormatException nfe) {
+				// Invalid header, fallback to a composite buffer
+			}
+		}
+
+		return collect(response.toObservable(), length);
+	}
+
+	/**
+	 * Collect body chunks.
+	 *
+	 * @param chunks the body chunks
+	 * @param contentLength the announced length of the body, or <code>-1</code> if unknown
+	 * @return the body
+	 */
+	public static Observable<Buffer> collect(final Observable<Buffer> chunks, final long contentLength) {
+		if (contentLength >= 0) {
+			final int capacity = (int) Math.min(contentLength, MAX_INITIAL_CAPACITY);
+			return chunks.collect(() -> Buffer.buffer(capacity), Buffer::appendBuffer);
+		}
+
+		return chunks
+				.collect(() -> Unpooled.compositeBuffer(Integer.MAX_VALUE),
+						(CompositeByteBuf composite, Buffer chunk) ->
+								composite.addComponent(true, chunk.getDelegate().getByteBuf()))
+				.map(composite -> Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(composite)));
+	}
+
+	/**
+	 * Expose the bytes of a collected body to a decoder, without copying them.
+	 *
+	 * @param body the body
+	 * @return a stream over the body bytes
+	 */
+	public static InputStream toInputStream(final Buffer body) {
+		return new ByteBufInputStream(body.getDelegate().getByteBuf());
+	}
+}
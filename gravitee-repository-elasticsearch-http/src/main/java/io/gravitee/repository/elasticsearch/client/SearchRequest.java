@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.vertx.rxjava.core.buffer.Buffer;
+
+import java.util.Objects;
+
+/**
+ * A search to perform. Two requests are equal if they target the same indexes and types with the same query, and
+ * decode the same type of response.
+ *
+ * @author GraviteeSource Team
+ */
+public class SearchRequest {
+
+	/**
+	 * Indexes names separated by comma. If null search on all indexes.
+	 */
+	private final String indexes;
+
+	/**
+	 * Document types separated by comma. If null search on all types.
+	 */
+	private final String types;
+
+	/**
+	 * JSON query, UTF-8 encoded.
+	 */
+	private final Buffer query;
+
+	/**
+	 * Type the response is decoded to.
+	 */
+	private final Class<? extends ESSearchResponse> responseType;
+
+	public SearchRequest(final String indexes, final String types, final Buffer query,
+						 final Class<? extends ESSearchResponse> responseType) {
+		this.indexes = indexes;
+		this.types = types;
+		this.query = query;
+		this.responseType = responseType;
+	}
+
+	public SearchRequest(final String indexes, final String types, final Buffer query) {
+		this(indexes, types, query, ESSearchResponse.class);
+	}
+
+	public SearchRequest(final String indexes, final String types, final String query) {
+		this(indexes, types, Buffer.buffer(query));
+	}
+
+	public String getIndexes() {
+		return indexes;
+	}
+
+	public String getTypes() {
+		return types;
+	}
+
+	public Buffer getBody() {
+		return query;
+	}
+
+	public String getQuery() {
+		return query.toString();
+	}
+
+	public Class<? extends ESSearchResponse> getResponseType() {
+		return responseType;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		SearchRequest that = (SearchRequest) o;
+		return Objects.equals(indexes, that.indexes) &&
+				Objects.equals(types, that.types) &&
+				Objects.equals(query, that.query) &&
+				Objects.equals(responseType, that.responseType);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(indexes, types, query, responseType);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.gravitee.common.http.MediaType;
+
+import java.util.function.Supplier;
+
+/**
+ * Format of the request and response bodies exchanged with Elasticsearch.
+ *
+ * @author GraviteeSource Team
+ */
+public enum WireFormat {
+
+	JSON(MediaType.APPLICATION_JSON + ";charset=UTF-8", JsonFactory::new),
+
+	SMILE("application/smile", SmileFactory::new),
+
+	CBOR("application/cbor", CBORFactory::new);
+
+	private final String contentType;
+
+	private final Supplier<JsonFactory> factory;
+
+	WireFormat(final String contentType, final Supplier<JsonFactory> factory) {
+		this.contentType = contentType;
+		this.factory = factory;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Create a Jackson factory reading and writing this format.
+	 *
+	 * @return a new Jackson factory
+	 */
+	public JsonFactory createFactory() {
+		return factory.get();
+	}
+
+	/**
+	 * Get the format from its configuration value.
+	 *
+	 * @param value the format name, case insensitive
+	 * @return the format
+	 */
+	public static WireFormat of(final String value) {
+		return WireFormat.valueOf(value.trim().toUpperCase());
+	}
+}
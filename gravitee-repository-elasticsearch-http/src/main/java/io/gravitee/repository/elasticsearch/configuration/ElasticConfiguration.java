@@ -15,6 +15,8 @@
  */
 package io.gravitee.repository.elasticsearch.configuration;
 
+import io.gravitee.repository.elasticsearch.client.LoadBalancingStrategy;
+import io.gravitee.repository.elasticsearch.client.OverflowPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
@@ -65,6 +67,282 @@ public class ElasticConfiguration {
 	@Value("${analytics.elasticsearch.settings.number_of_replicas:1}")
 	private int numberOfReplicas;
 
+	/**
+	 * Strategy used to spread requests across the endpoints.
+	 */
+	@Value("${analytics.elasticsearch.loadbalancing.strategy:ROUND_ROBIN}")
+	private LoadBalancingStrategy loadBalancingStrategy;
+
+	/**
+	 * Delay in milliseconds between two probes of an endpoint marked as down.
+	 */
+	@Value("${analytics.elasticsearch.loadbalancing.probe_interval:5000}")
+	private long probeInterval;
+
+	/**
+	 * HTTP client: maximum number of connections per endpoint.
+	 */
+	@Value("${analytics.elasticsearch.http.max_pool_size:5}")
+	private int httpMaxPoolSize;
+
+	/**
+	 * HTTP client: reuse the connections between requests.
+	 */
+	@Value("${analytics.elasticsearch.http.keep_alive:true}")
+	private boolean httpKeepAlive;
+
+	/**
+	 * HTTP client: send several requests on a connection without waiting for the responses.
+	 */
+	@Value("${analytics.elasticsearch.http.pipelining:false}")
+	private boolean httpPipelining;
+
+	/**
+	 * HTTP client: maximum number of pipelined requests per connection.
+	 */
+	@Value("${analytics.elasticsearch.http.pipelining_limit:10}")
+	private int httpPipeliningLimit;
+
+	/**
+	 * HTTP client: connect timeout in milliseconds.
+	 */
+	@Value("${analytics.elasticsearch.http.connect_timeout:60000}")
+	private int httpConnectTimeout;
+
+	/**
+	 * HTTP client: delay in seconds before closing an idle connection, 0 to keep it open.
+	 */
+	@Value("${analytics.elasticsearch.http.idle_timeout:0}")
+	private int httpIdleTimeout;
+
+	/**
+	 * HTTP client: delay in milliseconds without any data received after which a request fails, 0 to wait forever.
+	 */
+	@Value("${analytics.elasticsearch.http.request_timeout:0}")
+	private long httpRequestTimeout;
+
+	/**
+	 * HTTP client: maximum number of requests waiting for a connection, -1 for no limit.
+	 */
+	@Value("${analytics.elasticsearch.http.max_wait_queue_size:-1}")
+	private int httpMaxWaitQueueSize;
+
+	/**
+	 * HTTP client: delay in milliseconds between two reports of the connection pool utilisation, 0 to disable them.
+	 */
+	@Value("${analytics.elasticsearch.http.metrics_interval:0}")
+	private long httpMetricsInterval;
+
+	/**
+	 * HTTP client: ask Elasticsearch for compressed responses (gzip or deflate).
+	 */
+	@Value("${analytics.elasticsearch.http.compression.enabled:false}")
+	private boolean httpCompression;
+
+	/**
+	 * HTTP client: bulk requests larger than this size in bytes are sent gzipped, -1 to never compress them.
+	 */
+	@Value("${analytics.elasticsearch.http.compression.bulk_threshold:-1}")
+	private int httpBulkCompressionThreshold;
+
+	/**
+	 * HTTP client: format of the search requests and responses (json, smile or cbor).
+	 */
+	@Value("${analytics.elasticsearch.http.format:json}")
+	private String httpFormat;
+
+	/**
+	 * Bulk: number of actions sent in a single request.
+	 */
+	@Value("${analytics.elasticsearch.bulk.actions:1000}")
+	private int bulkActions;
+
+	/**
+	 * Bulk: maximum size in bytes of a single request.
+	 */
+	@Value("${analytics.elasticsearch.bulk.max_size:5242880}")
+	private long bulkMaxSize;
+
+	/**
+	 * Bulk: delay in milliseconds after which the queued actions are sent, even if there is not enough of them to fill a request.
+	 */
+	@Value("${analytics.elasticsearch.bulk.flush_interval:1000}")
+	private long bulkFlushInterval;
+
+	/**
+	 * Bulk: maximum number of bulk requests sent concurrently.
+	 */
+	@Value("${analytics.elasticsearch.bulk.concurrent_requests:2}")
+	private int bulkConcurrentRequests;
+
+	/**
+	 * Bulk: maximum number of actions waiting to be sent.
+	 */
+	@Value("${analytics.elasticsearch.bulk.queue_size:10000}")
+	private int bulkQueueSize;
+
+	/**
+	 * Bulk: behaviour when the queue is full.
+	 */
+	@Value("${analytics.elasticsearch.bulk.overflow_policy:BLOCK}")
+	private OverflowPolicy bulkOverflowPolicy;
+
+	/**
+	 * Bulk: maximum delay in milliseconds to wait for free space in the queue with the BLOCK policy.
+	 */
+	@Value("${analytics.elasticsearch.bulk.block_timeout:1000}")
+	private long bulkBlockTimeout;
+
+	/**
+	 * Bulk: maximum number of retries of an action rejected by Elasticsearch.
+	 */
+	@Value("${analytics.elasticsearch.bulk.max_retries:3}")
+	private int bulkMaxRetries;
+
+	/**
+	 * Bulk: delay in milliseconds before the first retry, doubled on each retry.
+	 */
+	@Value("${analytics.elasticsearch.bulk.retry_backoff:100}")
+	private long bulkRetryBackoff;
+
+	/**
+	 * Bulk: maximum delay in milliseconds to wait for the queued actions to be sent when stopping.
+	 */
+	@Value("${analytics.elasticsearch.bulk.shutdown_timeout:10000}")
+	private long bulkShutdownTimeout;
+
+	/**
+	 * Retry: maximum number of retries of a search failing on a connection error or rejected by an overloaded Elasticsearch (429 / 503), 0 to disable retries.
+	 */
+	@Value("${analytics.elasticsearch.retry.max_retries:2}")
+	private int retryMaxRetries;
+
+	/**
+	 * Retry: base delay in milliseconds before a retry, doubled on each retry and randomized.
+	 */
+	@Value("${analytics.elasticsearch.retry.backoff:100}")
+	private long retryBackoff;
+
+	/**
+	 * Retry: maximum delay in milliseconds before a retry.
+	 */
+	@Value("${analytics.elasticsearch.retry.max_backoff:2000}")
+	private long retryMaxBackoff;
+
+	/**
+	 * Retry: whether a search Elasticsearch did not answer within the request timeout is sent again. Disabled by default, as a slow cluster would get the heavy searches several times.
+	 */
+	@Value("${analytics.elasticsearch.retry.on_timeout:false}")
+	private boolean retryOnTimeout;
+
+	/**
+	 * Circuit breaker: number of consecutive failures of an endpoint opening its circuit, 0 to disable the circuit breaker.
+	 */
+	@Value("${analytics.elasticsearch.circuit_breaker.failure_threshold:5}")
+	private int circuitBreakerFailureThreshold;
+
+	/**
+	 * Circuit breaker: delay in milliseconds before a trial call is let through an open circuit.
+	 */
+	@Value("${analytics.elasticsearch.circuit_breaker.open_timeout:10000}")
+	private long circuitBreakerOpenTimeout;
+
+	/**
+	 * Multi search: gather the searches performed within a short time window into a single _msearch request.
+	 */
+	@Value("${analytics.elasticsearch.msearch.enabled:false}")
+	private boolean multiSearchEnabled;
+
+	/**
+	 * Multi search: delay in milliseconds during which searches are gathered.
+	 */
+	@Value("${analytics.elasticsearch.msearch.window:5}")
+	private long multiSearchWindow;
+
+	/**
+	 * Multi search: maximum number of searches sent in a single request.
+	 */
+	@Value("${analytics.elasticsearch.msearch.max_size:20}")
+	private int multiSearchMaxSize;
+
+	/**
+	 * Share a single Elasticsearch call between concurrent identical searches.
+	 */
+	@Value("${analytics.elasticsearch.search.coalescing:true}")
+	private boolean searchCoalescing;
+
+	/**
+	 * Register the search bodies as stored search templates and only send their parameters.
+	 */
+	@Value("${analytics.elasticsearch.search.templates:false}")
+	private boolean searchTemplates;
+
+	/**
+	 * Cache: keep the responses of the analytic queries.
+	 */
+	@Value("${analytics.elasticsearch.cache.enabled:false}")
+	private boolean cacheEnabled;
+
+	/**
+	 * Cache: maximum estimated size in bytes of the cached responses.
+	 */
+	@Value("${analytics.elasticsearch.cache.max_size:16777216}")
+	private long cacheMaxSize;
+
+	/**
+	 * Cache: delay in milliseconds during which the response of a range ending close to now is kept.
+	 */
+	@Value("${analytics.elasticsearch.cache.live_ttl:5000}")
+	private long cacheLiveTtl;
+
+	/**
+	 * Cache: delay in milliseconds during which the response of a range ending in the past is kept.
+	 */
+	@Value("${analytics.elasticsearch.cache.immutable_ttl:3600000}")
+	private long cacheImmutableTtl;
+
+	/**
+	 * Cache: delay in milliseconds after which the data of a time range is considered as fully indexed.
+	 */
+	@Value("${analytics.elasticsearch.cache.settle_delay:60000}")
+	private long cacheSettleDelay;
+
+	/**
+	 * Cache: split the analytic queries per day, so that only the current day is queried again.
+	 */
+	@Value("${analytics.elasticsearch.cache.daily_split:true}")
+	private boolean cacheDailySplit;
+
+	/**
+	 * Cache: maximum number of days queried concurrently when a query is split per day.
+	 */
+	@Value("${analytics.elasticsearch.cache.daily_concurrency:4}")
+	private int cacheDailyConcurrency;
+
+	/**
+	 * Cache: only query the buckets of a date histogram which were not settled on its previous refresh.
+	 */
+	@Value("${analytics.elasticsearch.cache.delta_refresh:true}")
+	private boolean cacheDeltaRefresh;
+
+	/**
+	 * Cache: maximum number of date histograms whose settled buckets are kept.
+	 */
+	@Value("${analytics.elasticsearch.cache.delta_max_entries:1000}")
+	private int cacheDeltaMaxEntries;
+
+	/**
+	 * Renderer of the search bodies: builder or freemarker.
+	 */
+	@Value("${analytics.elasticsearch.query.renderer:builder}")
+	private String queryRenderer;
+
+	/**
+	 * Delay in milliseconds between two reports of the metrics of each type of query, 0 to disable them.
+	 */
+	@Value("${analytics.elasticsearch.query.metrics_interval:0}")
+	private long queryMetricsInterval;
+
 	/**
 	 * Elasticsearch endpoints
 	 */
@@ -140,4 +418,372 @@ public class ElasticConfiguration {
 	public void setNumberOfReplicas(int numberOfReplicas) {
 		this.numberOfReplicas = numberOfReplicas;
 	}
+
+	public LoadBalancingStrategy getLoadBalancingStrategy() {
+		return loadBalancingStrategy;
+	}
+
+	public void setLoadBalancingStrategy(LoadBalancingStrategy loadBalancingStrategy) {
+		this.loadBalancingStrategy = loadBalancingStrategy;
+	}
+
+	public long getProbeInterval() {
+		return probeInterval;
+	}
+
+	public void setProbeInterval(long probeInterval) {
+		this.probeInterval = probeInterval;
+	}
+
+	public int getHttpMaxPoolSize() {
+		return httpMaxPoolSize;
+	}
+
+	public void setHttpMaxPoolSize(int httpMaxPoolSize) {
+		this.httpMaxPoolSize = httpMaxPoolSize;
+	}
+
+	public boolean isHttpKeepAlive() {
+		return httpKeepAlive;
+	}
+
+	public void setHttpKeepAlive(boolean httpKeepAlive) {
+		this.httpKeepAlive = httpKeepAlive;
+	}
+
+	public boolean isHttpPipelining() {
+		return httpPipelining;
+	}
+
+	public void setHttpPipelining(boolean httpPipelining) {
+		this.httpPipelining = httpPipelining;
+	}
+
+	public int getHttpPipeliningLimit() {
+		return httpPipeliningLimit;
+	}
+
+	public void setHttpPipeliningLimit(int httpPipeliningLimit) {
+		this.httpPipeliningLimit = httpPipeliningLimit;
+	}
+
+	public int getHttpConnectTimeout() {
+		return httpConnectTimeout;
+	}
+
+	public void setHttpConnectTimeout(int httpConnectTimeout) {
+		this.httpConnectTimeout = httpConnectTimeout;
+	}
+
+	public int getHttpIdleTimeout() {
+		return httpIdleTimeout;
+	}
+
+	public void setHttpIdleTimeout(int httpIdleTimeout) {
+		this.httpIdleTimeout = httpIdleTimeout;
+	}
+
+	public long getHttpRequestTimeout() {
+		return httpRequestTimeout;
+	}
+
+	public void setHttpRequestTimeout(long httpRequestTimeout) {
+		this.httpRequestTimeout = httpRequestTimeout;
+	}
+
+	public int getHttpMaxWaitQueueSize() {
+		return httpMaxWaitQueueSize;
+	}
+
+	public void setHttpMaxWaitQueueSize(int httpMaxWaitQueueSize) {
+		this.httpMaxWaitQueueSize = httpMaxWaitQueueSize;
+	}
+
+	public long getHttpMetricsInterval() {
+		return httpMetricsInterval;
+	}
+
+	public void setHttpMetricsInterval(long httpMetricsInterval) {
+		this.httpMetricsInterval = httpMetricsInterval;
+	}
+
+	public boolean isHttpCompression() {
+		return httpCompression;
+	}
+
+	public void setHttpCompression(boolean httpCompression) {
+		this.httpCompression = httpCompression;
+	}
+
+	public int getHttpBulkCompressionThreshold() {
+		return httpBulkCompressionThreshold;
+	}
+
+	public void setHttpBulkCompressionThreshold(int httpBulkCompressionThreshold) {
+		this.httpBulkCompressionThreshold = httpBulkCompressionThreshold;
+	}
+
+	public String getHttpFormat() {
+		return httpFormat;
+	}
+
+	public void setHttpFormat(String httpFormat) {
+		this.httpFormat = httpFormat;
+	}
+
+	public int getBulkActions() {
+		return bulkActions;
+	}
+
+	public void setBulkActions(int bulkActions) {
+		this.bulkActions = bulkActions;
+	}
+
+	public long getBulkMaxSize() {
+		return bulkMaxSize;
+	}
+
+	public void setBulkMaxSize(long bulkMaxSize) {
+		this.bulkMaxSize = bulkMaxSize;
+	}
+
+	public long getBulkFlushInterval() {
+		return bulkFlushInterval;
+	}
+
+	public void setBulkFlushInterval(long bulkFlushInterval) {
+		this.bulkFlushInterval = bulkFlushInterval;
+	}
+
+	public int getBulkConcurrentRequests() {
+		return bulkConcurrentRequests;
+	}
+
+	public void setBulkConcurrentRequests(int bulkConcurrentRequests) {
+		this.bulkConcurrentRequests = bulkConcurrentRequests;
+	}
+
+	public int getBulkQueueSize() {
+		return bulkQueueSize;
+	}
+
+	public void setBulkQueueSize(int bulkQueueSize) {
+		this.bulkQueueSize = bulkQueueSize;
+	}
+
+	public OverflowPolicy getBulkOverflowPolicy() {
+		return bulkOverflowPolicy;
+	}
+
+	public void setBulkOverflowPolicy(OverflowPolicy bulkOverflowPolicy) {
+		this.bulkOverflowPolicy = bulkOverflowPolicy;
+	}
+
+	public long getBulkBlockTimeout() {
+		return bulkBlockTimeout;
+	}
+
+	public void setBulkBlockTimeout(long bulkBlockTimeout) {
+		this.bulkBlockTimeout = bulkBlockTimeout;
+	}
+
+	public int getBulkMaxRetries() {
+		return bulkMaxRetries;
+	}
+
+	public void setBulkMaxRetries(int bulkMaxRetries) {
+		this.bulkMaxRetries = bulkMaxRetries;
+	}
+
+	public long getBulkRetryBackoff() {
+		return bulkRetryBackoff;
+	}
+
+	public void setBulkRetryBackoff(long bulkRetryBackoff) {
+		this.bulkRetryBackoff = bulkRetryBackoff;
+	}
+
+	public long getBulkShutdownTimeout() {
+		return bulkShutdownTimeout;
+	}
+
+	public void setBulkShutdownTimeout(long bulkShutdownTimeout) {
+		this.bulkShutdownTimeout = bulkShutdownTimeout;
+	}
+
+	public int getRetryMaxRetries() {
+		return retryMaxRetries;
+	}
+
+	public void setRetryMaxRetries(int retryMaxRetries) {
+		this.retryMaxRetries = retryMaxRetries;
+	}
+
+	public long getRetryBackoff() {
+		return retryBackoff;
+	}
+
+	public void setRetryBackoff(long retryBackoff) {
+		this.retryBackoff = retryBackoff;
+	}
+
+	public long getRetryMaxBackoff() {
+		return retryMaxBackoff;
+	}
+
+	public void setRetryMaxBackoff(long retryMaxBackoff) {
+		this.retryMaxBackoff = retryMaxBackoff;
+	}
+
+	public boolean isRetryOnTimeout() {
+		return retryOnTimeout;
+	}
+
+	public void setRetryOnTimeout(boolean retryOnTimeout) {
+		this.retryOnTimeout = retryOnTimeout;
+	}
+
+	public int getCircuitBreakerFailureThreshold() {
+		return circuitBreakerFailureThreshold;
+	}
+
+	public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+		this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+	}
+
+	public long getCircuitBreakerOpenTimeout() {
+		return circuitBreakerOpenTimeout;
+	}
+
+	public void setCircuitBreakerOpenTimeout(long circuitBreakerOpenTimeout) {
+		this.circuitBreakerOpenTimeout = circuitBreakerOpenTimeout;
+	}
+
+	public boolean isMultiSearchEnabled() {
+		return multiSearchEnabled;
+	}
+
+	public void setMultiSearchEnabled(boolean multiSearchEnabled) {
+		this.multiSearchEnabled = multiSearchEnabled;
+	}
+
+	public long getMultiSearchWindow() {
+		return multiSearchWindow;
+	}
+
+	public void setMultiSearchWindow(long multiSearchWindow) {
+		this.multiSearchWindow = multiSearchWindow;
+	}
+
+	public int getMultiSearchMaxSize() {
+		return multiSearchMaxSize;
+	}
+
+	public void setMultiSearchMaxSize(int multiSearchMaxSize) {
+		this.multiSearchMaxSize = multiSearchMaxSize;
+	}
+
+	public boolean isSearchCoalescing() {
+		return searchCoalescing;
+	}
+
+	public void setSearchCoalescing(boolean searchCoalescing) {
+		this.searchCoalescing = searchCoalescing;
+	}
+
+	public boolean isSearchTemplates() {
+		return searchTemplates;
+	}
+
+	public void setSearchTemplates(boolean searchTemplates) {
+		this.searchTemplates = searchTemplates;
+	}
+
+	public boolean isCacheEnabled() {
+		return cacheEnabled;
+	}
+
+	public void setCacheEnabled(boolean cacheEnabled) {
+		this.cacheEnabled = cacheEnabled;
+	}
+
+	public long getCacheMaxSize() {
+		return cacheMaxSize;
+	}
+
+	public void setCacheMaxSize(long cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+	}
+
+	public long getCacheLiveTtl() {
+		return cacheLiveTtl;
+	}
+
+	public void setCacheLiveTtl(long cacheLiveTtl) {
+		this.cacheLiveTtl = cacheLiveTtl;
+	}
+
+	public long getCacheImmutableTtl() {
+		return cacheImmutableTtl;
+	}
+
+	public void setCacheImmutableTtl(long cacheImmutableTtl) {
+		this.cacheImmutableTtl = cacheImmutableTtl;
+	}
+
+	public long getCacheSettleDelay() {
+		return cacheSettleDelay;
+	}
+
+	public void setCacheSettleDelay(long cacheSettleDelay) {
+		this.cacheSettleDelay = cacheSettleDelay;
+	}
+
+	public boolean isCacheDailySplit() {
+		return cacheDailySplit;
+	}
+
+	public void setCacheDailySplit(boolean cacheDailySplit) {
+		this.cacheDailySplit = cacheDailySplit;
+	}
+
+	public int getCacheDailyConcurrency() {
+		return cacheDailyConcurrency;
+	}
+
+	public void setCacheDailyConcurrency(int cacheDailyConcurrency) {
+		this.cacheDailyConcurrency = cacheDailyConcurrency;
+	}
+
+	public boolean isCacheDeltaRefresh() {
+		return cacheDeltaRefresh;
+	}
+
+	public void setCacheDeltaRefresh(boolean cacheDeltaRefresh) {
+		this.cacheDeltaRefresh = cacheDeltaRefresh;
+	}
+
+	public int getCacheDeltaMaxEntries() {
+		return cacheDeltaMaxEntries;
+	}
+
+	public void setCacheDeltaMaxEntries(int cacheDeltaMaxEntries) {
+		this.cacheDeltaMaxEntries = cacheDeltaMaxEntries;
+	}
+
+	public String getQueryRenderer() {
+		return queryRenderer;
+	}
+
+	public void setQueryRenderer(String queryRenderer) {
+		this.queryRenderer = queryRenderer;
+	}
+
+	public long getQueryMetricsInterval() {
+		return queryMetricsInterval;
+	}
+
+	public void setQueryMetricsInterval(long queryMetricsInterval) {
+		this.queryMetricsInterval = queryMetricsInterval;
+	}
 }
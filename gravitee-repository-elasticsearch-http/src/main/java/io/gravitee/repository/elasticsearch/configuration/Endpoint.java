@@ -30,4 +30,9 @@ public class Endpoint {
     public String getUrl() {
         return url;
     }
+
+    @Override
+    public String toString() {
+        return url;
+    }
 }
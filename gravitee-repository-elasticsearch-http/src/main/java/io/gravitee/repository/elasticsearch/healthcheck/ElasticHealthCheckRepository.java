@@ -19,16 +19,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.elasticsearch.AbstractElasticRepository;
 import io.gravitee.repository.elasticsearch.healthcheck.query.LogBuilder;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
+import io.gravitee.repository.elasticsearch.query.ByIdBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.StoredSearch;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.healthcheck.api.HealthCheckRepository;
 import io.gravitee.repository.healthcheck.query.Query;
 import io.gravitee.repository.healthcheck.query.Response;
 import io.gravitee.repository.healthcheck.query.log.ExtendedLog;
+import io.vertx.rxjava.core.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import rx.functions.Func0;
 
 import javax.annotation.PostConstruct;
 import java.util.HashMap;
@@ -59,8 +65,12 @@ public class ElasticHealthCheckRepository extends AbstractElasticRepository impl
      */
     private static final String HEALTHCHECK_BY_ID_TEMPLATE = "healthcheck/log.ftl";
 
+    private static final ByIdBodyBuilder HEALTHCHECK_BY_ID_BUILDER = new ByIdBodyBuilder();
+
     private final static String ES_TYPE_HEALTH = "health";
 
+    private final static String METRICS_FIND_BY_ID = "healthcheck.findById";
+
     private final Map<Class<? extends Query<?>>, ElasticsearchQueryCommand<?>> queryCommands = new HashMap<>();
 
     /**
@@ -87,15 +97,17 @@ public class ElasticHealthCheckRepository extends AbstractElasticRepository impl
 
     @Override
     public ExtendedLog findById(String id) throws AnalyticsException {
-        final Map<String, Object> data = new HashMap<>();
-        data.put("id", id);
+        final QueryMetrics metrics = this.metrics(METRICS_FIND_BY_ID);
+        final long start = System.nanoTime();
 
-        String request = this.freeMarkerComponent.generateFromTemplate(HEALTHCHECK_BY_ID_TEMPLATE, data);
+        final StoredSearch search = HEALTHCHECK_BY_ID_BUILDER.stored(id);
+        final Func0<Buffer> request = () -> metrics.time(Phase.RENDER,
+                () -> this.searchBodyRenderer.render(HEALTHCHECK_BY_ID_BUILDER, HEALTHCHECK_BY_ID_TEMPLATE, "id", id));
 
-        logger.debug("ES request {}", request);
+        logger.debug("ES request {}", search);
 
         try {
-            ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getAllIndexName(), ES_TYPE_HEALTH, request);
+            ESSearchResponse result = metrics.received(this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getAllIndexName(), ES_TYPE_HEALTH, search, request));
             logger.debug("ES response {}", result);
 
             if (result.getSearchHits().getTotal() == 0) {
@@ -104,8 +116,11 @@ public class ElasticHealthCheckRepository extends AbstractElasticRepository impl
 
             SearchHit searchHit = result.getSearchHits().getHits().get(0);
 
-            return LogBuilder.createExtendedLog(searchHit);
+            final ExtendedLog extendedLog = metrics.time(Phase.CONVERSION, () -> LogBuilder.createExtendedLog(searchHit));
+            metrics.completed(start);
+            return extendedLog;
         } catch (TechnicalException e) {
+            metrics.failed(e);
             logger.error("Health [{}] does not exist", id, e);
             throw new AnalyticsException("Health [" + id + "] does not exist");
         }
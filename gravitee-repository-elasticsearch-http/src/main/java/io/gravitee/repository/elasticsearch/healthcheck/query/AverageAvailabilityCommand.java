@@ -16,17 +16,18 @@
 package io.gravitee.repository.elasticsearch.healthcheck.query;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import io.gravitee.repository.analytics.AnalyticsException;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.Aggregation;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.query.healthcheck.AverageAvailabilityBodyBuilder;
 import io.gravitee.repository.healthcheck.query.Bucket;
 import io.gravitee.repository.healthcheck.query.FieldBucket;
 import io.gravitee.repository.healthcheck.query.Query;
 import io.gravitee.repository.healthcheck.query.availability.AvailabilityQuery;
 import io.gravitee.repository.healthcheck.query.availability.AvailabilityResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -44,38 +45,33 @@ import java.util.List;
  */
 public class AverageAvailabilityCommand extends AstractElasticsearchQueryCommand<AvailabilityResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(AverageAvailabilityCommand.class);
-
 	private final static String TEMPLATE = "healthcheck/avg-availability.ftl";
 
+	private final static AverageAvailabilityBodyBuilder BUILDER = new AverageAvailabilityBodyBuilder();
+
 	@Override
 	public Class<? extends Query<AvailabilityResponse>> getSupportedQuery() {
 		return AvailabilityQuery.class;
 	}
 
 	@Override
-	public AvailabilityResponse executeQuery(Query<AvailabilityResponse> query) throws AnalyticsException {
+	protected Single<AvailabilityResponse> executeSearchAsync(Query<AvailabilityResponse> query) {
 		final AvailabilityQuery availabilityQuery = (AvailabilityQuery) query;
+		final QueryMetrics metrics = this.metrics(query);
 
-		final String request = this.createQuery(TEMPLATE, availabilityQuery);
-
-		try {
-			final long now = System.currentTimeMillis();
-			final long from = ZonedDateTime
-					.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
-					.minus(1, ChronoUnit.MONTHS)
-					.toInstant()
-					.toEpochMilli();
-			
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request);
-			return this.toAvailabilityResponseResponse(result);
-		} catch (TechnicalException e) {
-			logger.error("Impossible to perform AverageResponseTimeQuery", e);
-			throw new AnalyticsException("Impossible to perform AverageResponseTimeQuery", e);
-		}
+		final Buffer request = this.createQuery(BUILDER, TEMPLATE, availabilityQuery);
+
+		final long now = System.currentTimeMillis();
+		final long from = ZonedDateTime
+				.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+				.minus(1, ChronoUnit.MONTHS)
+				.toInstant()
+				.toEpochMilli();
+
+		return this.elasticsearchComponent.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request)
+				.map(metrics::received)
+				.map(response -> metrics.time(Phase.CONVERSION, () -> this.toAvailabilityResponseResponse(response)))
+				.onErrorResumeNext(throwable -> this.error("AverageResponseTimeQuery", throwable));
 	}
 
 	private AvailabilityResponse toAvailabilityResponseResponse(final ESSearchResponse response) {
@@ -16,17 +16,18 @@
 package io.gravitee.repository.elasticsearch.healthcheck.query;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.AggregationType;
 import io.gravitee.repository.analytics.query.response.histogram.Bucket;
 import io.gravitee.repository.analytics.query.response.histogram.Data;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.query.healthcheck.AverageDateHistogramBodyBuilder;
 import io.gravitee.repository.healthcheck.query.DateHistogramQuery;
 import io.gravitee.repository.healthcheck.query.Query;
 import io.gravitee.repository.healthcheck.query.response.histogram.DateHistogramResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -42,38 +43,34 @@ import java.util.*;
  */
 public class AverageDateHistogramCommand extends AstractElasticsearchQueryCommand<DateHistogramResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(AverageDateHistogramCommand.class);
-
 	private final static String TEMPLATE = "healthcheck/avg-date-histogram.ftl";
 
+	private final static AverageDateHistogramBodyBuilder BUILDER = new AverageDateHistogramBodyBuilder();
+
 	@Override
 	public Class<? extends Query<DateHistogramResponse>> getSupportedQuery() {
 		return DateHistogramQuery.class;
 	}
 
 	@Override
-	public DateHistogramResponse executeQuery(Query<DateHistogramResponse> query) throws AnalyticsException {
+	protected Single<DateHistogramResponse> executeSearchAsync(Query<DateHistogramResponse> query) {
 		final DateHistogramQuery dateHistogramQuery = (DateHistogramQuery) query;
-
-		final String request = this.createQuery(TEMPLATE, dateHistogramQuery);
-
-		try {
-			final long now = System.currentTimeMillis();
-			final long from = ZonedDateTime
-					.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
-					.minus(1, ChronoUnit.MONTHS)
-					.toInstant()
-					.toEpochMilli();
-			
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request);
-			return this.toAvailabilityResponseResponse(result, dateHistogramQuery);
-		} catch (TechnicalException e) {
-			logger.error("Impossible to perform AverageResponseTimeQuery", e);
-			throw new AnalyticsException("Impossible to perform AverageResponseTimeQuery", e);
-		}
+		final QueryMetrics metrics = this.metrics(query);
+
+		final Buffer request = this.createQuery(BUILDER, TEMPLATE, dateHistogramQuery);
+
+		final long now = System.currentTimeMillis();
+		final long from = ZonedDateTime
+				.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+				.minus(1, ChronoUnit.MONTHS)
+				.toInstant()
+				.toEpochMilli();
+
+		return this.elasticsearchComponent.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request)
+				.map(metrics::received)
+				.map(result -> metrics.time(Phase.CONVERSION,
+						() -> this.toAvailabilityResponseResponse(result, dateHistogramQuery)))
+				.onErrorResumeNext(throwable -> this.error("AverageResponseTimeQuery", throwable));
 	}
 
 	private DateHistogramResponse toAvailabilityResponseResponse(final ESSearchResponse response,
@@ -16,17 +16,18 @@
 package io.gravitee.repository.elasticsearch.healthcheck.query;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import io.gravitee.repository.analytics.AnalyticsException;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.Aggregation;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.query.healthcheck.AverageResponseTimeBodyBuilder;
 import io.gravitee.repository.healthcheck.query.Bucket;
 import io.gravitee.repository.healthcheck.query.FieldBucket;
 import io.gravitee.repository.healthcheck.query.Query;
 import io.gravitee.repository.healthcheck.query.responsetime.AverageResponseTimeQuery;
 import io.gravitee.repository.healthcheck.query.responsetime.AverageResponseTimeResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.vertx.rxjava.core.buffer.Buffer;
+import rx.Single;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -44,38 +45,33 @@ import java.util.List;
  */
 public class AverageResponseTimeCommand extends AstractElasticsearchQueryCommand<AverageResponseTimeResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(AverageResponseTimeCommand.class);
-
 	private final static String TEMPLATE = "healthcheck/avg-response-time.ftl";
 
+	private final static AverageResponseTimeBodyBuilder BUILDER = new AverageResponseTimeBodyBuilder();
+
 	@Override
 	public Class<? extends Query<AverageResponseTimeResponse>> getSupportedQuery() {
 		return AverageResponseTimeQuery.class;
 	}
 
 	@Override
-	public AverageResponseTimeResponse executeQuery(Query<AverageResponseTimeResponse> query) throws AnalyticsException {
+	protected Single<AverageResponseTimeResponse> executeSearchAsync(Query<AverageResponseTimeResponse> query) {
 		final AverageResponseTimeQuery averageResponseTimeQuery = (AverageResponseTimeQuery) query;
+		final QueryMetrics metrics = this.metrics(query);
 
-		final String request = this.createQuery(TEMPLATE, averageResponseTimeQuery);
-
-		try {
-			final long now = System.currentTimeMillis();
-			final long from = ZonedDateTime
-					.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
-					.minus(1, ChronoUnit.MONTHS)
-					.toInstant()
-					.toEpochMilli();
-
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request);
-			return this.toAverageResponseTimeResponse(result);
-		} catch (TechnicalException e) {
-			logger.error("Impossible to perform AverageResponseTimeQuery", e);
-			throw new AnalyticsException("Impossible to perform AverageResponseTimeQuery", e);
-		}
+		final Buffer request = this.createQuery(BUILDER, TEMPLATE, averageResponseTimeQuery);
+
+		final long now = System.currentTimeMillis();
+		final long from = ZonedDateTime
+				.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+				.minus(1, ChronoUnit.MONTHS)
+				.toInstant()
+				.toEpochMilli();
+
+		return this.elasticsearchComponent.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request)
+				.map(metrics::received)
+				.map(response -> metrics.time(Phase.CONVERSION, () -> this.toAverageResponseTimeResponse(response)))
+				.onErrorResumeNext(throwable -> this.error("AverageResponseTimeQuery", throwable));
 	}
 
 	private AverageResponseTimeResponse toAverageResponseTimeResponse(final ESSearchResponse response) {
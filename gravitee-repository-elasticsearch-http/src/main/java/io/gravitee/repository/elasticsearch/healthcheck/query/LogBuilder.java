@@ -15,17 +15,19 @@
  */
 package io.gravitee.repository.elasticsearch.healthcheck.query;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.gravitee.common.http.HttpHeaders;
 import io.gravitee.common.http.HttpMethod;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DocumentHit;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DocumentHitDeserializer;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
+import io.gravitee.repository.elasticsearch.utils.TimestampParser;
 import io.gravitee.repository.healthcheck.query.log.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -36,14 +38,6 @@ import java.util.List;
  */
 public final class LogBuilder {
 
-    /**
-     * Logger.
-     */
-    private static final Logger logger = LoggerFactory.getLogger(LogBuilder.class);
-
-    /** Document simple date format **/
-    private static SimpleDateFormat dtf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-
     private final static String FIELD_TIMESTAMP = "@timestamp";
 
     private final static String FIELD_GATEWAY = "gateway";
@@ -64,46 +58,127 @@ public final class LogBuilder {
     private final static String FIELD_RESPONSE = "response";
     private final static String FIELD_REQUEST = "request";
 
+    /**
+     * Complete the log decoded from a hit of a {@link LogSearchResponse}.
+     */
+    @SuppressWarnings("unchecked")
     static Log createLog(final SearchHit hit) {
-        final JsonNode node = hit.getSource();
-        final Log log = new Log();
-
+        final Log log = ((DocumentHit<Log>) hit).getDocument();
         log.setId(hit.getId());
-        log.setGateway( node.get(FIELD_GATEWAY).asText());
-
-        try {
-            log.setTimestamp(dtf.parse((node.get(FIELD_TIMESTAMP).asText())).getTime());
-        } catch (final ParseException e) {
-            logger.error("Impossible to parse date", e);
-            throw new IllegalArgumentException("Impossible to parse timestamp field", e);
-        }
+        return log;
+    }
 
-        log.setEndpoint(node.get(FIELD_ENDPOINT).asText());
-        log.setResponseTime(node.get(FIELD_RESPONSE_TIME).asInt());
-        log.setAvailable(node.get(FIELD_AVAILABLE).asBoolean());
-        log.setState(node.get(FIELD_STATE).asInt());
-        log.setSuccess(node.get(FIELD_SUCCESS).asBoolean());
+    /**
+     * Read the source of a health-check document into a log, skipping the fields it does not hold. Only the first step
+     * is read.
+     */
+    private static Log readLog(final JsonParser parser) throws IOException {
+        final Log log = new Log();
 
-        JsonNode steps = node.get(FIELD_STEPS);
-        if (steps != null && steps.isArray() && steps.size() != 0) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            switch (name) {
+                case FIELD_GATEWAY:
+                    log.setGateway(parser.getValueAsString());
+                    break;
+                case FIELD_TIMESTAMP:
+                    log.setTimestamp(TimestampParser.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case FIELD_ENDPOINT:
+                    log.setEndpoint(parser.getValueAsString());
+                    break;
+                case FIELD_RESPONSE_TIME:
+                    log.setResponseTime(parser.getValueAsInt());
+                    break;
+                case FIELD_AVAILABLE:
+                    log.setAvailable(parser.getValueAsBoolean());
+                    break;
+                case FIELD_STATE:
+                    log.setState(parser.getValueAsInt());
+                    break;
+                case FIELD_SUCCESS:
+                    log.setSuccess(parser.getValueAsBoolean());
+                    break;
+                case FIELD_STEPS:
+                    if (token == JsonToken.START_ARRAY) {
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            readFirstStep(parser, log);
+                        }
+                        while (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                            parser.skipChildren();
+                            parser.nextToken();
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
 
-            JsonNode step = steps.get(0);
-            JsonNode request = step.get(FIELD_REQUEST);
-            JsonNode response = step.get(FIELD_RESPONSE);
+        return log;
+    }
 
-            if (request != null) {
-                log.setUri(request.get(FIELD_URI).asText());
-                log.setMethod(HttpMethod.valueOf(request.get(FIELD_METHOD).asText()));
-                log.setStatus(response.get(FIELD_STATUS).asInt());
+    private static void readFirstStep(final JsonParser parser, final Log log) throws IOException {
+        boolean request = false;
+        String uri = null, requestUri = null;
+        String method = null, requestMethod = null;
+        int status = 0, responseStatus = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (FIELD_REQUEST.equals(name) && token == JsonToken.START_OBJECT) {
+                request = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (FIELD_URI.equals(field)) {
+                        requestUri = parser.getValueAsString();
+                    } else if (FIELD_METHOD.equals(field)) {
+                        requestMethod = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (FIELD_RESPONSE.equals(name) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (FIELD_STATUS.equals(field)) {
+                        responseStatus = parser.getValueAsInt();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (FIELD_URI.equals(name)) {
+                uri = parser.getValueAsString();
+            } else if (FIELD_METHOD.equals(name)) {
+                method = parser.getValueAsString();
+            } else if (FIELD_STATUS.equals(name)) {
+                status = parser.getValueAsInt();
             } else {
-                // Ensure backward compatibility
-                log.setUri(step.get(FIELD_URI).asText());
-                log.setMethod(HttpMethod.valueOf(step.get(FIELD_METHOD).asText().toUpperCase()));
-                log.setStatus(step.get(FIELD_STATUS).asInt());
+                parser.skipChildren();
             }
         }
 
-        return log;
+        // Move past the end of the step
+        parser.nextToken();
+
+        if (request) {
+            log.setUri(requestUri);
+            log.setMethod(HttpMethod.valueOf(requestMethod));
+            log.setStatus(responseStatus);
+        } else {
+            // Ensure backward compatibility
+            log.setUri(uri);
+            log.setMethod(HttpMethod.valueOf(method.toUpperCase()));
+            log.setStatus(status);
+        }
     }
 
     public static ExtendedLog createExtendedLog(final SearchHit hit) {
@@ -112,13 +187,7 @@ public final class LogBuilder {
 
         log.setId(hit.getId());
         log.setGateway(node.get(FIELD_GATEWAY).asText());
-
-        try {
-            log.setTimestamp(dtf.parse((node.get(FIELD_TIMESTAMP).asText())).getTime());
-        } catch (final ParseException e) {
-            logger.error("Impossible to parse date", e);
-            throw new IllegalArgumentException("Impossible to parse timestamp field", e);
-        }
+        log.setTimestamp(TimestampParser.parse(node.get(FIELD_TIMESTAMP).asText()));
 
         log.setEndpoint(node.get(FIELD_ENDPOINT).asText());
         log.setResponseTime(node.get(FIELD_RESPONSE_TIME).asInt());
@@ -215,4 +284,15 @@ public final class LogBuilder {
         values.forEach(jsonNode -> result.add(jsonNode.asText()));
         return result;
     }
+
+    /**
+     * Stream the hits of a search of health-checks into {@link Log}.
+     */
+    static class LogHitDeserializer extends DocumentHitDeserializer<Log> {
+
+        @Override
+        protected Log readDocument(final JsonParser parser) throws IOException {
+            return readLog(parser);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.healthcheck.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHits;
+
+import java.util.List;
+
+/**
+ * A response of a search of health-checks, whose hits are decoded as {@link io.gravitee.repository.healthcheck.query.log.Log}.
+ *
+ * @author GraviteeSource Team
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class LogSearchResponse extends ESSearchResponse {
+
+	/**
+	 * UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	@JsonDeserialize(as = Hits.class)
+	public void setSearchHits(SearchHits searchHits) {
+		super.setSearchHits(searchHits);
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	static class Hits extends SearchHits {
+
+		/**
+		 * UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		@JsonDeserialize(contentUsing = LogBuilder.LogHitDeserializer.class)
+		public void setHits(List<SearchHit> hits) {
+			super.setHits(hits);
+		}
+	}
+}
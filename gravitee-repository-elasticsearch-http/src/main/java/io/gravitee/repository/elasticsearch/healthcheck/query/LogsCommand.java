@@ -15,17 +15,17 @@
  */
 package io.gravitee.repository.elasticsearch.healthcheck.query;
 
-import io.gravitee.repository.analytics.AnalyticsException;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHits;
-import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.elasticsearch.query.healthcheck.LogsBodyBuilder;
 import io.gravitee.repository.healthcheck.query.Query;
 import io.gravitee.repository.healthcheck.query.log.Log;
 import io.gravitee.repository.healthcheck.query.log.LogsQuery;
 import io.gravitee.repository.healthcheck.query.log.LogsResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import rx.Single;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -42,41 +42,36 @@ import java.util.List;
  */
 public class LogsCommand extends AstractElasticsearchQueryCommand<LogsResponse> {
 
-	/**
-	 * Logger.
-	 */
-	private final Logger logger = LoggerFactory.getLogger(LogsCommand.class);
-
 	private final static String TEMPLATE = "healthcheck/logs.ftl";
 
+	private final static LogsBodyBuilder BUILDER = new LogsBodyBuilder();
+
 	@Override
 	public Class<? extends Query<LogsResponse>> getSupportedQuery() {
 		return LogsQuery.class;
 	}
 
 	@Override
-	public LogsResponse executeQuery(Query<LogsResponse> query) throws AnalyticsException {
+	protected Single<LogsResponse> executeSearchAsync(Query<LogsResponse> query) {
 		final LogsQuery logsQuery = (LogsQuery) query;
+		final QueryMetrics metrics = this.metrics(query);
 
-		final String request = this.createQuery(TEMPLATE, logsQuery);
+		final long now = System.currentTimeMillis();
+		final long from = ZonedDateTime
+				.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+				.minus(1, ChronoUnit.MONTHS)
+				.toInstant()
+				.toEpochMilli();
 
-		try {
-			final long now = System.currentTimeMillis();
-			final long from = ZonedDateTime
-					.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
-					.minus(1, ChronoUnit.MONTHS)
-					.toInstant()
-					.toEpochMilli();
-
-			final ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH, request);
-			return this.toLogsResponse(result);
-		} catch (TechnicalException e) {
-			logger.error("Impossible to perform AverageResponseTimeQuery", e);
-			throw new AnalyticsException("Impossible to perform AverageResponseTimeQuery", e);
-		}
+		return this.elasticsearchComponent.searchAsync(this.elasticsearchIndexUtil.getIndexName(from, now), ES_TYPE_HEALTH,
+						BUILDER.stored(logsQuery), () -> this.createQuery(BUILDER, TEMPLATE, logsQuery), LogSearchResponse.class)
+				.map(metrics::received)
+				.map(response -> metrics.time(Phase.CONVERSION, () -> this.toLogsResponse(response)))
+				.onErrorResumeNext(throwable -> this.error("AverageResponseTimeQuery", throwable));
 	}
 
-	private LogsResponse toLogsResponse(final ESSearchResponse response) {
+	// Visible for benchmarks
+	LogsResponse toLogsResponse(final ESSearchResponse response) {
 		SearchHits hits = response.getSearchHits();
 		LogsResponse logsResponse = new LogsResponse(hits.getTotal());
 
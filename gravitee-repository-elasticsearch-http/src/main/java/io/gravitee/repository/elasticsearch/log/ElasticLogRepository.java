@@ -15,25 +15,29 @@
  */
 package io.gravitee.repository.elasticsearch.log;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import io.gravitee.repository.analytics.AnalyticsException;
 import io.gravitee.repository.analytics.query.tabular.TabularQuery;
 import io.gravitee.repository.analytics.query.tabular.TabularResponse;
 import io.gravitee.repository.elasticsearch.AbstractElasticRepository;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHits;
+import io.gravitee.repository.elasticsearch.query.ByIdBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.LogsBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.StoredSearch;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.log.api.LogRepository;
 import io.gravitee.repository.log.model.ExtendedLog;
 import io.gravitee.repository.log.model.Log;
+import io.vertx.rxjava.core.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rx.functions.Func0;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author David BRASSELY (david.brassely at graviteesource.com)
@@ -57,6 +61,10 @@ public class ElasticLogRepository extends AbstractElasticRepository implements L
 	 * Freemarker template name for finding log by id.
 	 */
 	private static final String LOG_BY_ID_TEMPLATE = "log/logById.ftl";
+
+	private static final LogsBodyBuilder LOG_BUILDER = new LogsBodyBuilder();
+
+	private static final ByIdBodyBuilder LOG_BY_ID_BUILDER = new ByIdBodyBuilder();
 	
 	/**
 	 * Elasticsearch document type used to perform query.
@@ -65,18 +73,28 @@ public class ElasticLogRepository extends AbstractElasticRepository implements L
 
 	private final static String ES_TYPE_REQUEST = "request";
 
+	private final static String METRICS_QUERY = "log.TabularQuery";
+
+	private final static String METRICS_FIND_BY_ID = "log.findById";
+
 	@Override
 	public TabularResponse query(final TabularQuery query) throws AnalyticsException {
-		final String request = this.createElasticsearchJsonQuery(query);
+		final QueryMetrics metrics = this.metrics(METRICS_QUERY);
+		final long start = System.nanoTime();
+
+		final Buffer request = metrics.time(Phase.RENDER, () -> this.createElasticsearchJsonQuery(query));
 		
 		final Long from = query.timeRange().range().from();
 		final Long to = query.timeRange().range().to();
 
 		try {
-			final ESSearchResponse result = this.elasticsearchComponent
-					.search(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_REQUEST, request);
-			return this.toTabularResponse(result);
+			final ESSearchResponse result = metrics.received(this.elasticsearchComponent
+					.search(this.elasticsearchIndexUtil.getIndexName(from, to), ES_TYPE_REQUEST, request, LogSearchResponse.class));
+			final TabularResponse response = metrics.time(Phase.CONVERSION, () -> this.toTabularResponse(result));
+			metrics.completed(start);
+			return response;
 		} catch (final TechnicalException e) {
+			metrics.failed(e);
 			logger.error("Impossible to perform log request", e);
 			throw new AnalyticsException("Impossible to perform log request", e);
 		}
@@ -87,26 +105,25 @@ public class ElasticLogRepository extends AbstractElasticRepository implements L
 	 * @param query user query
 	 * @return JSON Elasticsearch query
 	 */
-	private String createElasticsearchJsonQuery(final TabularQuery query) {
-		final Map<String, Object> data = new HashMap<>();
-		data.put("query", query);
-
-		final String request = this.freeMarkerComponent.generateFromTemplate(LOG_TEMPLATE, data);
+	private Buffer createElasticsearchJsonQuery(final TabularQuery query) {
+		final Buffer request = this.searchBodyRenderer.render(LOG_BUILDER, LOG_TEMPLATE, "query", query);
 		logger.debug("ES request {}", request);
 		return request;
 	}
 
 	@Override
 	public ExtendedLog findById(final String requestId) throws AnalyticsException {
-		final Map<String, Object> data = new HashMap<>();
-		data.put("requestId", requestId);
+		final QueryMetrics metrics = this.metrics(METRICS_FIND_BY_ID);
+		final long start = System.nanoTime();
 
-		String request = this.freeMarkerComponent.generateFromTemplate(LOG_BY_ID_TEMPLATE, data);
+		final StoredSearch search = LOG_BY_ID_BUILDER.stored(requestId);
+		final Func0<Buffer> request = () -> metrics.time(Phase.RENDER,
+				() -> this.searchBodyRenderer.render(LOG_BY_ID_BUILDER, LOG_BY_ID_TEMPLATE, "requestId", requestId));
 
-		logger.debug("ES request {}", request);
+		logger.debug("ES request {}", search);
 
 		try {
-			ESSearchResponse result = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getAllIndexName(), ES_TYPE_REQUEST, request);
+			ESSearchResponse result = metrics.received(this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getAllIndexName(), ES_TYPE_REQUEST, search, request, ExtendedLogSearchResponse.class));
 			logger.debug("ES response {}", result);
 
 			if (result.getSearchHits().getTotal() == 0) {
@@ -117,24 +134,28 @@ public class ElasticLogRepository extends AbstractElasticRepository implements L
 
 			String searchHitIndex = searchHit.getIndex();
 
-			request = this.freeMarkerComponent.generateFromTemplate(LOG_BY_ID_TEMPLATE, data);
 			logger.debug("ES response {}", result);
 
-			result = this.elasticsearchComponent.search(searchHitIndex, ES_TYPE_LOG, request);
+			result = metrics.received(this.elasticsearchComponent.search(searchHitIndex, ES_TYPE_LOG, search, request, ExtendedLogSearchResponse.class));
 
-			JsonNode log = null;
+			SearchHit log = null;
 			if (result.getSearchHits().getTotal() != 0) {
-				log = result.getSearchHits().getHits().get(0).getSource();
+				log = result.getSearchHits().getHits().get(0);
 			}
 
-			return LogBuilder.createExtendedLog(searchHit, log);
+			final SearchHit logHit = log;
+			final ExtendedLog extendedLog = metrics.time(Phase.CONVERSION, () -> LogBuilder.createExtendedLog(searchHit, logHit));
+			metrics.completed(start);
+			return extendedLog;
 		} catch (TechnicalException e) {
+			metrics.failed(e);
 			logger.error("Request [{}] does not exist", requestId, e);
 			throw new AnalyticsException("Request [" + requestId + "] does not exist");
 		}
 	}
 
-	private TabularResponse toTabularResponse(final ESSearchResponse response) {
+	// Visible for benchmarks
+	TabularResponse toTabularResponse(final ESSearchResponse response) {
 		final SearchHits hits = response.getSearchHits();
 		final TabularResponse tabularResponse = new TabularResponse(hits.getTotal());
 		final List<Log> logs = new ArrayList<>(hits.getHits().size());
@@ -15,22 +15,21 @@
  */
 package io.gravitee.repository.elasticsearch.log;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import io.gravitee.common.http.HttpHeaders;
 import io.gravitee.common.http.HttpMethod;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DocumentHit;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.DocumentHitDeserializer;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
+import io.gravitee.repository.elasticsearch.utils.TimestampParser;
 import io.gravitee.repository.log.model.ExtendedLog;
 import io.gravitee.repository.log.model.Log;
 import io.gravitee.repository.log.model.Request;
 import io.gravitee.repository.log.model.Response;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -41,14 +40,6 @@ import java.util.List;
  * @author Sebastien Devaux (Zenika)
  */
 final class LogBuilder {
-	
-	/**
-	 * Logger.
-	 */
-	private static final Logger logger = LoggerFactory.getLogger(LogBuilder.class);
-	
-	/** Document simple date format **/
-	private static SimpleDateFormat dtf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
 
     private final static String FIELD_TRANSACTION_ID = "transaction";
     private final static String FIELD_TIMESTAMP = "@timestamp";
@@ -80,147 +71,244 @@ final class LogBuilder {
 
     private final static String FIELD_MESSAGE = "message";
 
-    static Log createLog(final SearchHit hit) {
-        return createLog(hit, new Log());
+    /**
+     * Complete the log decoded from a hit of a {@link LogSearchResponse} or an {@link ExtendedLogSearchResponse}.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Log> T createLog(final SearchHit hit) {
+        final T log = ((DocumentHit<T>) hit).getDocument();
+        log.setId(hit.getId());
+        return log;
     }
 
-    static ExtendedLog createExtendedLog(final SearchHit hit, final JsonNode log) {
-        ExtendedLog extentedLog = createLog(hit, new ExtendedLog());
+    @SuppressWarnings("unchecked")
+    static ExtendedLog createExtendedLog(final SearchHit hit, final SearchHit logHit) {
+        final ExtendedLog extendedLog = createLog(hit);
 
         // Add client and proxy requests / responses
-        if (log != null) {
-            extentedLog.setClientRequest(createRequest(log.get(FIELD_CLIENT_REQUEST)));
-            extentedLog.setProxyRequest(createRequest(log.get(FIELD_PROXY_REQUEST)));
-            extentedLog.setClientResponse(createResponse(log.get(FIELD_CLIENT_RESPONSE)));
-            extentedLog.setProxyResponse(createResponse(log.get(FIELD_PROXY_RESPONSE)));
+        if (logHit != null) {
+            final ExtendedLog log = ((DocumentHit<ExtendedLog>) logHit).getDocument();
+            extendedLog.setClientRequest(log.getClientRequest());
+            extendedLog.setProxyRequest(log.getProxyRequest());
+            extendedLog.setClientResponse(log.getClientResponse());
+            extendedLog.setProxyResponse(log.getProxyResponse());
         }
 
-        return extentedLog;
+        return extendedLog;
     }
 
-    private static <T extends Log> T  createLog(final SearchHit hit, final T log) {
-        final JsonNode source = hit.getSource();
-        log.setId(hit.getId());
-        log.setTransactionId(source.get(FIELD_TRANSACTION_ID).asText());
-        log.setGateway( source.get(FIELD_GATEWAY).asText());
-
-        try {
-            log.setTimestamp(dtf.parse((source.get(FIELD_TIMESTAMP).asText())).getTime());
-        } catch (final ParseException e) {
-            logger.error("Impossible to parse date", e);
-            throw new IllegalArgumentException("Impossible to parse timestamp field", e);
-        }
-
-        log.setUri(source.get(FIELD_URI).asText());
-
-        JsonNode methodNode = source.get(FIELD_METHOD);
-
-        if (methodNode.canConvertToInt()) {
-            log.setMethod(HttpMethod.get(methodNode.asInt()));
-        } else {
-            log.setMethod(HttpMethod.valueOf(methodNode.asText()));
-        }
-
-        log.setStatus(source.get(FIELD_STATUS).asInt());
-        log.setResponseTime(source.get(FIELD_RESPONSE_TIME).asLong());
-        log.setApiResponseTime(source.path(FIELD_API_RESPONSE_TIME).asLong());
-        log.setRequestContentLength(source.path(FIELD_REQUEST_CONTENT_LENGTH).asLong());
-        log.setResponseContentLength(source.path(FIELD_RESPONSE_CONTENT_LENGTH).asLong());
-        log.setLocalAddress(source.get(FIELD_LOCAL_ADDRESS).asText());
-        log.setRemoteAddress(source.get(FIELD_REMOTE_ADDRESS).asText());
-
-        final JsonNode tenantNode = source.get(FIELD_TENANT);
-        if (tenantNode != null && ! tenantNode.isNull()) {
-            log.setTenant(tenantNode.asText());
-        }
-
-        final JsonNode applicationNode = source.get(FIELD_APPLICATION);
-        if (applicationNode != null && ! applicationNode.isNull()) {
-            log.setApplication(applicationNode.asText());
-        }
-
-        final JsonNode apiNode = source.get(FIELD_API);
-        if (apiNode != null && ! apiNode.isNull()) {
-            log.setApi(apiNode.asText());
-        }
-
-        final JsonNode planNode = source.get(FIELD_PLAN);
-        if (planNode != null && ! planNode.isNull()) {
-            log.setPlan(planNode.asText());
-        }
-
-        final JsonNode apiKeyNode = source.get(FIELD_API_KEY);
-        if (apiKeyNode != null && ! apiKeyNode.isNull()) {
-            log.setApiKey(apiKeyNode.asText());
-        }
-
-        final JsonNode endpointNode = source.get(FIELD_ENDPOINT);
-        if (endpointNode != null && ! endpointNode.isNull()) {
-            log.setEndpoint(endpointNode.asText());
-        }
-
-        final JsonNode messageNode = source.get(FIELD_MESSAGE);
-        if (messageNode != null && ! messageNode.isNull()) {
-            log.setMessage(messageNode.asText());
+    /**
+     * Read the source of a request or log document into a log, skipping the fields it does not hold. The client and
+     * proxy requests and responses are only read into an {@link ExtendedLog}.
+     */
+    private static <T extends Log> T readLog(final JsonParser parser, final T log) throws IOException {
+        final ExtendedLog extendedLog = (log instanceof ExtendedLog) ? (ExtendedLog) log : null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case FIELD_TRANSACTION_ID:
+                    log.setTransactionId(parser.getValueAsString());
+                    break;
+                case FIELD_GATEWAY:
+                    log.setGateway(parser.getValueAsString());
+                    break;
+                case FIELD_TIMESTAMP:
+                    log.setTimestamp(TimestampParser.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case FIELD_URI:
+                    log.setUri(parser.getValueAsString());
+                    break;
+                case FIELD_METHOD:
+                    log.setMethod((token == JsonToken.VALUE_NUMBER_INT) ?
+                            HttpMethod.get(parser.getIntValue()) : HttpMethod.valueOf(parser.getText()));
+                    break;
+                case FIELD_STATUS:
+                    log.setStatus(parser.getValueAsInt());
+                    break;
+                case FIELD_RESPONSE_TIME:
+                    log.setResponseTime(parser.getValueAsLong());
+                    break;
+                case FIELD_API_RESPONSE_TIME:
+                    log.setApiResponseTime(parser.getValueAsLong());
+                    break;
+                case FIELD_REQUEST_CONTENT_LENGTH:
+                    log.setRequestContentLength(parser.getValueAsLong());
+                    break;
+                case FIELD_RESPONSE_CONTENT_LENGTH:
+                    log.setResponseContentLength(parser.getValueAsLong());
+                    break;
+                case FIELD_LOCAL_ADDRESS:
+                    log.setLocalAddress(parser.getValueAsString());
+                    break;
+                case FIELD_REMOTE_ADDRESS:
+                    log.setRemoteAddress(parser.getValueAsString());
+                    break;
+                case FIELD_TENANT:
+                    log.setTenant(parser.getValueAsString());
+                    break;
+                case FIELD_APPLICATION:
+                    log.setApplication(parser.getValueAsString());
+                    break;
+                case FIELD_API:
+                    log.setApi(parser.getValueAsString());
+                    break;
+                case FIELD_PLAN:
+                    log.setPlan(parser.getValueAsString());
+                    break;
+                case FIELD_API_KEY:
+                    log.setApiKey(parser.getValueAsString());
+                    break;
+                case FIELD_ENDPOINT:
+                    log.setEndpoint(parser.getValueAsString());
+                    break;
+                case FIELD_MESSAGE:
+                    log.setMessage(parser.getValueAsString());
+                    break;
+                case FIELD_CLIENT_REQUEST:
+                    if (extendedLog != null) {
+                        extendedLog.setClientRequest(readRequest(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case FIELD_PROXY_REQUEST:
+                    if (extendedLog != null) {
+                        extendedLog.setProxyRequest(readRequest(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case FIELD_CLIENT_RESPONSE:
+                    if (extendedLog != null) {
+                        extendedLog.setClientResponse(readResponse(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case FIELD_PROXY_RESPONSE:
+                    if (extendedLog != null) {
+                        extendedLog.setProxyResponse(readResponse(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
 
         return log;
     }
 
-    private static Request createRequest(final JsonNode node) {
-        if (node == null) {
+    private static Request readRequest(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return null;
         }
 
-        Request request = new Request();
-        request.setUri(node.path(FIELD_URI).asText());
-
-        if (node.get(FIELD_METHOD) != null) {
-            request.setMethod(HttpMethod.valueOf(node.get(FIELD_METHOD).asText()));
-        }
-
-        if (node.get(FIELD_BODY) != null) {
-            request.setBody(node.get(FIELD_BODY).asText());
+        final Request request = new Request();
+        request.setUri("");
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (FIELD_URI.equals(name)) {
+                request.setUri(parser.getValueAsString(""));
+            } else if (FIELD_METHOD.equals(name) && token != JsonToken.VALUE_NULL) {
+                request.setMethod(HttpMethod.valueOf(parser.getText()));
+            } else if (FIELD_BODY.equals(name)) {
+                request.setBody(parser.getValueAsString());
+            } else if (FIELD_HEADERS.equals(name)) {
+                request.setHeaders(readHttpHeaders(parser));
+            } else {
+                parser.skipChildren();
+            }
         }
 
-        request.setHeaders(createHttpHeaders(node.get(FIELD_HEADERS)));
         return request;
     }
 
-    private static Response createResponse(final JsonNode node) {
-        if (node == null) {
+    private static Response readResponse(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return null;
         }
 
-        Response response = new Response();
-        response.setStatus(node.path(FIELD_STATUS).asInt());
-        if (node.get(FIELD_BODY) != null) {
-            response.setBody(node.get(FIELD_BODY).asText());
+        final Response response = new Response();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+
+            if (FIELD_STATUS.equals(name)) {
+                response.setStatus(parser.getValueAsInt());
+            } else if (FIELD_BODY.equals(name)) {
+                response.setBody(parser.getValueAsString());
+            } else if (FIELD_HEADERS.equals(name)) {
+                response.setHeaders(readHttpHeaders(parser));
+            } else {
+                parser.skipChildren();
+            }
         }
-        response.setHeaders(createHttpHeaders(node.get(FIELD_HEADERS)));
+
         return response;
     }
 
-    private static HttpHeaders createHttpHeaders(final JsonNode node) {
-        if (node == null) {
+    private static HttpHeaders readHttpHeaders(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return null;
         }
 
-        HttpHeaders httpHeaders = new HttpHeaders();
+        final HttpHeaders httpHeaders = new HttpHeaders();
 
-        final Iterator<String> iterator = node.fieldNames();
-        while (iterator.hasNext()) {
-            final String name = iterator.next();
-            final ArrayNode values = (ArrayNode) node.get(name);
-            httpHeaders.put(name, convertToList(values));
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final List<String> values = new ArrayList<>(1);
+
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(parser.getValueAsString());
+                    parser.skipChildren();
+                }
+            } else {
+                values.add(parser.getValueAsString());
+                parser.skipChildren();
+            }
+
+            httpHeaders.put(name, values);
         }
 
         return httpHeaders;
     }
 
-    private static List<String> convertToList(ArrayNode values) {
-        final List<String> result = new ArrayList<>(values.size());
-        values.forEach(jsonNode -> result.add(jsonNode.asText()));
-        return result;
+    /**
+     * Stream the hits of a search of requests into {@link Log}.
+     */
+    static class LogHitDeserializer extends DocumentHitDeserializer<Log> {
+
+        @Override
+        protected Log readDocument(final JsonParser parser) throws IOException {
+            return readLog(parser, new Log());
+        }
+    }
+
+    /**
+     * Stream the hits of a search of requests or logs into {@link ExtendedLog}.
+     */
+    static class ExtendedLogHitDeserializer extends DocumentHitDeserializer<ExtendedLog> {
+
+        @Override
+        protected ExtendedLog readDocument(final JsonParser parser) throws IOException {
+            return readLog(parser, new ExtendedLog());
+        }
     }
 }
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+import io.vertx.rxjava.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate the metrics of each type of query and periodically log their count, average and maximum, before starting
+ * over.
+ *
+ * @author GraviteeSource Team
+ */
+public class LoggingMetricsRegistry implements MetricsRegistry {
+
+	private final Logger logger = LoggerFactory.getLogger(LoggingMetricsRegistry.class);
+
+	private final Vertx vertx;
+
+	private final long interval;
+
+	private final Map<String, QuerySummary> summaries = new ConcurrentHashMap<>();
+
+	private long timerId = -1;
+
+	/**
+	 * @param vertx Vert.x instance running the reports
+	 * @param interval delay between two reports in milliseconds
+	 */
+	public LoggingMetricsRegistry(final Vertx vertx, final long interval) {
+		this.vertx = vertx;
+		this.interval = interval;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (interval > 0) {
+			this.timerId = vertx.setPeriodic(interval, id -> this.report());
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (timerId != -1) {
+			vertx.cancelTimer(timerId);
+			timerId = -1;
+		}
+	}
+
+	@Override
+	public void recordTime(final String query, final Phase phase, final long nanos) {
+		this.summary(query).times[phase.ordinal()].record(nanos);
+	}
+
+	@Override
+	public void recordResponseSize(final String query, final long bytes) {
+		this.summary(query).sizes.record(bytes);
+	}
+
+	@Override
+	public void recordError(final String query, final Throwable throwable) {
+		this.summary(query).errors.increment();
+	}
+
+	private QuerySummary summary(final String query) {
+		final QuerySummary summary = this.summaries.get(query);
+		return (summary != null) ? summary : this.summaries.computeIfAbsent(query, key -> new QuerySummary());
+	}
+
+	void report() {
+		this.summaries.forEach((query, summary) -> {
+			final long errors = summary.errors.sumThenReset();
+			final Summary total = summary.times[Phase.TOTAL.ordinal()];
+			final long queries = total.count.sumThenReset();
+			if (queries == 0 && errors == 0) {
+				return;
+			}
+
+			final StringBuilder report = new StringBuilder()
+					.append("Elasticsearch query ").append(query).append(": ")
+					.append(queries).append(" queries, ").append(errors).append(" errors");
+
+			for (final Phase phase : Phase.values()) {
+				final Summary time = summary.times[phase.ordinal()];
+				final long count = (phase == Phase.TOTAL) ? queries : time.count.sumThenReset();
+				final long sum = time.sum.sumThenReset();
+				final long max = time.max.getThenReset();
+				if (count > 0) {
+					report.append(", ").append(phase.name().toLowerCase(Locale.ROOT).replace('_', ' '))
+							.append(String.format(Locale.ROOT, " avg %.1f ms max %.1f ms", sum / (count * 1e6), max / 1e6));
+				}
+			}
+
+			final long responses = summary.sizes.count.sumThenReset();
+			final long size = summary.sizes.sum.sumThenReset();
+			final long maxSize = summary.sizes.max.getThenReset();
+			if (responses > 0) {
+				report.append(", response size avg ").append(size / responses)
+						.append(" bytes max ").append(maxSize).append(" bytes");
+			}
+
+			logger.info(report.toString());
+		});
+	}
+
+	/**
+	 * Metrics of a type of query since the last report.
+	 */
+	private static final class QuerySummary {
+
+		private final Summary[] times = new Summary[Phase.values().length];
+
+		private final Summary sizes = new Summary();
+
+		private final LongAdder errors = new LongAdder();
+
+		private QuerySummary() {
+			for (int i = 0; i < times.length; i++) {
+				times[i] = new Summary();
+			}
+		}
+	}
+
+	/**
+	 * Count, sum and maximum of recorded values.
+	 */
+	private static final class Summary {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder sum = new LongAdder();
+
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private void record(final long value) {
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+/**
+ * Receives the metrics of the queries, to expose them to a monitoring system.
+ *
+ * Queries are identified by their type, such as <code>analytics.DateHistogramQuery</code> or
+ * <code>log.findById</code>. Implementations are called concurrently, from the Vert.x event loops as well as from
+ * the caller threads, and must not block.
+ *
+ * @author GraviteeSource Team
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Drop all the metrics.
+	 */
+	MetricsRegistry NOOP = new MetricsRegistry() {
+
+		@Override
+		public void recordTime(final String query, final Phase phase, final long nanos) {
+		}
+
+		@Override
+		public void recordResponseSize(final String query, final long bytes) {
+		}
+
+		@Override
+		public void recordError(final String query, final Throwable throwable) {
+		}
+	};
+
+	/**
+	 * Record the duration of a phase of a query.
+	 * @param query the type of query
+	 * @param phase the phase
+	 * @param nanos the duration in nanoseconds
+	 */
+	void recordTime(String query, Phase phase, long nanos);
+
+	/**
+	 * Record the size of a response body, as received from Elasticsearch.
+	 * @param query the type of query
+	 * @param bytes the size in bytes, compressed if the response was compressed
+	 */
+	void recordResponseSize(String query, long bytes);
+
+	/**
+	 * Count a failed query. Failed queries have no {@link Phase#TOTAL} time.
+	 * @param query the type of query
+	 * @param throwable the error, usually wrapping an
+	 * {@link io.gravitee.repository.elasticsearch.client.ElasticsearchException} with the status of the response
+	 */
+	void recordError(String query, Throwable throwable);
+}
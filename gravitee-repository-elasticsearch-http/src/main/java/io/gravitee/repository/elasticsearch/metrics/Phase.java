@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+/**
+ * Phases of a query, each with its own timer.
+ *
+ * @author GraviteeSource Team
+ */
+public enum Phase {
+
+	/**
+	 * Rendering of the search body.
+	 */
+	RENDER,
+
+	/**
+	 * From the request being issued, including the wait for a pooled connection, to the response headers being
+	 * received.
+	 */
+	FIRST_BYTE,
+
+	/**
+	 * From the response headers to the whole response body being received.
+	 */
+	BODY,
+
+	/**
+	 * Duration of the search reported by Elasticsearch, in its <code>took</code> field.
+	 */
+	TOOK,
+
+	/**
+	 * Decoding of the response body.
+	 */
+	DECODE,
+
+	/**
+	 * Conversion of the decoded response to the repository response.
+	 */
+	CONVERSION,
+
+	/**
+	 * The whole query, from its execution to its response, including the searches of each day and the responses
+	 * taken from the cache.
+	 */
+	TOTAL
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import rx.Single;
+import rx.functions.Func0;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the metrics of a type of query to a {@link MetricsRegistry}.
+ *
+ * @author GraviteeSource Team
+ */
+public final class QueryMetrics {
+
+	private final MetricsRegistry registry;
+
+	private final String query;
+
+	/**
+	 * @param registry the registry receiving the metrics
+	 * @param query the type of query
+	 */
+	public QueryMetrics(final MetricsRegistry registry, final String query) {
+		this.registry = registry;
+		this.query = query;
+	}
+
+	/**
+	 * Run a phase of the query and record its duration, even if it fails.
+	 * @param phase the phase
+	 * @param call the phase itself
+	 * @return the result of the phase
+	 */
+	public <R> R time(final Phase phase, final Func0<R> call) {
+		final long start = System.nanoTime();
+		try {
+			return call.call();
+		} finally {
+			this.registry.recordTime(this.query, phase, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Record the measures of the Elasticsearch call which returned a search response.
+	 * @param response the search response
+	 * @return the response itself
+	 */
+	public <R extends ESSearchResponse> R received(final R response) {
+		final ResponseMetrics metrics = response.getResponseMetrics();
+		if (metrics != null) {
+			this.registry.recordTime(this.query, Phase.FIRST_BYTE, metrics.getFirstByteTime());
+			this.registry.recordTime(this.query, Phase.BODY, metrics.getBodyTime());
+			this.registry.recordTime(this.query, Phase.DECODE, metrics.getDecodeTime());
+			this.registry.recordResponseSize(this.query, metrics.getSize());
+		}
+		if (response.getTook() != null) {
+			this.registry.recordTime(this.query, Phase.TOOK, TimeUnit.MILLISECONDS.toNanos(response.getTook()));
+		}
+		return response;
+	}
+
+	/**
+	 * Record the whole duration of a successful query.
+	 * @param start the start of the query, from {@link System#nanoTime()}
+	 */
+	public void completed(final long start) {
+		this.registry.recordTime(this.query, Phase.TOTAL, System.nanoTime() - start);
+	}
+
+	/**
+	 * Count a failed query.
+	 * @param throwable the error
+	 */
+	public void failed(final Throwable throwable) {
+		this.registry.recordError(this.query, throwable);
+	}
+
+	/**
+	 * Measure an asynchronous query: its whole duration if it succeeds, its error otherwise.
+	 * @param execution the execution of the query, called on subscription
+	 * @return the query
+	 */
+	public <R> Single<R> measure(final Func0<Single<R>> execution) {
+		return Single.defer(() -> {
+			final long start = System.nanoTime();
+			return execution.call()
+					.doOnSuccess(result -> this.completed(start))
+					.doOnError(this::failed);
+		});
+	}
+}
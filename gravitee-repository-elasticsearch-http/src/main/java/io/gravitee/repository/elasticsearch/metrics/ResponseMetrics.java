@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+/**
+ * Measures of the Elasticsearch call which returned a search response, taken by the
+ * {@link io.gravitee.repository.elasticsearch.ElasticsearchComponent}.
+ *
+ * A retried call is measured on its last attempt. Searches gathered into a multi search request share the measures of
+ * the multi search request, except for their decoding.
+ *
+ * @author GraviteeSource Team
+ */
+public class ResponseMetrics {
+
+	/**
+	 * Nanoseconds from the request being issued to the response headers being received.
+	 */
+	private long firstByteTime;
+
+	/**
+	 * Nanoseconds from the response headers to the whole body being received.
+	 */
+	private long bodyTime;
+
+	/**
+	 * Nanoseconds spent decoding the body.
+	 */
+	private long decodeTime;
+
+	/**
+	 * Size of the body in bytes.
+	 */
+	private long size;
+
+	public long getFirstByteTime() {
+		return firstByteTime;
+	}
+
+	public void setFirstByteTime(long firstByteTime) {
+		this.firstByteTime = firstByteTime;
+	}
+
+	public long getBodyTime() {
+		return bodyTime;
+	}
+
+	public void setBodyTime(long bodyTime) {
+		this.bodyTime = bodyTime;
+	}
+
+	public long getDecodeTime() {
+		return decodeTime;
+	}
+
+	public void setDecodeTime(long decodeTime) {
+		this.decodeTime = decodeTime;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+}
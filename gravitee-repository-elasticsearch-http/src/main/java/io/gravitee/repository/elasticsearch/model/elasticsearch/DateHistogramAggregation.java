@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.model.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elasticsearch date histogram aggregation response, decoded straight into the timestamps of its buckets and the
+ * histogram buckets of each sub-aggregation, without building an intermediate tree.
+ *
+ * @author GraviteeSource Team
+ */
+public class DateHistogramAggregation extends Aggregation {
+
+	/** UID */
+	private static final long serialVersionUID = 1L;
+
+	/** Timestamps of the date buckets */
+	private long[] timestamps;
+
+	/** Histogram bucket of each sub-aggregation, by name of the sub-aggregation */
+	private Map<String, Bucket> fieldBuckets;
+
+	public long[] getTimestamps() {
+		return timestamps;
+	}
+
+	public void setTimestamps(long[] timestamps) {
+		this.timestamps = timestamps;
+	}
+
+	public Map<String, Bucket> getFieldBuckets() {
+		return fieldBuckets;
+	}
+
+	public void setFieldBuckets(Map<String, Bucket> fieldBuckets) {
+		this.fieldBuckets = fieldBuckets;
+	}
+
+	/**
+	 * Stream the buckets of a date histogram and their <code>by_</code> terms, <code>avg_</code>, <code>min_</code>
+	 * and <code>max_</code> sub-aggregations. Elasticsearch writes the key of a bucket before its sub-aggregations.
+	 */
+	public static class Deserializer extends JsonDeserializer<DateHistogramAggregation> {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		@Override
+		public DateHistogramAggregation deserialize(final JsonParser parser, final DeserializationContext context)
+				throws IOException {
+			long[] timestamps = new long[INITIAL_CAPACITY];
+			int size = 0;
+			final Map<String, Bucket> fieldBuckets = new HashMap<>();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				if (parser.nextToken() != JsonToken.START_ARRAY || !"buckets".equals(field)) {
+					parser.skipChildren();
+					continue;
+				}
+
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					final long timestamp = readDateBucket(parser, fieldBuckets);
+					if (size == timestamps.length) {
+						timestamps = Arrays.copyOf(timestamps, size << 1);
+					}
+					timestamps[size++] = timestamp;
+				}
+			}
+
+			final DateHistogramAggregation aggregation = new DateHistogramAggregation();
+			aggregation.setTimestamps(Arrays.copyOf(timestamps, size));
+			aggregation.setFieldBuckets(fieldBuckets);
+			return aggregation;
+		}
+
+		private static long readDateBucket(final JsonParser parser, final Map<String, Bucket> fieldBuckets)
+				throws IOException {
+			long timestamp = 0;
+			boolean keyRead = false;
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String name = parser.getCurrentName();
+				final JsonToken value = parser.nextToken();
+
+				if ("key".equals(name)) {
+					timestamp = parser.getLongValue();
+					keyRead = true;
+				} else if (value == JsonToken.START_OBJECT && isSubAggregation(name)) {
+					if (!keyRead) {
+						throw JsonMappingException.from(parser, "Sub-aggregation " + name + " before the bucket key");
+					}
+
+					Bucket fieldBucket = fieldBuckets.get(name);
+					if (fieldBucket == null) {
+						fieldBucket = new Bucket(name, fieldName(name));
+						fieldBuckets.put(name, fieldBucket);
+					}
+
+					if (name.startsWith("by_")) {
+						readTerms(parser, fieldBucket.data(), timestamp);
+					} else {
+						readMetric(parser, name, fieldBucket.data(), timestamp);
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+
+			return timestamp;
+		}
+
+		private static void readTerms(final JsonParser parser, final Map<String, List<Data>> bucketData,
+									  final long timestamp) throws IOException {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				if (parser.nextToken() != JsonToken.START_ARRAY || !"buckets".equals(field)) {
+					parser.skipChildren();
+					continue;
+				}
+
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					String key = null;
+					long docCount = 0;
+
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						final String name = parser.getCurrentName();
+						parser.nextToken();
+
+						if ("key".equals(name)) {
+							key = parser.getText();
+						} else if ("doc_count".equals(name)) {
+							docCount = parser.getLongValue();
+						} else {
+							parser.skipChildren();
+						}
+					}
+
+					if (key != null) {
+						List<Data> data = bucketData.get(key);
+						if (data == null) {
+							data = new ArrayList<>();
+							bucketData.put(key, data);
+						}
+						data.add(new Data(timestamp, docCount));
+					}
+				}
+			}
+		}
+
+		private static void readMetric(final JsonParser parser, final String name,
+									   final Map<String, List<Data>> bucketData, final long timestamp)
+				throws IOException {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				final JsonToken value = parser.nextToken();
+
+				// The value is null when no document has the field
+				if ("value".equals(field) && value.isNumeric()) {
+					List<Data> data = bucketData.get(name);
+					if (data == null) {
+						data = new ArrayList<>();
+						bucketData.put(name, data);
+					}
+					data.add(new Data(timestamp, (long) parser.getDoubleValue()));
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether a field of a bucket is one of the sub-aggregations written by the search bodies.
+	 */
+	static boolean isSubAggregation(final String name) {
+		return name.startsWith("by_") || name.startsWith("avg_") || name.startsWith("min_") || name.startsWith("max_");
+	}
+
+	/**
+	 * Field of a sub-aggregation, between the first and the second underscore of its name.
+	 */
+	static String fieldName(final String name) {
+		final int start = name.indexOf('_') + 1;
+		final int end = name.indexOf('_', start);
+		return name.substring(start, (end == -1) ? name.length() : end);
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.model.elasticsearch;
+
+/**
+ * A search hit whose source is decoded straight into a typed document, without building an intermediate tree.
+ *
+ * @see DocumentHitDeserializer
+ *
+ * @author GraviteeSource Team
+ */
+public class DocumentHit<T> extends SearchHit {
+
+	/**
+	 * UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The document decoded from the source (can be <tt>null</tt>).
+	 */
+	private T document;
+
+	public T getDocument() {
+		return document;
+	}
+
+	public void setDocument(T document) {
+		this.document = document;
+	}
+}
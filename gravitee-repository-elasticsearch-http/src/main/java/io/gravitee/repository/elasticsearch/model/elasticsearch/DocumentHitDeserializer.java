@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.model.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Stream a search hit into a {@link DocumentHit}, its source being read field by field by the subclass as the parser
+ * walks the response. The sort values of the hit are skipped.
+ *
+ * @author GraviteeSource Team
+ */
+public abstract class DocumentHitDeserializer<T> extends JsonDeserializer<SearchHit> {
+
+	@Override
+	public SearchHit deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+		final DocumentHit<T> hit = new DocumentHit<>();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String name = parser.getCurrentName();
+			final JsonToken token = parser.nextToken();
+
+			switch (name) {
+				case "_index":
+					hit.setIndex(parser.getValueAsString());
+					break;
+				case "_type":
+					hit.setType(parser.getValueAsString());
+					break;
+				case "_id":
+					hit.setId(parser.getValueAsString());
+					break;
+				case "_version":
+					hit.setVersion(token.isNumeric() ? parser.getLongValue() : null);
+					break;
+				case "_score":
+					hit.setScore(token.isNumeric() ? parser.getFloatValue() : null);
+					break;
+				case "_source":
+					if (token == JsonToken.START_OBJECT) {
+						hit.setDocument(this.readDocument(parser));
+					} else {
+						parser.skipChildren();
+					}
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+
+		return hit;
+	}
+
+	/**
+	 * Read the source of a hit, from its start object token to its end object token.
+	 * @param parser the parser, positioned on the start of the source
+	 * @return the document
+	 * @throws IOException when the source can not be read
+	 */
+	protected abstract T readDocument(JsonParser parser) throws IOException;
+}
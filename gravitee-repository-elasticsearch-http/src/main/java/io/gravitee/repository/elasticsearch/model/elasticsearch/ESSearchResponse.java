@@ -15,9 +15,11 @@
  */
 package io.gravitee.repository.elasticsearch.model.elasticsearch;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.gravitee.repository.elasticsearch.metrics.ResponseMetrics;
 
 import java.io.Serializable;
 import java.util.Map;
@@ -67,6 +69,12 @@ public class ESSearchResponse implements Serializable {
 	 */
 	private Map<String, Aggregation> aggregations;
 
+	/**
+	 * Measures of the call which returned this response, set by the client.
+	 */
+	@JsonIgnore
+	private transient ResponseMetrics responseMetrics;
+
 	public Long getTook() {
 		return took;
 	}
@@ -106,4 +114,12 @@ public class ESSearchResponse implements Serializable {
 	public void setAggregations(Map<String, Aggregation> aggregations) {
 		this.aggregations = aggregations;
 	}
+
+	public ResponseMetrics getResponseMetrics() {
+		return responseMetrics;
+	}
+
+	public void setResponseMetrics(ResponseMetrics responseMetrics) {
+		this.responseMetrics = responseMetrics;
+	}
 }
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.model.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import io.gravitee.repository.analytics.query.groupby.GroupByResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Elasticsearch terms or range aggregation response, decoded straight into the group by buckets, without building an
+ * intermediate tree.
+ *
+ * @author GraviteeSource Team
+ */
+public class GroupByAggregation extends Aggregation {
+
+	/** UID */
+	private static final long serialVersionUID = 1L;
+
+	/** Value of each bucket: its metric sub-aggregation if it has one, its number of documents otherwise */
+	private List<GroupByResponse.Bucket> values;
+
+	public List<GroupByResponse.Bucket> getValues() {
+		return values;
+	}
+
+	public void setValues(List<GroupByResponse.Bucket> values) {
+		this.values = values;
+	}
+
+	/**
+	 * Stream the buckets of a group by aggregation. The value of a bucket is the one of its first sub-aggregation if
+	 * it has one, and the bucket is skipped when this value is null.
+	 */
+	public static class Deserializer extends JsonDeserializer<GroupByAggregation> {
+
+		@Override
+		public GroupByAggregation deserialize(final JsonParser parser, final DeserializationContext context)
+				throws IOException {
+			final List<GroupByResponse.Bucket> values = new ArrayList<>();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				if (parser.nextToken() != JsonToken.START_ARRAY || !"buckets".equals(field)) {
+					parser.skipChildren();
+					continue;
+				}
+
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					readBucket(parser, values);
+				}
+			}
+
+			final GroupByAggregation aggregation = new GroupByAggregation();
+			aggregation.setValues(values);
+			return aggregation;
+		}
+
+		private static void readBucket(final JsonParser parser, final List<GroupByResponse.Bucket> values)
+				throws IOException {
+			String key = null;
+			long docCount = 0;
+			boolean subAggregation = false;
+			boolean hasValue = false;
+			double value = 0;
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String name = parser.getCurrentName();
+				final JsonToken token = parser.nextToken();
+
+				if ("key".equals(name)) {
+					key = parser.getText();
+				} else if ("doc_count".equals(name)) {
+					docCount = parser.getLongValue();
+				} else if (!subAggregation && token == JsonToken.START_OBJECT
+						&& DateHistogramAggregation.isSubAggregation(name)) {
+					subAggregation = true;
+
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						final String field = parser.getCurrentName();
+						if (parser.nextToken().isNumeric() && "value".equals(field)) {
+							hasValue = true;
+							value = parser.getDoubleValue();
+						} else {
+							parser.skipChildren();
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+
+			if (!subAggregation) {
+				values.add(new GroupByResponse.Bucket(key, docCount));
+			} else if (hasValue) {
+				values.add(new GroupByResponse.Bucket(key, (long) value));
+			}
+		}
+	}
+}
@@ -15,7 +15,6 @@
  */
 package io.gravitee.repository.elasticsearch.monitoring;
 
-import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,8 +26,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.gravitee.repository.elasticsearch.AbstractElasticRepository;
 import io.gravitee.repository.elasticsearch.analytics.ElasticAnalyticsRepository;
+import io.gravitee.repository.elasticsearch.metrics.Phase;
+import io.gravitee.repository.elasticsearch.metrics.QueryMetrics;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
 import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHits;
+import io.gravitee.repository.elasticsearch.utils.TimestampParser;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.monitoring.MonitoringRepository;
 import io.gravitee.repository.monitoring.model.MonitoringResponse;
@@ -56,6 +58,8 @@ public class ElasticMonitoringRepository extends AbstractElasticRepository imple
      */
     private static final String ES_TYPE_NAME = "monitor";
 
+    private final static String METRICS_QUERY = "monitoring.query";
+
     private final static String FIELD_GATEWAY_NAME = "gateway";
     private final static String FIELD_TIMESTAMP = "@timestamp";
     private final static String FIELD_HOSTNAME = "hostname";
@@ -68,16 +72,23 @@ public class ElasticMonitoringRepository extends AbstractElasticRepository imple
 
     @Override
     public MonitoringResponse query(final String gatewayId) {
-    	final String query = this.createElasticsearchJsonQuery(gatewayId);
+        final QueryMetrics metrics = this.metrics(METRICS_QUERY);
+        final long start = System.nanoTime();
+
+    	final String query = metrics.time(Phase.RENDER, () -> this.createElasticsearchJsonQuery(gatewayId));
     	
         try {
-            final ESSearchResponse searchResponse = this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getTodayIndexName(), ES_TYPE_NAME, query);
+            final ESSearchResponse searchResponse = metrics.received(this.elasticsearchComponent.search(this.elasticsearchIndexUtil.getTodayIndexName(), ES_TYPE_NAME, query));
 
             final SearchHits hits = searchResponse.getSearchHits();
             if (hits != null && hits.getHits().size() > 0) {
-                return this.convert(hits.getHits().get(0).getSource());
+                final MonitoringResponse response = metrics.time(Phase.CONVERSION, () -> this.convert(hits.getHits().get(0).getSource()));
+                metrics.completed(start);
+                return response;
             }
+            metrics.completed(start);
         } catch(final TechnicalException exception) {
+            metrics.failed(exception);
         	logger.error("Impossible to make query for monitoring", exception);
         	return null;
         }
@@ -109,7 +120,7 @@ public class ElasticMonitoringRepository extends AbstractElasticRepository imple
 
         final MonitoringResponse monitoringResponse = new MonitoringResponse();
         monitoringResponse.setGatewayId(source.get(FIELD_GATEWAY_NAME).asText());
-        monitoringResponse.setTimestamp(ZonedDateTime.parse(source.get(FIELD_TIMESTAMP).asText()));
+        monitoringResponse.setTimestamp(TimestampParser.parseZoned(source.get(FIELD_TIMESTAMP).asText()));
         monitoringResponse.setHostname(source.get(FIELD_HOSTNAME).asText());
 
         // OS
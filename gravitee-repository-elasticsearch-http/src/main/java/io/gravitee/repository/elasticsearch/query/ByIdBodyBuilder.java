@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Build the search body finding a document by its id.
+ *
+ * @author GraviteeSource Team
+ */
+public class ByIdBodyBuilder extends SearchBodyBuilder<String> implements StoredSearchBuilder<String> {
+
+	@Override
+	protected void write(final JsonGenerator generator, final String id) throws IOException {
+		generator.writeStartObject();
+		generator.writeObjectFieldStart("query");
+		generator.writeObjectFieldStart("term");
+		generator.writeStringField("_id", id);
+		generator.writeEndObject();
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	@Override
+	public StoredSearch stored(final String id) {
+		return new StoredSearch(SearchTemplate.BY_ID, Collections.<String, Object>singletonMap("id", id));
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.analytics.query.count.CountQuery;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Build the search body of a {@link CountQuery}.
+ *
+ * @author GraviteeSource Team
+ */
+public class CountBodyBuilder extends SearchBodyBuilder<CountQuery> implements StoredSearchBuilder<CountQuery> {
+
+	@Override
+	protected void write(final JsonGenerator generator, final CountQuery query) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("size", 0);
+		writeFilters(generator, query.query(), query.root(), query.timeRange());
+		generator.writeEndObject();
+	}
+
+	@Override
+	public StoredSearch stored(final CountQuery query) {
+		// The stored template always filters on the time range
+		if (query.timeRange() == null) {
+			return null;
+		}
+
+		final Map<String, Object> params = new HashMap<>();
+		if (query.query() != null) {
+			params.put("query", query.query().filter());
+		}
+		if (query.root() != null) {
+			final Map<String, Object> root = new HashMap<>();
+			root.put("field", query.root().field());
+			root.put("id", query.root().id());
+			params.put("root", root);
+		}
+		params.put("from", query.timeRange().range().from());
+		params.put("to", query.timeRange().range().to());
+
+		return new StoredSearch(SearchTemplate.COUNT, params);
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+
+import java.io.IOException;
+
+/**
+ * Build the search body of a {@link DateHistogramQuery}.
+ *
+ * @author GraviteeSource Team
+ */
+public class DateHistogramBodyBuilder extends SearchBodyBuilder<DateHistogramQuery> {
+
+	@Override
+	protected void write(final JsonGenerator generator, final DateHistogramQuery query) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("size", 0);
+		writeFilters(generator, query.query(), query.root(), query.timeRange());
+		writeDateHistogram(generator, query.timeRange(), query.aggregations());
+		generator.writeEndObject();
+	}
+}
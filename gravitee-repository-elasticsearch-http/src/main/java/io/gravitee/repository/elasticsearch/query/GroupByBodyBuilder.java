@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.analytics.query.Range;
+import io.gravitee.repository.analytics.query.Sort;
+import io.gravitee.repository.analytics.query.SortType;
+import io.gravitee.repository.analytics.query.groupby.GroupByQuery;
+
+import java.io.IOException;
+
+/**
+ * Build the search body of a {@link GroupByQuery}: a range aggregation when the query has groups, the top terms of the
+ * field otherwise.
+ *
+ * @author GraviteeSource Team
+ */
+public class GroupByBodyBuilder extends SearchBodyBuilder<GroupByQuery> {
+
+	/**
+	 * Number of terms returned.
+	 */
+	private static final int TERMS_SIZE = 20;
+
+	@Override
+	protected void write(final JsonGenerator generator, final GroupByQuery query) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("size", 0);
+		writeFilters(generator, query.query(), query.root(), query.timeRange());
+
+		generator.writeObjectFieldStart("aggregations");
+		if (!query.groups().isEmpty()) {
+			writeRanges(generator, query);
+		} else {
+			writeTerms(generator, query);
+		}
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+	}
+
+	private static void writeRanges(final JsonGenerator generator, final GroupByQuery query) throws IOException {
+		generator.writeObjectFieldStart("by_" + query.field() + "_range");
+		generator.writeObjectFieldStart("range");
+		generator.writeStringField("field", query.field());
+		generator.writeArrayFieldStart("ranges");
+		for (Range<Double> range : query.groups()) {
+			generator.writeStartObject();
+			generator.writeNumberField("from", range.from());
+			generator.writeNumberField("to", range.to());
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	private static void writeTerms(final JsonGenerator generator, final GroupByQuery query) throws IOException {
+		final Sort sort = query.sort();
+
+		generator.writeObjectFieldStart("by_" + query.field());
+		generator.writeObjectFieldStart("terms");
+		generator.writeStringField("field", query.field());
+		generator.writeNumberField("size", TERMS_SIZE);
+		if (sort != null) {
+			generator.writeObjectFieldStart("order");
+			generator.writeStringField(sort.getType().name().toLowerCase() + '_' + sort.getField(),
+					sort.getOrder().name().toLowerCase());
+			generator.writeEndObject();
+		}
+		generator.writeEndObject();
+
+		if (sort != null && sort.getType() == SortType.AVG) {
+			generator.writeObjectFieldStart("aggregations");
+			generator.writeObjectFieldStart("avg_" + sort.getField());
+			generator.writeObjectFieldStart("avg");
+			generator.writeStringField("field", sort.getField());
+			generator.writeEndObject();
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+
+		generator.writeEndObject();
+	}
+}
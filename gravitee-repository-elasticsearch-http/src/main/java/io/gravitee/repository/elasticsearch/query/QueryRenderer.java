@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+/**
+ * How the search bodies are rendered.
+ *
+ * @author GraviteeSource Team
+ */
+public enum QueryRenderer {
+
+	/**
+	 * Typed builders streaming the JSON body into a byte buffer.
+	 */
+	BUILDER,
+
+	/**
+	 * FreeMarker templates, kept as a fallback.
+	 */
+	FREEMARKER;
+
+	/**
+	 * Get the renderer from its configuration value.
+	 *
+	 * @param value the renderer name, case insensitive
+	 * @return the renderer
+	 */
+	public static QueryRenderer of(final String value) {
+		return QueryRenderer.valueOf(value.trim().toUpperCase());
+	}
+}
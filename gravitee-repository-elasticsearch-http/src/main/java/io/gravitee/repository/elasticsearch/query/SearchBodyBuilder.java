@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.analytics.query.Aggregation;
+import io.gravitee.repository.analytics.query.QueryFilter;
+import io.gravitee.repository.analytics.query.RootFilter;
+import io.gravitee.repository.analytics.query.TimeRangeFilter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.rxjava.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Build the JSON body of an Elasticsearch search.
+ *
+ * The body is streamed with a Jackson generator straight into a byte buffer. Values coming from the query are always
+ * written as JSON strings or numbers, so they can not alter the structure of the body.
+ *
+ * Builders are stateless and can be shared.
+ *
+ * @param <Q> the type of query
+ * @author GraviteeSource Team
+ */
+public abstract class SearchBodyBuilder<Q> {
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	private static final int INITIAL_CAPACITY = 512;
+
+	protected static final String TIMESTAMP_FIELD = "@timestamp";
+
+	/**
+	 * Build the body of the search.
+	 *
+	 * @param query the query
+	 * @return the JSON body, UTF-8 encoded
+	 */
+	public Buffer build(final Q query) {
+		final ByteBuf body = Unpooled.buffer(INITIAL_CAPACITY);
+
+		try (OutputStream out = new ByteBufOutputStream(body);
+			 JsonGenerator generator = FACTORY.createGenerator(out)) {
+			this.write(generator, query);
+		} catch (IOException ioe) {
+			// Nothing is written outside of memory, only a broken builder can fail
+			throw new IllegalStateException("Impossible to build the search body", ioe);
+		}
+
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(body));
+	}
+
+	/**
+	 * Write the body of the search.
+	 *
+	 * @param generator the generator to write to
+	 * @param query the query
+	 * @throws IOException when the generator fails
+	 */
+	protected abstract void write(JsonGenerator generator, Q query) throws IOException;
+
+	/**
+	 * Write a <code>bool</code> query whose filters are the query string, the root and the time range, each one being
+	 * optional.
+	 */
+	protected static void writeFilters(final JsonGenerator generator, final QueryFilter filter, final RootFilter root,
+									   final TimeRangeFilter timeRange) throws IOException {
+		generator.writeObjectFieldStart("query");
+		generator.writeObjectFieldStart("bool");
+		generator.writeArrayFieldStart("filter");
+
+		if (filter != null) {
+			generator.writeStartObject();
+			generator.writeObjectFieldStart("query_string");
+			generator.writeStringField("query", filter.filter());
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+
+		if (root != null) {
+			writeTerm(generator, root.field(), root.id());
+		}
+
+		if (timeRange != null) {
+			generator.writeStartObject();
+			generator.writeObjectFieldStart("range");
+			generator.writeObjectFieldStart(TIMESTAMP_FIELD);
+			generator.writeNumberField("from", timeRange.range().from());
+			generator.writeNumberField("to", timeRange.range().to());
+			generator.writeBooleanField("include_lower", true);
+			generator.writeBooleanField("include_upper", true);
+			generator.writeEndObject();
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Write a <code>term</code> query, as an element of an array.
+	 */
+	protected static void writeTerm(final JsonGenerator generator, final String field, final String value)
+			throws IOException {
+		generator.writeStartObject();
+		generator.writeObjectFieldStart("term");
+		generator.writeStringField(field, value);
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Write the <code>by_date</code> histogram aggregation over the time range, with an empty bucket for each interval
+	 * without document, and its sub aggregations.
+	 */
+	protected static void writeDateHistogram(final JsonGenerator generator, final TimeRangeFilter timeRange,
+											 final List<Aggregation> aggregations) throws IOException {
+		generator.writeObjectFieldStart("aggregations");
+		generator.writeObjectFieldStart("by_date");
+
+		generator.writeObjectFieldStart("date_histogram");
+		generator.writeStringField("field", TIMESTAMP_FIELD);
+		generator.writeStringField("interval", timeRange.interval().toMillis() + "ms");
+		generator.writeNumberField("min_doc_count", 0);
+		generator.writeObjectFieldStart("extended_bounds");
+		generator.writeNumberField("min", timeRange.range().from());
+		generator.writeNumberField("max", timeRange.range().to());
+		generator.writeEndObject();
+		generator.writeEndObject();
+
+		if (!aggregations.isEmpty()) {
+			generator.writeObjectFieldStart("aggregations");
+			for (Aggregation aggregation : aggregations) {
+				switch (aggregation.type()) {
+					case AVG:
+						generator.writeObjectFieldStart("avg_" + aggregation.field());
+						generator.writeObjectFieldStart("avg");
+						break;
+					case FIELD:
+						generator.writeObjectFieldStart("by_" + aggregation.field());
+						generator.writeObjectFieldStart("terms");
+						break;
+					default:
+						continue;
+				}
+				generator.writeStringField("field", aggregation.field());
+				generator.writeEndObject();
+				generator.writeEndObject();
+			}
+			generator.writeEndObject();
+		}
+
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Write the pagination, pages starting at 1.
+	 */
+	protected static void writePage(final JsonGenerator generator, final int page, final int size) throws IOException {
+		generator.writeNumberField("from", (page - 1) * size);
+		generator.writeNumberField("size", size);
+	}
+
+	/**
+	 * Write the sort on the timestamp, newest first.
+	 */
+	protected static void writeTimestampSort(final JsonGenerator generator) throws IOException {
+		generator.writeArrayFieldStart("sort");
+		generator.writeStartObject();
+		generator.writeObjectFieldStart(TIMESTAMP_FIELD);
+		generator.writeStringField("order", "desc");
+		generator.writeEndObject();
+		generator.writeEndObject();
+		generator.writeEndArray();
+	}
+}
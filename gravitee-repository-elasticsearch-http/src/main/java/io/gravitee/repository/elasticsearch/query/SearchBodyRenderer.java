@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
+import io.vertx.rxjava.core.buffer.Buffer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+
+/**
+ * Render the search bodies, with the typed builders or with the FreeMarker templates depending on the configured
+ * {@link QueryRenderer}.
+ *
+ * @author GraviteeSource Team
+ */
+public class SearchBodyRenderer {
+
+	/**
+	 * Elasticsearch configuration.
+	 */
+	@Autowired
+	private ElasticConfiguration configuration;
+
+	/**
+	 * Templating component.
+	 */
+	@Autowired
+	private FreeMarkerComponent freeMarkerComponent;
+
+	private QueryRenderer renderer;
+
+	@PostConstruct
+	private void init() {
+		this.renderer = QueryRenderer.of(this.configuration.getQueryRenderer());
+	}
+
+	/**
+	 * Render a search body.
+	 *
+	 * @param builder the builder of the body
+	 * @param templateName the FreeMarker template of the body
+	 * @param name the name of the value in the template
+	 * @param value the value rendered, usually the query
+	 * @return the JSON body, UTF-8 encoded
+	 */
+	public <Q> Buffer render(final SearchBodyBuilder<Q> builder, final String templateName, final String name,
+							 final Q value) {
+		if (this.renderer == QueryRenderer.FREEMARKER) {
+			return this.freeMarkerComponent.generateToBuffer(templateName,
+					Collections.<String, Object>singletonMap(name, value));
+		}
+
+		return builder.build(value);
+	}
+}
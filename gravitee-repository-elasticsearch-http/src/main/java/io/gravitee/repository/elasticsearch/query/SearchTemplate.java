@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Search bodies which can be registered in Elasticsearch as stored mustache search templates.
+ *
+ * The id of a template embeds a hash of its content: a changed template is registered under a new id and never
+ * mixed up with the version already stored in the cluster.
+ *
+ * @author GraviteeSource Team
+ */
+public enum SearchTemplate {
+
+	/**
+	 * Count of the requests in a time range, see {@link CountBodyBuilder}.
+	 */
+	COUNT("count"),
+
+	/**
+	 * A document found by its id, see {@link ByIdBodyBuilder}.
+	 */
+	BY_ID("by-id"),
+
+	/**
+	 * A page of the health-checks of an API, see {@link io.gravitee.repository.elasticsearch.query.healthcheck.LogsBodyBuilder}.
+	 */
+	HEALTH_LOGS("healthcheck-logs");
+
+	/**
+	 * The name of the directory containing the mustache templates.
+	 */
+	private static final String DIRECTORY_NAME = "/mustache/";
+
+	private static final String ID_PREFIX = "gravitee-";
+
+	private static final int HASH_LENGTH = 12;
+
+	private final String source;
+
+	private final String id;
+
+	SearchTemplate(final String name) {
+		this.source = load(DIRECTORY_NAME + name + ".mustache");
+		this.id = ID_PREFIX + name + '-' + hash(this.source);
+	}
+
+	/**
+	 * @return the id of the stored template, versioned by its content
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the mustache source of the template
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	private static String load(final String resource) {
+		try (InputStream in = SearchTemplate.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Search template " + resource + " not found");
+			}
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] chunk = new byte[1024];
+			int read;
+			while ((read = in.read(chunk)) != -1) {
+				out.write(chunk, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException ioe) {
+			throw new IllegalStateException("Impossible to load search template " + resource, ioe);
+		}
+	}
+
+	private static String hash(final String source) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder hash = new StringBuilder(HASH_LENGTH);
+			for (int i = 0; hash.length() < HASH_LENGTH; i++) {
+				hash.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException nsae) {
+			// Every JVM supports SHA-256
+			throw new IllegalStateException(nsae);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A search performed with a stored search template: the id of the template and its parameters.
+ *
+ * @author GraviteeSource Team
+ */
+public class StoredSearch {
+
+	private final SearchTemplate template;
+
+	private final Map<String, Object> params;
+
+	public StoredSearch(final SearchTemplate template, final Map<String, Object> params) {
+		this.template = template;
+		this.params = Collections.unmodifiableMap(params);
+	}
+
+	public SearchTemplate getTemplate() {
+		return template;
+	}
+
+	public Map<String, Object> getParams() {
+		return params;
+	}
+
+	@Override
+	public String toString() {
+		return template.getId() + ' ' + params;
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+/**
+ * A builder whose search body also exists as a stored search template.
+ *
+ * @param <Q> the type of query
+ * @author GraviteeSource Team
+ */
+public interface StoredSearchBuilder<Q> {
+
+	/**
+	 * Get the stored search equivalent to the body built for a query.
+	 *
+	 * @param query the query
+	 * @return the stored search, or null if the template can not express this query
+	 */
+	StoredSearch stored(Q query);
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query.healthcheck;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.elasticsearch.query.SearchBodyBuilder;
+
+import java.io.IOException;
+
+/**
+ * Build the search body of the health-check queries computing, for the top values of a field, a result over the last
+ * minute, hour, day, week and month.
+ *
+ * @param <Q> the type of query
+ * @author GraviteeSource Team
+ */
+public abstract class AbstractRangesBodyBuilder<Q> extends SearchBodyBuilder<Q> {
+
+	private static final String[] RANGES = { "1m", "1h", "1d", "1w", "1M" };
+
+	/**
+	 * Write the body.
+	 *
+	 * @param generator the generator to write to
+	 * @param api the id of the API
+	 * @param field the field whose top values are returned
+	 */
+	protected void write(final JsonGenerator generator, final String api, final String field) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("size", 0);
+
+		generator.writeObjectFieldStart("query");
+		generator.writeObjectFieldStart("bool");
+		generator.writeArrayFieldStart("filter");
+		writeTerm(generator, "api", api);
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeEndObject();
+
+		generator.writeObjectFieldStart("aggregations");
+		generator.writeObjectFieldStart("terms");
+		writeTopTerms(generator, field);
+
+		generator.writeObjectFieldStart("aggregations");
+		generator.writeObjectFieldStart("ranges");
+		generator.writeObjectFieldStart("date_range");
+		generator.writeStringField("field", TIMESTAMP_FIELD);
+		generator.writeArrayFieldStart("ranges");
+		for (String range : RANGES) {
+			generator.writeStartObject();
+			generator.writeStringField("key", range);
+			generator.writeStringField("from", "now-" + range);
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeBooleanField("keyed", false);
+		generator.writeEndObject();
+
+		generator.writeObjectFieldStart("aggregations");
+		generator.writeObjectFieldStart("results");
+		this.writeResults(generator);
+		generator.writeEndObject();
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Write the aggregation computing the result of each time range.
+	 *
+	 * @param generator the generator to write to, inside the <code>results</code> aggregation
+	 */
+	protected abstract void writeResults(JsonGenerator generator) throws IOException;
+
+	/**
+	 * Write a <code>terms</code> aggregation on the 10 most frequent values of a field.
+	 */
+	protected static void writeTopTerms(final JsonGenerator generator, final String field) throws IOException {
+		generator.writeObjectFieldStart("terms");
+		generator.writeStringField("field", field);
+		generator.writeNumberField("size", 10);
+		generator.writeArrayFieldStart("order");
+		generator.writeStartObject();
+		generator.writeStringField("_count", "desc");
+		generator.writeEndObject();
+		generator.writeStartObject();
+		generator.writeStringField("_term", "asc");
+		generator.writeEndObject();
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+}
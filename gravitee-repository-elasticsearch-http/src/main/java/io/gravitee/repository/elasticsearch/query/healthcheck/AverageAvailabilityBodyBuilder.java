@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query.healthcheck;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.healthcheck.query.availability.AvailabilityQuery;
+
+import java.io.IOException;
+
+/**
+ * Build the search body of an {@link AvailabilityQuery}.
+ *
+ * @author GraviteeSource Team
+ */
+public class AverageAvailabilityBodyBuilder extends AbstractRangesBodyBuilder<AvailabilityQuery> {
+
+	@Override
+	protected void write(final JsonGenerator generator, final AvailabilityQuery query) throws IOException {
+		this.write(generator, query.root().id(), String.valueOf(query.field()).toLowerCase());
+	}
+
+	@Override
+	protected void writeResults(final JsonGenerator generator) throws IOException {
+		writeTopTerms(generator, "available");
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query.healthcheck;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.repository.elasticsearch.query.SearchBodyBuilder;
+import io.gravitee.repository.elasticsearch.query.SearchTemplate;
+import io.gravitee.repository.elasticsearch.query.StoredSearch;
+import io.gravitee.repository.elasticsearch.query.StoredSearchBuilder;
+import io.gravitee.repository.healthcheck.query.log.LogsQuery;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Build the search body of a {@link LogsQuery}: a page of the health-checks of an API, newest first.
+ *
+ * @author GraviteeSource Team
+ */
+public class LogsBodyBuilder extends SearchBodyBuilder<LogsQuery> implements StoredSearchBuilder<LogsQuery> {
+
+	@Override
+	protected void write(final JsonGenerator generator, final LogsQuery query) throws IOException {
+		generator.writeStartObject();
+		writePage(generator, query.page(), query.size());
+
+		generator.writeObjectFieldStart("query");
+		generator.writeObjectFieldStart("bool");
+		generator.writeArrayFieldStart("filter");
+		writeTerm(generator, "api", query.root().id());
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeEndObject();
+
+		writeTimestampSort(generator);
+		generator.writeEndObject();
+	}
+
+	@Override
+	public StoredSearch stored(final LogsQuery query) {
+		final Map<String, Object> params = new HashMap<>();
+		params.put("from", (query.page() - 1) * query.size());
+		params.put("size", query.size());
+		params.put("api", query.root().id());
+
+		return new StoredSearch(SearchTemplate.HEALTH_LOGS, params);
+	}
+}
@@ -18,17 +18,23 @@ package io.gravitee.repository.elasticsearch.spring;
 import io.gravitee.repository.analytics.api.AnalyticsRepository;
 import io.gravitee.repository.elasticsearch.ElasticsearchComponent;
 import io.gravitee.repository.elasticsearch.analytics.ElasticAnalyticsRepository;
+import io.gravitee.repository.elasticsearch.analytics.cache.AnalyticsQueryCache;
+import io.gravitee.repository.elasticsearch.analytics.cache.DateHistogramDeltaCache;
 import io.gravitee.repository.elasticsearch.analytics.query.CountQueryCommand;
 import io.gravitee.repository.elasticsearch.analytics.query.DateHistogramQueryCommand;
 import io.gravitee.repository.elasticsearch.analytics.query.GroupByQueryCommand;
 import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
 import io.gravitee.repository.elasticsearch.log.ElasticLogRepository;
+import io.gravitee.repository.elasticsearch.metrics.LoggingMetricsRegistry;
+import io.gravitee.repository.elasticsearch.metrics.MetricsRegistry;
 import io.gravitee.repository.elasticsearch.monitoring.ElasticMonitoringRepository;
+import io.gravitee.repository.elasticsearch.query.SearchBodyRenderer;
 import io.gravitee.repository.elasticsearch.utils.ElasticsearchIndexUtil;
 import io.gravitee.repository.elasticsearch.utils.FreeMarkerComponent;
 import io.gravitee.repository.monitoring.MonitoringRepository;
 import io.vertx.rxjava.core.Vertx;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
@@ -59,6 +65,16 @@ public class AnalyticsRepositoryConfiguration {
         return new ElasticAnalyticsRepository();
     }
     
+    @Bean
+    public AnalyticsQueryCache analyticsQueryCache() {
+        return new AnalyticsQueryCache();
+    }
+
+    @Bean
+    public DateHistogramDeltaCache dateHistogramDeltaCache() {
+        return new DateHistogramDeltaCache();
+    }
+
     @Bean
     public CountQueryCommand countQueryCommand() {
         return new CountQueryCommand();
@@ -83,12 +99,27 @@ public class AnalyticsRepositoryConfiguration {
     public FreeMarkerComponent freeMarckerComponent() {
         return new FreeMarkerComponent();
     }
+
+    @Bean
+    public SearchBodyRenderer searchBodyRenderer() {
+        return new SearchBodyRenderer();
+    }
     
     @Bean
     public ElasticsearchComponent elasticsearchComponent() {
         return new ElasticsearchComponent();
     }
 
+    /**
+     * Only declared when the query metrics are logged: without any registry the queries are not measured, and
+     * another registry can be declared instead.
+     */
+    @Bean
+    @Conditional(QueryMetricsCondition.class)
+    public MetricsRegistry metricsRegistry(ElasticConfiguration configuration, Vertx vertx) {
+        return new LoggingMetricsRegistry(vertx, configuration.getQueryMetricsInterval());
+    }
+
     @Bean
     public ElasticLogRepository elasticLogRepository() {
     	return new ElasticLogRepository(); 
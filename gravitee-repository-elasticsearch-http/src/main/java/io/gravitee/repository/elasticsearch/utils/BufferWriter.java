@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.utils;
+
+import io.vertx.rxjava.core.buffer.Buffer;
+
+import java.io.Writer;
+
+/**
+ * Writer encoding characters in UTF-8 straight into a {@link Buffer}.
+ *
+ * Characters are encoded into a scratch array shared by the writers of the same thread, and appended to the buffer
+ * when it is full or when the writer is flushed. A writer must only be used by the thread which created it, and must
+ * be closed to append the last characters.
+ *
+ * @author GraviteeSource Team
+ */
+public class BufferWriter extends Writer {
+
+    private static final int SCRATCH_SIZE = 8192;
+
+    /**
+     * Encoded characters are at most 4 bytes long.
+     */
+    private static final int MAX_CHAR_SIZE = 4;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
+    private final Buffer buffer;
+
+    private final byte[] scratch;
+
+    private int position;
+
+    /**
+     * High surrogate waiting for its low surrogate, 0 if none.
+     */
+    private char highSurrogate;
+
+    public BufferWriter(final Buffer buffer) {
+        this.buffer = buffer;
+        this.scratch = SCRATCH.get();
+    }
+
+    @Override
+    public void write(final int c) {
+        this.encode((char) c);
+    }
+
+    @Override
+    public void write(final char[] chars, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            this.encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            this.encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (this.position > 0) {
+            this.buffer.getDelegate().appendBytes(this.scratch, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            this.scratch[this.position++] = '?';
+        }
+        this.flush();
+    }
+
+    private void encode(final char c) {
+        if (this.position > SCRATCH_SIZE - MAX_CHAR_SIZE) {
+            this.flush();
+        }
+
+        if (this.highSurrogate != 0) {
+            final char high = this.highSurrogate;
+            this.highSurrogate = 0;
+
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                this.scratch[this.position++] = (byte) (0xF0 | (codePoint >> 18));
+                this.scratch[this.position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                this.scratch[this.position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                this.scratch[this.position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+
+            // Unpaired surrogate, replaced like String.getBytes does
+            this.scratch[this.position++] = '?';
+            if (this.position > SCRATCH_SIZE - MAX_CHAR_SIZE) {
+                this.flush();
+            }
+        }
+
+        if (c < 0x80) {
+            this.scratch[this.position++] = (byte) c;
+        } else if (c < 0x800) {
+            this.scratch[this.position++] = (byte) (0xC0 | (c >> 6));
+            this.scratch[this.position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            this.scratch[this.position++] = '?';
+        } else {
+            this.scratch[this.position++] = (byte) (0xE0 | (c >> 12));
+            this.scratch[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            this.scratch[this.position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+}
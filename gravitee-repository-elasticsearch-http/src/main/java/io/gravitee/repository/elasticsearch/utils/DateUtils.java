@@ -15,6 +15,7 @@
  */
 package io.gravitee.repository.elasticsearch.utils;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -59,4 +60,43 @@ public final class DateUtils {
 
         return indices;
     }
+
+    /**
+     * Split a time range into the days of the Elasticsearch daily indexes.
+     * Used default system timezone.
+     * @param from timestamp for the start range time
+     * @param to timestamp for the end range time
+     * @return the start and end timestamps, both inclusive, of each day of the range
+     */
+    public static List<long[]> dailyRanges(final long from, final long to) {
+        final List<long[]> ranges = new ArrayList<>();
+        final ZoneId zone = ZoneId.systemDefault();
+
+        long start = from;
+        LocalDate day = Instant.ofEpochMilli(from).atZone(zone).toLocalDate();
+
+        while (start <= to) {
+            day = day.plus(1, ChronoUnit.DAYS);
+            final long end = Math.min(day.atStartOfDay(zone).toInstant().toEpochMilli() - 1, to);
+            ranges.add(new long[] { start, end });
+            start = end + 1;
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Check whether a time range covers exactly one day of the Elasticsearch daily indexes.
+     * Used default system timezone.
+     * @param from timestamp for the start range time
+     * @param to timestamp for the end range time, inclusive
+     * @return true if the range starts at the start of a day and ends at the end of the same day
+     */
+    public static boolean isWholeDay(final long from, final long to) {
+        final ZoneId zone = ZoneId.systemDefault();
+        final LocalDate day = Instant.ofEpochMilli(from).atZone(zone).toLocalDate();
+
+        return day.atStartOfDay(zone).toInstant().toEpochMilli() == from
+                && day.plus(1, ChronoUnit.DAYS).atStartOfDay(zone).toInstant().toEpochMilli() - 1 == to;
+    }
 }
@@ -15,19 +15,25 @@
  */
 package io.gravitee.repository.elasticsearch.utils;
 
+import freemarker.cache.StrongCacheStorage;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import io.vertx.rxjava.core.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility Spring been that encapsulates FreeMarker tools. 
@@ -46,9 +52,24 @@ public class FreeMarkerComponent {
      */
     private static final String DIRECTORY_NAME = "/freemarker";
 
+    /**
+     * Extension of the freemarker templates.
+     */
+    private static final String TEMPLATE_EXTENSION = ".ftl";
+
+    /**
+     * Initial size of a buffer rendered from a template which was never rendered.
+     */
+    private static final int DEFAULT_SIZE_HINT = 512;
+
     /** Freemarker configuration */
     private Configuration configuration;
 
+    /**
+     * Size of the last rendering of each template, used to size the buffers.
+     */
+    private final Map<String, Integer> sizeHints = new ConcurrentHashMap<>();
+
     /**
      * Initialize FreeMarker.
      */
@@ -60,6 +81,72 @@ public class FreeMarkerComponent {
         this.configuration.setLocale(Locale.ENGLISH);
         this.configuration.setNumberFormat("computer");
         this.configuration.setClassLoaderForTemplateLoading(Thread.currentThread().getContextClassLoader(), DIRECTORY_NAME);
+
+        // Templates are packaged with the repository: keep them all and never check them for changes
+        this.configuration.setCacheStorage(new StrongCacheStorage());
+        this.configuration.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+        this.configuration.setLocalizedLookup(false);
+
+        this.preloadTemplates();
+    }
+
+    /**
+     * Parse all the templates of this module, so that the first requests do not pay for it and a broken template
+     * prevents the repository from starting. The templates of the other modules of the classpath are left alone.
+     */
+    private void preloadTemplates() {
+        final String location = templatesLocation();
+        if (location == null) {
+            logger.debug("Location of the FreeMarker templates is unknown, they are loaded on first use");
+            return;
+        }
+
+        final Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver(Thread.currentThread().getContextClassLoader())
+                    .getResources(location + "/**/*" + TEMPLATE_EXTENSION);
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Impossible to list the FreeMarker templates", exception);
+        }
+
+        for (final Resource resource : resources) {
+            final String templateName = templateName(resource);
+            try {
+                this.configuration.getTemplate(templateName);
+            } catch (final IOException exception) {
+                logger.error("Impossible to load template {}", templateName, exception);
+                throw new IllegalStateException("Impossible to load template " + templateName, exception);
+            }
+        }
+
+        logger.debug("{} FreeMarker templates loaded", resources.length);
+    }
+
+    /**
+     * Get the location of the template directory within the jar or the directory this class is loaded from.
+     *
+     * @return the location, or null if the origin of this class is unknown
+     */
+    private static String templatesLocation() {
+        final CodeSource codeSource = FreeMarkerComponent.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+
+        final String location = codeSource.getLocation().toString();
+        if (location.endsWith(".jar")) {
+            return "jar:" + location + '!' + DIRECTORY_NAME;
+        }
+        return (location.endsWith("/") ? location.substring(0, location.length() - 1) : location) + DIRECTORY_NAME;
+    }
+
+    private static String templateName(final Resource resource) {
+        try {
+            final String path = resource.getURL().getPath();
+            return path.substring(path.lastIndexOf(DIRECTORY_NAME + '/') + DIRECTORY_NAME.length() + 1);
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Impossible to resolve the FreeMarker template " + resource, exception);
+        }
     }
 
     /**
@@ -87,4 +174,38 @@ public class FreeMarkerComponent {
     public String generateFromTemplate(final String templateName) {
         return this.generateFromTemplate(templateName, Collections.emptyMap());
     }
+
+    /**
+     * Generate UTF-8 bytes from a FreeMarker template, appended to a buffer.
+     * Characters are encoded while the template is rendered, without building an intermediate string.
+     * @param templateName name of the FreeMarker template
+     * @param data data of the template
+     * @param buffer the buffer to append to
+     * @return the buffer
+     */
+    public Buffer generateInto(final String templateName, final Map<String, Object> data, final Buffer buffer) {
+        final int start = buffer.length();
+
+        try (final BufferWriter output = new BufferWriter(buffer)) {
+            final Template template = this.configuration.getTemplate(templateName);
+            template.process(data, output);
+        } catch (final IOException | TemplateException exception) {
+            logger.error("Impossible to generate from template {}", templateName, exception);
+            throw new IllegalArgumentException("Impossible to generate from template " + templateName, exception);
+        }
+
+        this.sizeHints.put(templateName, buffer.length() - start);
+        return buffer;
+    }
+
+    /**
+     * Generate UTF-8 bytes from a FreeMarker template, in a buffer sized after the previous renderings of the template.
+     * @param templateName name of the FreeMarker template
+     * @param data data of the template
+     * @return the buffer generated from the template
+     */
+    public Buffer generateToBuffer(final String templateName, final Map<String, Object> data) {
+        final int sizeHint = this.sizeHints.getOrDefault(templateName, DEFAULT_SIZE_HINT);
+        return this.generateInto(templateName, data, Buffer.buffer(sizeHint));
+    }
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.utils;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Parser of the <code>@timestamp</code> fields of the documents, written with the
+ * <code>yyyy-MM-dd'T'HH:mm:ss.SSSXXX</code> layout.
+ *
+ * Unlike a shared <code>SimpleDateFormat</code>, it is safe to call from any thread, and it reads the characters in
+ * place, without allocating anything. The fraction of second is optional and may have from 1 to 9 digits, only the
+ * milliseconds being kept. The offset is either <code>Z</code>, <code>+HH:mm</code>, <code>+HHmm</code> or
+ * <code>+HH</code>.
+ *
+ * @author GraviteeSource Team
+ */
+public final class TimestampParser {
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Number of days from 0000-03-01 to 1970-01-01.
+     */
+    private static final int DAYS_0000_TO_1970 = 719_468;
+
+    private TimestampParser() {}
+
+    /**
+     * Parse a timestamp. The characters are copied first, prefer {@link #parse(char[], int, int)} on hot paths.
+     * @param text the timestamp
+     * @return the number of milliseconds since the epoch
+     * @throws IllegalArgumentException when the text does not follow the layout
+     */
+    public static long parse(final CharSequence text) {
+        final int length = text.length();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return parse(chars, 0, length);
+    }
+
+    /**
+     * Parse a timestamp, reading the characters in place.
+     * @param chars the characters holding the timestamp, such as the text buffer of a JSON parser
+     * @param offset the index of the first character of the timestamp
+     * @param length the number of characters of the timestamp
+     * @return the number of milliseconds since the epoch
+     * @throws IllegalArgumentException when the characters do not follow the layout
+     */
+    public static long parse(final char[] chars, final int offset, final int length) {
+        final int end = offset + length;
+        if (length < 20 || chars[offset + 4] != '-' || chars[offset + 7] != '-' || chars[offset + 10] != 'T'
+                || chars[offset + 13] != ':' || chars[offset + 16] != ':') {
+            throw invalid(chars, offset, length);
+        }
+
+        final int year = digits(chars, offset, 4);
+        final int month = digits(chars, offset + 5, 2);
+        final int day = digits(chars, offset + 8, 2);
+        final int hour = digits(chars, offset + 11, 2);
+        final int minute = digits(chars, offset + 14, 2);
+        final int second = digits(chars, offset + 17, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw invalid(chars, offset, length);
+        }
+
+        int i = offset + 19;
+
+        // Fraction of second, truncated to milliseconds
+        int millis = 0;
+        if (chars[i] == '.') {
+            final int start = ++i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                if (i - start < 3) {
+                    millis = millis * 10 + (chars[i] - '0');
+                }
+                i++;
+            }
+
+            final int count = i - start;
+            if (count == 0 || count > 9) {
+                throw invalid(chars, offset, length);
+            }
+            for (int scale = count; scale < 3; scale++) {
+                millis *= 10;
+            }
+        }
+
+        final int offsetSeconds = offsetSeconds(chars, i, end);
+        if (offsetSeconds == Integer.MIN_VALUE) {
+            throw invalid(chars, offset, length);
+        }
+
+        final long seconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3_600 + minute * 60 + second
+                - offsetSeconds;
+        return seconds * 1_000 + millis;
+    }
+
+    /**
+     * Parse a timestamp, keeping its offset.
+     * @param text the timestamp
+     * @return the date time, at the offset of the timestamp
+     * @throws IllegalArgumentException when the text does not follow the layout
+     */
+    public static ZonedDateTime parseZoned(final CharSequence text) {
+        final int length = text.length();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+
+        final long timestamp = parse(chars, 0, length);
+        int zone = length;
+        while (zone > 0 && chars[zone - 1] != 'Z' && chars[zone - 1] != '+' && chars[zone - 1] != '-') {
+            zone--;
+        }
+
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestamp),
+                ZoneOffset.ofTotalSeconds(offsetSeconds(chars, zone - 1, length)));
+    }
+
+    /**
+     * Read the offset of a timestamp.
+     * @return the offset in seconds, or {@link Integer#MIN_VALUE} if it is invalid
+     */
+    private static int offsetSeconds(final char[] chars, final int start, final int end) {
+        if (start >= end) {
+            return Integer.MIN_VALUE;
+        }
+
+        final char sign = chars[start];
+        if (sign == 'Z') {
+            return (start + 1 == end) ? 0 : Integer.MIN_VALUE;
+        }
+        if (sign != '+' && sign != '-') {
+            return Integer.MIN_VALUE;
+        }
+
+        final int length = end - start - 1;
+        final int hours;
+        final int minutes;
+        if (length == 2) {
+            hours = digits(chars, start + 1, 2);
+            minutes = 0;
+        } else if (length == 4) {
+            hours = digits(chars, start + 1, 2);
+            minutes = digits(chars, start + 3, 2);
+        } else if (length == 5 && chars[start + 3] == ':') {
+            hours = digits(chars, start + 1, 2);
+            minutes = digits(chars, start + 4, 2);
+        } else {
+            return Integer.MIN_VALUE;
+        }
+
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) {
+            return Integer.MIN_VALUE;
+        }
+
+        final int seconds = hours * 3_600 + minutes * 60;
+        return (sign == '-') ? -seconds : seconds;
+    }
+
+    /**
+     * Read a fixed number of decimal digits.
+     * @return the value, or -1 if one of the characters is not a digit
+     */
+    private static int digits(final char[] chars, final int start, final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final char c = chars[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Number of days since the epoch of a date of the proleptic Gregorian calendar.
+     */
+    private static long epochDay(final int year, final int month, final int day) {
+        // Count the years from March, so that the leap day is the last day of the year
+        final int y = (month <= 2) ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * 146_097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static IllegalArgumentException invalid(final char[] chars, final int offset, final int length) {
+        return new IllegalArgumentException("Impossible to parse timestamp " + new String(chars, offset, length));
+    }
+}
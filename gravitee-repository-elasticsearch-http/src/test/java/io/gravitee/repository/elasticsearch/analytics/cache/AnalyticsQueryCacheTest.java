@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.DateRange;
+import io.gravitee.repository.analytics.query.DateRangeBuilder;
+import io.gravitee.repository.analytics.query.IntervalBuilder;
+import io.gravitee.repository.analytics.query.Query;
+import io.gravitee.repository.analytics.query.QueryBuilders;
+import io.gravitee.repository.analytics.query.count.CountQuery;
+import io.gravitee.repository.analytics.query.count.CountResponse;
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class AnalyticsQueryCacheTest {
+
+	private ElasticConfiguration configuration;
+
+	private AnalyticsQueryCache cache;
+
+	private final List<DateRange> performed = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		configuration = new ElasticConfiguration();
+		configuration.setCacheEnabled(true);
+		configuration.setCacheMaxSize(1024 * 1024);
+		configuration.setCacheLiveTtl(5000);
+		configuration.setCacheImmutableTtl(3600000);
+		configuration.setCacheSettleDelay(60000);
+		configuration.setCacheDailySplit(true);
+		configuration.setCacheDailyConcurrency(2);
+
+		cache = new AnalyticsQueryCache(configuration);
+	}
+
+	@Test
+	public void shouldPerformCountOnTheRequestedRange() {
+		final CountResponse response = cache.get(count(1500, 2250), this::count).toBlocking().value();
+
+		Assert.assertEquals(751, response.getCount());
+		Assert.assertEquals(1, performed.size());
+		Assert.assertEquals(1500L, (long) performed.get(0).from());
+		Assert.assertEquals(2250L, (long) performed.get(0).to());
+	}
+
+	@Test
+	public void shouldOnlyShareTheResponseOfTheSameRange() {
+		cache.get(count(1500, 2250), this::count).toBlocking().value();
+		final CountResponse same = cache.get(count(1500, 2250), this::count).toBlocking().value();
+		final CountResponse other = cache.get(count(1500, 2300), this::count).toBlocking().value();
+
+		Assert.assertEquals(751, same.getCount());
+		Assert.assertEquals(801, other.getCount());
+		Assert.assertEquals(2, performed.size());
+		Assert.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void shouldNotCacheCountEndingCloseToNow() {
+		final long now = System.currentTimeMillis();
+		cache.get(count(now - 3600000, now), this::count).toBlocking().value();
+		cache.get(count(now - 3600000, now), this::count).toBlocking().value();
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void shouldMergeTheResponsesOfEachDay() {
+		final ZoneId zone = ZoneId.systemDefault();
+		final long from = LocalDate.of(2017, 3, 1).atTime(10, 0).atZone(zone).toInstant().toEpochMilli();
+		final long to = LocalDate.of(2017, 3, 3).atTime(5, 30).atZone(zone).toInstant().toEpochMilli();
+
+		final CountResponse response = cache
+				.getByDay(count(from, to), this::count, responses -> {
+					final CountResponse merged = new CountResponse();
+					merged.setCount(responses.stream().mapToLong(CountResponse::getCount).sum());
+					return merged;
+				})
+				.toBlocking().value();
+
+		Assert.assertEquals(to - from + 1, response.getCount());
+		Assert.assertEquals(3, performed.size());
+		Assert.assertEquals(from, (long) performed.get(0).from());
+		Assert.assertEquals(to, (long) performed.get(2).to());
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void shouldPurgeExpiredResponses() throws InterruptedException {
+		configuration.setCacheImmutableTtl(1);
+		cache.get(count(1500, 2250), this::count).toBlocking().value();
+		final long weight = cache.weight();
+		Thread.sleep(5);
+
+		cache.get(count(1500, 2300), this::count).toBlocking().value();
+
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(weight, cache.weight());
+	}
+
+	private static CountQuery count(final long from, final long to) {
+		return QueryBuilders.count()
+				.timeRange(DateRangeBuilder.between(from, to), IntervalBuilder.interval(1000))
+				.build();
+	}
+
+	/**
+	 * Count one document per millisecond of the range.
+	 */
+	private Single<CountResponse> count(final Query<CountResponse> query) {
+		final DateRange range = ((CountQuery) query).timeRange().range();
+		performed.add(range);
+
+		final CountResponse response = new CountResponse();
+		response.setCount(range.to() - range.from() + 1);
+		return Single.just(response);
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.DateRange;
+import io.gravitee.repository.analytics.query.DateRangeBuilder;
+import io.gravitee.repository.analytics.query.IntervalBuilder;
+import io.gravitee.repository.analytics.query.Query;
+import io.gravitee.repository.analytics.query.QueryBuilders;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import io.gravitee.repository.elasticsearch.configuration.ElasticConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DateHistogramDeltaCacheTest {
+
+	private static final long INTERVAL = 60000;
+
+	private static final long SETTLE_DELAY = 60000;
+
+	private DateHistogramDeltaCache cache;
+
+	private final List<DateRange> performed = new ArrayList<>();
+
+	private long from;
+
+	private long now;
+
+	@Before
+	public void setUp() {
+		final ElasticConfiguration configuration = new ElasticConfiguration();
+		configuration.setCacheEnabled(true);
+		configuration.setCacheDeltaRefresh(true);
+		configuration.setCacheDeltaMaxEntries(16);
+		configuration.setCacheSettleDelay(SETTLE_DELAY);
+
+		cache = new DateHistogramDeltaCache(configuration);
+		now = System.currentTimeMillis();
+		from = Math.floorDiv(now, INTERVAL) * INTERVAL - 60 * INTERVAL;
+	}
+
+	@Test
+	public void shouldOnlyQueryTheBucketsAfterTheSettledOnes() {
+		get(from, now);
+		final DateHistogramResponse response = get(from, now);
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertTrue(performed.get(1).from() > from);
+		Assert.assertEquals(0, performed.get(1).from() % INTERVAL);
+		Assert.assertEquals(now, (long) performed.get(1).to());
+		assertBuckets(response, from, now);
+	}
+
+	@Test
+	public void shouldNotKeepTheBucketsNotSettledYet() {
+		get(from, now);
+		final long limit = System.currentTimeMillis() - SETTLE_DELAY;
+		final DateHistogramResponse response = get(from, now);
+
+		Assert.assertTrue(performed.get(1).from() <= limit);
+		for (Data data : response.values().get(0).data().get("hits")) {
+			final long call = (data.timestamp() < performed.get(1).from()) ? 1 : 2;
+			Assert.assertEquals(call, data.value().longValue());
+		}
+	}
+
+	@Test
+	public void shouldReuseTheSettledBucketsWhenFromMovesForward() {
+		get(from, now);
+		final long moved = from + 5 * INTERVAL;
+		final DateHistogramResponse response = get(moved, now);
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertTrue(performed.get(1).from() > moved);
+		assertBuckets(response, moved, now);
+	}
+
+	@Test
+	public void shouldQueryTheWholeRangeWhenFromMovesPastTheSettledBuckets() {
+		get(from, now);
+		final long moved = Math.floorDiv(now, INTERVAL) * INTERVAL;
+		final DateHistogramResponse response = get(moved, now);
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertEquals(moved, (long) performed.get(1).from());
+		assertBuckets(response, moved, now);
+	}
+
+	@Test
+	public void shouldQueryTheWholeRangeWhenToIsBeforeTheSettledBuckets() {
+		get(from, now);
+		final long to = from + 10 * INTERVAL - 1;
+		final DateHistogramResponse response = get(from, to);
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertEquals(from, (long) performed.get(1).from());
+		Assert.assertEquals(to, (long) performed.get(1).to());
+		assertBuckets(response, from, to);
+	}
+
+	@Test
+	public void shouldNotKeepFullySettledRanges() {
+		final long to = from + 10 * INTERVAL - 1;
+		get(from, to);
+		get(from, to);
+
+		Assert.assertEquals(2, performed.size());
+		Assert.assertEquals(from, (long) performed.get(1).from());
+	}
+
+	@Test
+	public void shouldTrimBucketsOutsideRange() {
+		final DateHistogramResponse response = new DateHistogramResponse();
+		final Bucket bucket = new Bucket("by_status", "status");
+		final List<Data> ok = new ArrayList<>();
+		final List<Data> ko = new ArrayList<>();
+
+		for (long timestamp = 0; timestamp < 5000; timestamp += 1000) {
+			response.timestamps().add(timestamp);
+			ok.add(new Data(timestamp, timestamp));
+		}
+		ko.add(new Data(4000, 1));
+		bucket.data().put("200", ok);
+		bucket.data().put("500", ko);
+		response.values().add(bucket);
+
+		final DateHistogramResponse trimmed = DateHistogramDeltaCache.trim(response, 1000, 4000);
+
+		Assert.assertEquals(3, trimmed.timestamps().size());
+		Assert.assertEquals(1000L, (long) trimmed.timestamps().get(0));
+		Assert.assertEquals(3, trimmed.values().get(0).data().get("200").size());
+		Assert.assertFalse(trimmed.values().get(0).data().containsKey("500"));
+		Assert.assertEquals(5, response.timestamps().size());
+	}
+
+	private DateHistogramResponse get(final long from, final long to) {
+		final DateHistogramQuery query = QueryBuilders.dateHistogram()
+				.timeRange(DateRangeBuilder.between(from, to), IntervalBuilder.interval(INTERVAL))
+				.root("api", "my-api")
+				.build();
+
+		return cache.get(query, this::histogram, DateHistogramDeltaCacheTest::merge).toBlocking().value();
+	}
+
+	/**
+	 * One hit per bucket, its count being the number of the query which returned it.
+	 */
+	private Single<DateHistogramResponse> histogram(final Query<DateHistogramResponse> query) {
+		final DateRange range = ((DateHistogramQuery) query).timeRange().range();
+		performed.add(range);
+
+		final DateHistogramResponse response = new DateHistogramResponse();
+		final List<Data> hits = new ArrayList<>();
+		for (long timestamp = range.from(); timestamp <= range.to(); timestamp += INTERVAL) {
+			response.timestamps().add(timestamp);
+			hits.add(new Data(timestamp, (long) performed.size()));
+		}
+
+		final Bucket bucket = new Bucket("hits", "api");
+		bucket.data().put("hits", hits);
+		response.values().add(bucket);
+		return Single.just(response);
+	}
+
+	private static DateHistogramResponse merge(final List<DateHistogramResponse> responses) {
+		final DateHistogramResponse merged = new DateHistogramResponse();
+		final List<Data> hits = new ArrayList<>();
+
+		for (DateHistogramResponse response : responses) {
+			merged.timestamps().addAll(response.timestamps());
+			hits.addAll(response.values().get(0).data().get("hits"));
+		}
+
+		final Bucket bucket = new Bucket("hits", "api");
+		bucket.data().put("hits", hits);
+		merged.values().add(bucket);
+		return merged;
+	}
+
+	private static void assertBuckets(final DateHistogramResponse response, final long from, final long to) {
+		Assert.assertEquals(Math.floorDiv(to - from, INTERVAL) + 1, response.timestamps().size());
+		for (int i = 0; i < response.timestamps().size(); i++) {
+			Assert.assertEquals(from + i * INTERVAL, (long) response.timestamps().get(i));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.cache;
+
+import io.gravitee.repository.analytics.query.AbstractQuery;
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.DateRange;
+import io.gravitee.repository.analytics.query.DateRangeBuilder;
+import io.gravitee.repository.analytics.query.IntervalBuilder;
+import io.gravitee.repository.analytics.query.Query;
+import io.gravitee.repository.analytics.query.QueryBuilders;
+import io.gravitee.repository.analytics.query.count.CountQuery;
+import io.gravitee.repository.analytics.query.count.CountResponse;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class NormalizedQueryTest {
+
+	@Test
+	public void shouldKeepTheRangeOfCount() {
+		final CountQuery query = count(1500, 2250);
+
+		final NormalizedQuery<CountResponse> normalized = NormalizedQuery.normalize(query);
+
+		Assert.assertSame(query, normalized.getQuery());
+		Assert.assertEquals(1500, normalized.getFrom());
+		Assert.assertEquals(2250, normalized.getTo());
+	}
+
+	@Test
+	public void shouldKeepTheKeyOfTheSameQuery() {
+		final String key = NormalizedQuery.normalize(count(1500, 2250)).getKey();
+
+		Assert.assertEquals(key, NormalizedQuery.normalize(count(1500, 2250)).getKey());
+		Assert.assertFalse(key.equals(NormalizedQuery.normalize(count(1500, 2300)).getKey()));
+	}
+
+	@Test
+	public void shouldWidenDateHistogramToWholeBuckets() {
+		final NormalizedQuery<DateHistogramResponse> first = NormalizedQuery.normalize(dateHistogram(1500, 2250));
+		final NormalizedQuery<DateHistogramResponse> refresh = NormalizedQuery.normalize(dateHistogram(1800, 2900));
+
+		Assert.assertEquals(1000, first.getFrom());
+		Assert.assertEquals(2999, first.getTo());
+		Assert.assertEquals(1000L, (long) range(first.getQuery()).from());
+		Assert.assertEquals(2999L, (long) range(first.getQuery()).to());
+		Assert.assertEquals(first.getKey(), refresh.getKey());
+	}
+
+	private static CountQuery count(final long from, final long to) {
+		return QueryBuilders.count()
+				.timeRange(DateRangeBuilder.between(from, to), IntervalBuilder.interval(1000))
+				.root("api", "my-api")
+				.build();
+	}
+
+	private static DateHistogramQuery dateHistogram(final long from, final long to) {
+		return QueryBuilders.dateHistogram()
+				.timeRange(DateRangeBuilder.between(from, to), IntervalBuilder.interval(1000))
+				.root("api", "my-api")
+				.build();
+	}
+
+	private static DateRange range(final Query<?> query) {
+		return ((AbstractQuery<?>) query).timeRange().range();
+	}
+}
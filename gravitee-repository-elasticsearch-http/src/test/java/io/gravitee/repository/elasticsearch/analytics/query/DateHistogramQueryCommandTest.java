@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.analytics.query;
+
+import io.gravitee.repository.analytics.query.AggregationType;
+import io.gravitee.repository.analytics.query.DateHistogramQuery;
+import io.gravitee.repository.analytics.query.DateRangeBuilder;
+import io.gravitee.repository.analytics.query.IntervalBuilder;
+import io.gravitee.repository.analytics.query.QueryBuilders;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+import io.gravitee.repository.analytics.query.response.histogram.DateHistogramResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DateHistogramQueryCommandTest {
+
+	@Test
+	public void shouldMergeTheBucketsOfEachDay() {
+		final DateHistogramQuery query = QueryBuilders.dateHistogram()
+				.timeRange(DateRangeBuilder.between(0, 3999), IntervalBuilder.interval(1000))
+				.aggregation(AggregationType.FIELD, "status")
+				.aggregation(AggregationType.AVG, "response-time")
+				.build();
+
+		final DateHistogramResponse merged = new DateHistogramQueryCommand().merger(query)
+				.apply(Arrays.asList(day(0), day(2000)));
+
+		Assert.assertEquals(4, merged.timestamps().size());
+		Assert.assertEquals(2, merged.values().size());
+		Assert.assertEquals(4, merged.values().get(0).data().get("200").size());
+	}
+
+	@Test
+	public void shouldNotMergeMissingAggregationsIntoNullBuckets() {
+		final DateHistogramQuery query = QueryBuilders.dateHistogram()
+				.timeRange(DateRangeBuilder.between(0, 3999), IntervalBuilder.interval(1000))
+				.aggregation(AggregationType.FIELD, "status")
+				.aggregation(AggregationType.AVG, "response-time")
+				.build();
+
+		final DateHistogramResponse first = day(0);
+		first.values().remove(1);
+		final DateHistogramResponse second = day(2000);
+		second.values().remove(1);
+
+		final DateHistogramResponse merged = new DateHistogramQueryCommand().merger(query)
+				.apply(Arrays.asList(first, second));
+
+		Assert.assertEquals(2, merged.values().size());
+		final Bucket missing = merged.values().get(1);
+		Assert.assertNotNull(missing);
+		Assert.assertEquals("avg_response-time", missing.name());
+		Assert.assertTrue(missing.data().isEmpty());
+	}
+
+	/**
+	 * Response of a time range with two buckets, by status and by average response time.
+	 */
+	private static DateHistogramResponse day(final long from) {
+		final DateHistogramResponse response = new DateHistogramResponse();
+		final Bucket byStatus = new Bucket("by_status", "status");
+		final Bucket avgResponseTime = new Bucket("avg_response-time", "response-time");
+
+		for (long timestamp = from; timestamp < from + 2000; timestamp += 1000) {
+			response.timestamps().add(timestamp);
+		}
+		byStatus.data().put("200", Arrays.asList(new Data(from, 1), new Data(from + 1000, 2)));
+		avgResponseTime.data().put("avg_response-time", Collections.singletonList(new Data(from, 10)));
+		response.values().add(byStatus);
+		response.values().add(avgResponseTime);
+
+		return response;
+	}
+}
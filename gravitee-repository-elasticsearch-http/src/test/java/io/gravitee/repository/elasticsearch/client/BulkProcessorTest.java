@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.rxjava.core.Vertx;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.Single;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BulkProcessorTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Vertx vertx;
+
+	private BulkProcessor processor;
+
+	@Before
+	public void setUp() {
+		vertx = Vertx.vertx();
+		processor = new BulkProcessor(vertx, bulk -> Observable.<JsonNode>never().toSingle(), 100, 1024 * 1024, 1, 100,
+				OverflowPolicy.DROP, 0, 2, 1);
+	}
+
+	@After
+	public void tearDown() {
+		vertx.close();
+	}
+
+	@Test
+	public void shouldSplitActions() {
+		final List<BulkProcessor.BulkItem> items = BulkProcessor.split(
+				"{\"index\":{\"_index\":\"gravitee\",\"_type\":\"request\"}}\n{\"id\":\"1\"}\n" +
+				"{\"delete\":{\"_index\":\"gravitee\",\"_type\":\"request\",\"_id\":\"2\"}}\n" +
+				"{\"index\":{\"_index\":\"gravitee\",\"_type\":\"request\"}}\n{\"id\":\"3\"}\n");
+
+		Assert.assertEquals(3, items.size());
+		Assert.assertEquals("{\"id\":\"1\"}", items.get(0).source);
+		Assert.assertNull(items.get(1).source);
+		Assert.assertEquals("{\"id\":\"3\"}", items.get(2).source);
+	}
+
+	@Test
+	public void shouldRetryOnlyRejectedActions() throws Exception {
+		final List<BulkProcessor.BulkItem> batch = BulkProcessor.split(
+				"{\"index\":{}}\n{\"id\":\"1\"}\n{\"index\":{}}\n{\"id\":\"2\"}\n{\"index\":{}}\n{\"id\":\"3\"}\n");
+
+		processor.handleResponse(batch, mapper.readTree("{\"errors\":true,\"items\":[" +
+				"{\"index\":{\"status\":201}}," +
+				"{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+				"{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}"));
+
+		for (int i = 0; i < 50 && processor.getQueueSize() == 0; i++) {
+			Thread.sleep(20);
+		}
+
+		Assert.assertEquals(1, processor.getQueueSize());
+		Assert.assertEquals(1, batch.get(1).attempts);
+	}
+
+	@Test
+	public void shouldDropActionsAfterMaxRetries() throws Exception {
+		final List<BulkProcessor.BulkItem> batch = BulkProcessor.split("{\"index\":{}}\n{\"id\":\"1\"}\n");
+		batch.get(0).attempts = 2;
+
+		processor.handleResponse(batch, mapper.readTree(
+				"{\"errors\":true,\"items\":[{\"index\":{\"status\":503}}]}"));
+
+		Assert.assertEquals(0, processor.getQueueSize());
+		Assert.assertEquals(1, processor.getDroppedItems());
+	}
+
+	@Test
+	public void shouldSendQueuedActionsBeforeStopping() throws Exception {
+		final List<String> sent = new CopyOnWriteArrayList<>();
+		final BulkProcessor processor = new BulkProcessor(vertx, bulk -> {
+			sent.add(bulk);
+			return Single.<JsonNode>just(mapper.createObjectNode()).delay(50, TimeUnit.MILLISECONDS);
+		}, 2, 1024 * 1024, 1, 100, OverflowPolicy.DROP, 0, 2, 1);
+
+		processor.add("{\"index\":{}}\n{\"id\":\"1\"}\n{\"index\":{}}\n{\"id\":\"2\"}\n{\"index\":{}}\n{\"id\":\"3\"}\n");
+
+		Assert.assertTrue(processor.stop(5000).await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(2, sent.size());
+		Assert.assertEquals(0, processor.getQueueSize());
+	}
+
+	@Test
+	public void shouldStopAfterTimeoutWhenRequestsHang() {
+		processor.add("{\"index\":{}}\n{\"id\":\"1\"}\n");
+
+		final long start = System.currentTimeMillis();
+		processor.stop(100).await();
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class CircuitBreakerTest {
+
+	@Test
+	public void shouldOpenAfterConsecutiveFailures() {
+		final CircuitBreaker circuitBreaker = new CircuitBreaker(3, 60000);
+
+		circuitBreaker.onFailure();
+		circuitBreaker.onFailure();
+		circuitBreaker.onSuccess();
+		circuitBreaker.onFailure();
+		circuitBreaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+		circuitBreaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		Assert.assertFalse(circuitBreaker.isCallPermitted());
+		Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	public void shouldLetASingleTrialCallThrough() throws InterruptedException {
+		final CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10);
+
+		circuitBreaker.onFailure();
+		Thread.sleep(20);
+
+		Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+		Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+		Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+		circuitBreaker.onSuccess();
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	public void shouldReopenWhenTrialCallFails() throws InterruptedException {
+		final CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10);
+
+		circuitBreaker.onFailure();
+		Thread.sleep(20);
+
+		Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+		circuitBreaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+	}
+
+	@Test
+	public void shouldNeverOpenWhenDisabled() {
+		final CircuitBreaker circuitBreaker = new CircuitBreaker(0, 10);
+
+		for (int i = 0; i < 100; i++) {
+			circuitBreaker.onFailure();
+		}
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+	}
+}
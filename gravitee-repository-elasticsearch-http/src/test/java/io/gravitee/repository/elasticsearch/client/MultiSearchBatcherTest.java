@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.client;
+
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import io.vertx.rxjava.core.Vertx;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class MultiSearchBatcherTest {
+
+	private Vertx vertx;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		vertx = Vertx.vertx();
+	}
+
+	@After
+	public void tearDown() {
+		vertx.close();
+	}
+
+	@Test
+	public void shouldGatherSearchesAndDispatchResponses() {
+		final MultiSearchBatcher batcher = new MultiSearchBatcher(vertx, this::multiSearch, 20, 10);
+
+		final List<Single<ESSearchResponse>> searches = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			searches.add(batcher.search(new SearchRequest("gravitee", "request", Integer.toString(i))).cache());
+			searches.get(i).subscribe(response -> {}, throwable -> {});
+		}
+
+		Assert.assertEquals(0L, (long) searches.get(0).toBlocking().value().getTook());
+		Assert.assertEquals(2L, (long) searches.get(2).toBlocking().value().getTook());
+		Assert.assertEquals(1, requests.get());
+
+		try {
+			searches.get(1).toBlocking().value();
+			Assert.fail("The second search should fail");
+		} catch (RuntimeException re) {
+			Assert.assertTrue(re instanceof ElasticsearchException);
+		}
+	}
+
+	@Test
+	public void shouldSendFullBatchImmediately() {
+		final MultiSearchBatcher batcher = new MultiSearchBatcher(vertx, this::multiSearch, 60000, 2);
+
+		final Single<ESSearchResponse> first = batcher.search(new SearchRequest(null, null, "0")).cache();
+		first.subscribe(response -> {}, throwable -> {});
+		final ESSearchResponse second = batcher.search(new SearchRequest(null, null, "2")).toBlocking().value();
+
+		Assert.assertEquals(2L, (long) second.getTook());
+		Assert.assertEquals(0L, (long) first.toBlocking().value().getTook());
+		Assert.assertEquals(1, requests.get());
+	}
+
+	/**
+	 * Answer each search with its query as took value, and fail odd queries.
+	 */
+	private Single<List<Single<ESSearchResponse>>> multiSearch(final List<SearchRequest> searches) {
+		requests.incrementAndGet();
+
+		final List<Single<ESSearchResponse>> responses = new ArrayList<>();
+		for (SearchRequest search : searches) {
+			final long value = Long.parseLong(search.getQuery());
+			if (value % 2 == 0) {
+				final ESSearchResponse response = new ESSearchResponse();
+				response.setTook(value);
+				responses.add(Single.just(response));
+			} else {
+				responses.add(Single.error(new ElasticsearchException("Search failed", 400)));
+			}
+		}
+
+		return Single.just(responses);
+	}
+}
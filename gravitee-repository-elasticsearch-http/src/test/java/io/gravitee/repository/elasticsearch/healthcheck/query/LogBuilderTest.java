@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.healthcheck.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.common.http.HttpMethod;
+import io.gravitee.repository.healthcheck.query.log.Log;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the streaming decoding of the health-check logs.
+ *
+ * @author GraviteeSource Team
+ */
+public class LogBuilderTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void shouldDecodeLogs() throws Exception {
+		final LogSearchResponse response = mapper.readValue("{\"hits\":{\"total\":2,\"hits\":[" +
+				"{\"_id\":\"hc-1\",\"_source\":{\"gateway\":\"gw-1\",\"@timestamp\":\"2017-07-14T02:40:00.000+00:00\"," +
+				"\"endpoint\":\"http://backend\",\"response-time\":15,\"available\":true,\"state\":3,\"success\":false," +
+				"\"steps\":[{\"success\":false,\"request\":{\"uri\":\"http://backend/health\",\"method\":\"GET\"," +
+				"\"headers\":{}},\"response\":{\"status\":503,\"body\":\"down\"}},{\"request\":{\"uri\":\"/other\"}}]," +
+				"\"api\":\"api-1\"}}," +
+				"{\"_id\":\"hc-2\",\"_source\":{\"steps\":[{\"uri\":\"/legacy\",\"method\":\"post\",\"status\":200}]," +
+				"\"available\":false}}]}}", LogSearchResponse.class);
+
+		final Log log = LogBuilder.createLog(response.getSearchHits().getHits().get(0));
+		Assert.assertEquals("hc-1", log.getId());
+		Assert.assertEquals("gw-1", log.getGateway());
+		Assert.assertEquals(1500000000000L, log.getTimestamp());
+		Assert.assertEquals(15, log.getResponseTime());
+		Assert.assertTrue(log.isAvailable());
+		Assert.assertFalse(log.isSuccess());
+		Assert.assertEquals(3, log.getState());
+		Assert.assertEquals("http://backend/health", log.getUri());
+		Assert.assertEquals(HttpMethod.GET, log.getMethod());
+		Assert.assertEquals(503, log.getStatus());
+
+		final Log legacy = LogBuilder.createLog(response.getSearchHits().getHits().get(1));
+		Assert.assertEquals("/legacy", legacy.getUri());
+		Assert.assertEquals(HttpMethod.POST, legacy.getMethod());
+		Assert.assertEquals(200, legacy.getStatus());
+		Assert.assertFalse(legacy.isAvailable());
+	}
+}
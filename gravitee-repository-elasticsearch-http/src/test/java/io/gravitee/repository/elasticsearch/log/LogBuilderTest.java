@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.common.http.HttpMethod;
+import io.gravitee.repository.elasticsearch.model.elasticsearch.SearchHit;
+import io.gravitee.repository.log.model.ExtendedLog;
+import io.gravitee.repository.log.model.Log;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Test the streaming decoding of the request logs.
+ *
+ * @author GraviteeSource Team
+ */
+public class LogBuilderTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void shouldDecodeLogs() throws Exception {
+		final LogSearchResponse response = mapper.readValue("{\"hits\":{\"total\":2,\"max_score\":null,\"hits\":[" +
+				"{\"_index\":\"gravitee-2017.07.14\",\"_type\":\"request\",\"_id\":\"req-1\",\"_score\":null," +
+				"\"_source\":{\"gateway\":\"gw-1\",\"@timestamp\":\"2017-07-14T02:40:00.000+00:00\"," +
+				"\"transaction\":\"tx-1\",\"uri\":\"/echo\",\"method\":3,\"status\":200,\"response-time\":12," +
+				"\"local-address\":\"127.0.0.1\",\"remote-address\":\"10.0.0.1\",\"api\":\"api-1\"," +
+				"\"application\":null,\"client-request\":{\"uri\":\"/ignored\"},\"extra\":{\"nested\":[1,2]}}," +
+				"\"sort\":[1500000000000]}," +
+				"{\"_index\":\"gravitee-2017.07.14\",\"_type\":\"request\",\"_id\":\"req-2\"," +
+				"\"_source\":{\"@timestamp\":\"2017-07-14T02:41:00.000+00:00\",\"method\":\"POST\"," +
+				"\"status\":\"404\",\"api-response-time\":8}}]}}", LogSearchResponse.class);
+
+		Assert.assertEquals(Long.valueOf(2), response.getSearchHits().getTotal());
+
+		final Log log = LogBuilder.createLog(response.getSearchHits().getHits().get(0));
+		Assert.assertEquals("req-1", log.getId());
+		Assert.assertEquals("tx-1", log.getTransactionId());
+		Assert.assertEquals(1500000000000L, log.getTimestamp());
+		Assert.assertEquals(HttpMethod.GET, log.getMethod());
+		Assert.assertEquals(200, log.getStatus());
+		Assert.assertEquals(12L, log.getResponseTime());
+		Assert.assertEquals("api-1", log.getApi());
+		Assert.assertNull(log.getApplication());
+		Assert.assertFalse(log instanceof ExtendedLog);
+
+		final Log other = LogBuilder.createLog(response.getSearchHits().getHits().get(1));
+		Assert.assertEquals(HttpMethod.POST, other.getMethod());
+		Assert.assertEquals(404, other.getStatus());
+		Assert.assertEquals(8L, other.getApiResponseTime());
+	}
+
+	@Test
+	public void shouldDecodeExtendedLog() throws Exception {
+		final ExtendedLogSearchResponse request = mapper.readValue("{\"hits\":{\"total\":1,\"hits\":[" +
+				"{\"_index\":\"gravitee-2017.07.14\",\"_id\":\"req-1\",\"_source\":{" +
+				"\"@timestamp\":\"2017-07-14T02:40:00.000+00:00\",\"method\":\"GET\",\"uri\":\"/echo\"}}]}}",
+				ExtendedLogSearchResponse.class);
+		final ExtendedLogSearchResponse details = mapper.readValue("{\"hits\":{\"total\":1,\"hits\":[" +
+				"{\"_id\":\"req-1\",\"_source\":{\"@timestamp\":\"2017-07-14T02:40:00.000+00:00\"," +
+				"\"client-request\":{\"method\":\"GET\",\"uri\":\"/echo\",\"headers\":{\"Accept\":[\"*/*\",\"text/plain\"]}}," +
+				"\"proxy-request\":{\"method\":\"GET\"}," +
+				"\"client-response\":{\"status\":200,\"body\":\"ok\",\"headers\":{}}}}]}}",
+				ExtendedLogSearchResponse.class);
+
+		final SearchHit hit = request.getSearchHits().getHits().get(0);
+		final ExtendedLog log = LogBuilder.createExtendedLog(hit, details.getSearchHits().getHits().get(0));
+
+		Assert.assertEquals("req-1", log.getId());
+		Assert.assertEquals("gravitee-2017.07.14", hit.getIndex());
+		Assert.assertEquals("/echo", log.getUri());
+		Assert.assertEquals("/echo", log.getClientRequest().getUri());
+		Assert.assertEquals(Arrays.asList("*/*", "text/plain"), log.getClientRequest().getHeaders().get("Accept"));
+		Assert.assertEquals("", log.getProxyRequest().getUri());
+		Assert.assertNull(log.getProxyRequest().getHeaders());
+		Assert.assertEquals(200, log.getClientResponse().getStatus());
+		Assert.assertEquals("ok", log.getClientResponse().getBody());
+		Assert.assertNull(log.getProxyResponse());
+	}
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.metrics;
+
+import io.gravitee.repository.elasticsearch.model.elasticsearch.ESSearchResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class QueryMetricsTest {
+
+	@Test
+	public void shouldRecordTheMeasuresOfTheResponse() {
+		final RecordingRegistry registry = new RecordingRegistry();
+		final QueryMetrics metrics = new QueryMetrics(registry, "analytics.CountQuery");
+
+		final ResponseMetrics responseMetrics = new ResponseMetrics();
+		responseMetrics.setFirstByteTime(3_000_000);
+		responseMetrics.setBodyTime(1_000_000);
+		responseMetrics.setDecodeTime(500_000);
+		responseMetrics.setSize(2048);
+
+		final ESSearchResponse response = new ESSearchResponse();
+		response.setTook(2L);
+		response.setResponseMetrics(responseMetrics);
+
+		Assert.assertSame(response, metrics.received(response));
+		Assert.assertEquals(Long.valueOf(3_000_000), registry.times.get(Phase.FIRST_BYTE));
+		Assert.assertEquals(Long.valueOf(1_000_000), registry.times.get(Phase.BODY));
+		Assert.assertEquals(Long.valueOf(500_000), registry.times.get(Phase.DECODE));
+		Assert.assertEquals(Long.valueOf(2_000_000), registry.times.get(Phase.TOOK));
+		Assert.assertEquals(Long.valueOf(2048), registry.size);
+		Assert.assertEquals("analytics.CountQuery", registry.query);
+	}
+
+	@Test
+	public void shouldRecordThePhaseEvenIfItFails() {
+		final RecordingRegistry registry = new RecordingRegistry();
+		final QueryMetrics metrics = new QueryMetrics(registry, "log.TabularQuery");
+
+		Assert.assertEquals("rendered", metrics.time(Phase.RENDER, () -> "rendered"));
+		try {
+			metrics.time(Phase.CONVERSION, () -> {
+				throw new IllegalStateException();
+			});
+			Assert.fail("The conversion should fail");
+		} catch (final IllegalStateException expected) {
+		}
+
+		Assert.assertNotNull(registry.times.get(Phase.RENDER));
+		Assert.assertNotNull(registry.times.get(Phase.CONVERSION));
+	}
+
+	@Test
+	public void shouldMeasureTheWholeQueryOnSubscription() {
+		final RecordingRegistry registry = new RecordingRegistry();
+		final QueryMetrics metrics = new QueryMetrics(registry, "healthcheck.LogsQuery");
+
+		final Single<String> query = metrics.measure(() -> Single.just("response"));
+		Assert.assertNull(registry.times.get(Phase.TOTAL));
+
+		Assert.assertEquals("response", query.toBlocking().value());
+		Assert.assertNotNull(registry.times.get(Phase.TOTAL));
+		Assert.assertTrue(registry.errors.isEmpty());
+	}
+
+	@Test
+	public void shouldCountTheFailedQueries() {
+		final RecordingRegistry registry = new RecordingRegistry();
+		final QueryMetrics metrics = new QueryMetrics(registry, "healthcheck.LogsQuery");
+		final IllegalStateException error = new IllegalStateException();
+
+		try {
+			metrics.measure(() -> Single.error(error)).toBlocking().value();
+			Assert.fail("The query should fail");
+		} catch (final IllegalStateException expected) {
+		}
+
+		Assert.assertNull(registry.times.get(Phase.TOTAL));
+		Assert.assertEquals(1, registry.errors.size());
+		Assert.assertSame(error, registry.errors.get(0));
+	}
+
+	private static final class RecordingRegistry implements MetricsRegistry {
+
+		private final Map<Phase, Long> times = new EnumMap<>(Phase.class);
+
+		private final List<Throwable> errors = new ArrayList<>();
+
+		private Long size;
+
+		private String query;
+
+		@Override
+		public void recordTime(final String query, final Phase phase, final long nanos) {
+			this.query = query;
+			this.times.put(phase, nanos);
+		}
+
+		@Override
+		public void recordResponseSize(final String query, final long bytes) {
+			this.size = bytes;
+		}
+
+		@Override
+		public void recordError(final String query, final Throwable throwable) {
+			this.errors.add(throwable);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.model.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.repository.analytics.query.groupby.GroupByResponse;
+import io.gravitee.repository.analytics.query.response.histogram.Bucket;
+import io.gravitee.repository.analytics.query.response.histogram.Data;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Test the streaming decoding of the analytics aggregations.
+ *
+ * @author GraviteeSource Team
+ */
+public class AggregationDeserializerTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void shouldDecodeDateHistogram() throws Exception {
+		final DateHistogramSearchResponse response = mapper.readValue("{\"took\":3,\"hits\":{\"total\":3,\"hits\":[]}," +
+				"\"aggregations\":{\"by_date\":{\"buckets\":[" +
+				"{\"key_as_string\":\"2017-07-14T02:40:00.000Z\",\"key\":1500000000000,\"doc_count\":2," +
+				"\"by_status\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+				"{\"key\":200,\"doc_count\":1},{\"key\":500,\"doc_count\":1}]}," +
+				"\"avg_response-time\":{\"value\":12.7}}," +
+				"{\"key_as_string\":\"2017-07-14T02:41:00.000Z\",\"key\":1500000060000,\"doc_count\":1," +
+				"\"by_status\":{\"buckets\":[{\"key\":200,\"doc_count\":1}]}," +
+				"\"avg_response-time\":{\"value\":null}}]}}}", DateHistogramSearchResponse.class);
+
+		final DateHistogramAggregation histogram = (DateHistogramAggregation) response.getAggregations().get("by_date");
+		Assert.assertArrayEquals(new long[] {1500000000000L, 1500000060000L}, histogram.getTimestamps());
+		Assert.assertEquals(Long.valueOf(3), response.getSearchHits().getTotal());
+
+		final Bucket status = histogram.getFieldBuckets().get("by_status");
+		Assert.assertEquals("status", status.field());
+		final List<Data> ok = status.data().get("200");
+		Assert.assertEquals(2, ok.size());
+		Assert.assertEquals(1500000060000L, ok.get(1).timestamp());
+		Assert.assertEquals(1L, ok.get(1).value());
+		Assert.assertEquals(1, status.data().get("500").size());
+
+		final Bucket responseTime = histogram.getFieldBuckets().get("avg_response-time");
+		Assert.assertEquals("response-time", responseTime.field());
+		final List<Data> averages = responseTime.data().get("avg_response-time");
+		Assert.assertEquals(1, averages.size());
+		Assert.assertEquals(12L, averages.get(0).value());
+	}
+
+	@Test
+	public void shouldDecodeGroupBy() throws Exception {
+		final GroupBySearchResponse terms = mapper.readValue("{\"aggregations\":{\"by_api\":{\"buckets\":[" +
+				"{\"key\":\"api-1\",\"doc_count\":10,\"avg_response-time\":{\"value\":42.9}}," +
+				"{\"key\":\"api-2\",\"doc_count\":5,\"avg_response-time\":{\"value\":null}}]}}}",
+				GroupBySearchResponse.class);
+
+		final List<GroupByResponse.Bucket> values =
+				((GroupByAggregation) terms.getAggregations().get("by_api")).getValues();
+		Assert.assertEquals(1, values.size());
+		Assert.assertEquals("api-1", values.get(0).name());
+		Assert.assertEquals(42L, values.get(0).value());
+
+		final GroupBySearchResponse ranges = mapper.readValue("{\"aggregations\":{\"status_range\":{\"buckets\":[" +
+				"{\"key\":\"100.0-200.0\",\"from\":100.0,\"to\":200.0,\"doc_count\":0}," +
+				"{\"key\":\"200.0-300.0\",\"from\":200.0,\"to\":300.0,\"doc_count\":7}]}}}",
+				GroupBySearchResponse.class);
+
+		final List<GroupByResponse.Bucket> rangeValues =
+				((GroupByAggregation) ranges.getAggregations().get("status_range")).getValues();
+		Assert.assertEquals(2, rangeValues.size());
+		Assert.assertEquals("200.0-300.0", rangeValues.get(1).name());
+		Assert.assertEquals(7L, rangeValues.get(1).value());
+	}
+
+	@Test
+	public void shouldDecodeFromTree() throws Exception {
+		// Multi search responses are split as trees before being decoded
+		final GroupBySearchResponse response = mapper.treeToValue(mapper.readTree("{\"aggregations\":{\"by_api\":" +
+				"{\"buckets\":[{\"key\":\"api-1\",\"doc_count\":10}]}}}"), GroupBySearchResponse.class);
+
+		final List<GroupByResponse.Bucket> values =
+				((GroupByAggregation) response.getAggregations().get("by_api")).getValues();
+		Assert.assertEquals(10L, values.get(0).value());
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import freemarker.template.Configuration;
+import io.gravitee.repository.analytics.query.AggregationType;
+import io.gravitee.repository.analytics.query.Order;
+import io.gravitee.repository.analytics.query.SortBuilder;
+import io.gravitee.repository.analytics.query.SortType;
+import io.gravitee.repository.elasticsearch.query.healthcheck.AverageAvailabilityBodyBuilder;
+import io.gravitee.repository.healthcheck.query.availability.AvailabilityQuery;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Locale;
+
+import static io.gravitee.repository.analytics.query.DateRangeBuilder.between;
+import static io.gravitee.repository.analytics.query.IntervalBuilder.minutes;
+import static io.gravitee.repository.analytics.query.QueryBuilders.*;
+
+/**
+ * Check that the builders produce the same search bodies as the FreeMarker templates.
+ *
+ * @author GraviteeSource Team
+ */
+public class SearchBodyBuilderTest {
+
+	/**
+	 * Numbers are compared by value, templates writing <code>100</code> where builders write <code>100.0</code>.
+	 */
+	private static final Comparator<JsonNode> SAME_VALUE = (a, b) ->
+			(a.isNumber() && b.isNumber()) ? Double.compare(a.doubleValue(), b.doubleValue()) : (a.equals(b) ? 0 : 1);
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Configuration freemarker;
+
+	@Before
+	public void setUp() {
+		freemarker = new Configuration(Configuration.VERSION_2_3_23);
+		freemarker.setDefaultEncoding(StandardCharsets.UTF_8.name());
+		freemarker.setLocale(Locale.ENGLISH);
+		freemarker.setNumberFormat("computer");
+		freemarker.setClassLoaderForTemplateLoading(Thread.currentThread().getContextClassLoader(), "/freemarker");
+	}
+
+	@Test
+	public void shouldBuildCount() throws Exception {
+		assertSameBody("count.ftl", new CountBodyBuilder(), count()
+				.query("api:1234")
+				.root("application", "4321")
+				.timeRange(between(1000, 2000), minutes(1))
+				.build());
+	}
+
+	@Test
+	public void shouldBuildDateHistogram() throws Exception {
+		assertSameBody("dateHistogram.ftl", new DateHistogramBodyBuilder(), dateHistogram()
+				.query("api:1234")
+				.timeRange(between(60000, 600000), minutes(1))
+				.aggregation(AggregationType.AVG, "response-time")
+				.aggregation(AggregationType.FIELD, "application")
+				.build());
+	}
+
+	@Test
+	public void shouldBuildGroupByRanges() throws Exception {
+		assertSameBody("groupBy.ftl", new GroupByBodyBuilder(), groupBy()
+				.root("api", "1234")
+				.timeRange(between(1000, 2000), minutes(1))
+				.field("status")
+				.range(100, 199)
+				.range(200.5, 299.5)
+				.build());
+	}
+
+	@Test
+	public void shouldBuildSortedGroupBy() throws Exception {
+		assertSameBody("groupBy.ftl", new GroupByBodyBuilder(), groupBy()
+				.timeRange(between(1000, 2000), minutes(1))
+				.field("api")
+				.sort(SortBuilder.on("response-time", Order.DESC, SortType.AVG))
+				.build());
+	}
+
+	@Test
+	public void shouldBuildLogs() throws Exception {
+		assertSameBody("log/log.ftl", new LogsBodyBuilder(), tabular()
+				.query("status:500")
+				.timeRange(between(1000, 2000), minutes(1))
+				.page(3)
+				.size(20)
+				.build());
+	}
+
+	@Test
+	public void shouldBuildAvailability() throws Exception {
+		assertSameBody("healthcheck/avg-availability.ftl", new AverageAvailabilityBodyBuilder(),
+				io.gravitee.repository.healthcheck.query.QueryBuilders.availability()
+						.api("1234")
+						.field(AvailabilityQuery.Field.ENDPOINT)
+						.build());
+	}
+
+	@Test
+	public void shouldEscapeQueryString() throws Exception {
+		final String filter = "path:\"/api\" AND \\\"}, {\"match_all\": {}";
+
+		final JsonNode body = mapper.readTree(new CountBodyBuilder().build(count().query(filter).build()).toString());
+
+		Assert.assertEquals(filter, body.at("/query/bool/filter/0/query_string/query").asText());
+		Assert.assertEquals(1, body.at("/query/bool/filter").size());
+	}
+
+	private <Q> void assertSameBody(final String template, final SearchBodyBuilder<Q> builder, final Q query)
+			throws Exception {
+		final StringWriter expected = new StringWriter();
+		freemarker.getTemplate(template).process(Collections.singletonMap("query", query), expected);
+
+		final JsonNode expectedBody = mapper.readTree(expected.toString());
+		final JsonNode body = mapper.readTree(builder.build(query).toString());
+
+		Assert.assertTrue("Expected " + expectedBody + " but was " + body, expectedBody.equals(SAME_VALUE, body));
+	}
+}
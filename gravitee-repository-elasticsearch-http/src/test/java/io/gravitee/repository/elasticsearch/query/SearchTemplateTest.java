@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.repository.analytics.query.count.CountQuery;
+import io.gravitee.repository.elasticsearch.query.healthcheck.LogsBodyBuilder;
+import io.gravitee.repository.healthcheck.query.log.LogsQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.gravitee.repository.analytics.query.DateRangeBuilder.between;
+import static io.gravitee.repository.analytics.query.IntervalBuilder.minutes;
+import static io.gravitee.repository.analytics.query.QueryBuilders.count;
+
+/**
+ * Check that the stored search templates, once rendered by Elasticsearch, match the bodies of the builders.
+ *
+ * @author GraviteeSource Team
+ */
+public class SearchTemplateTest {
+
+	private static final Pattern SECTION = Pattern.compile("\\{\\{#(\\w+)}}(.*?)\\{\\{/\\1}}", Pattern.DOTALL);
+
+	private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void shouldVersionTemplateIds() {
+		for (SearchTemplate template : SearchTemplate.values()) {
+			Assert.assertTrue(template.getId(), template.getId().matches("gravitee-[a-z-]+-[0-9a-f]{12}"));
+			Assert.assertFalse(template.getSource().isEmpty());
+		}
+	}
+
+	@Test
+	public void shouldRenderCountLikeBuilder() throws Exception {
+		final CountBodyBuilder builder = new CountBodyBuilder();
+		final CountQuery query = count()
+				.timeRange(between(1500000000000L, 1500003600000L), minutes(1))
+				.root("api", "4d8d6ca8-c2c7-4ab8-8d6c-a8c2c79ab8a1")
+				.query("status:[500 TO 599] AND \"quoted\"")
+				.build();
+
+		assertSameBody(builder.build(query).toString(), builder.stored(query));
+
+		final CountQuery withoutFilters = count()
+				.timeRange(between(1500000000000L, 1500003600000L), minutes(1))
+				.build();
+
+		assertSameBody(builder.build(withoutFilters).toString(), builder.stored(withoutFilters));
+	}
+
+	@Test
+	public void shouldNotStoreCountWithoutTimeRange() {
+		Assert.assertNull(new CountBodyBuilder().stored(count().build()));
+	}
+
+	@Test
+	public void shouldRenderByIdLikeBuilder() throws Exception {
+		final ByIdBodyBuilder builder = new ByIdBodyBuilder();
+
+		assertSameBody(builder.build("AV3b_cBIU6f7QL2X2gaq").toString(), builder.stored("AV3b_cBIU6f7QL2X2gaq"));
+	}
+
+	@Test
+	public void shouldRenderHealthLogsLikeBuilder() throws Exception {
+		final LogsBodyBuilder builder = new LogsBodyBuilder();
+		final LogsQuery query = io.gravitee.repository.healthcheck.query.QueryBuilders.logs()
+				.api("4d8d6ca8-c2c7-4ab8-8d6c-a8c2c79ab8a1")
+				.page(3)
+				.size(20)
+				.build();
+
+		assertSameBody(builder.build(query).toString(), builder.stored(query));
+	}
+
+	private void assertSameBody(final String expected, final StoredSearch search) throws Exception {
+		final String rendered = render(search.getTemplate().getSource(), search.getParams());
+
+		Assert.assertEquals(mapper.readTree(expected), mapper.readTree(rendered));
+	}
+
+	/**
+	 * Render the subset of mustache used by the templates, escaping the values as JSON like Elasticsearch does.
+	 */
+	@SuppressWarnings("unchecked")
+	private String render(final String source, final Map<String, Object> params) throws Exception {
+		final StringBuffer sections = new StringBuffer();
+		final Matcher section = SECTION.matcher(source);
+		while (section.find()) {
+			final Object value = params.get(section.group(1));
+			String content = "";
+			if (value != null) {
+				final Map<String, Object> context = new HashMap<>(params);
+				if (value instanceof Map) {
+					context.putAll((Map<String, Object>) value);
+				}
+				content = render(section.group(2), context);
+			}
+			section.appendReplacement(sections, Matcher.quoteReplacement(content));
+		}
+		section.appendTail(sections);
+
+		final StringBuffer variables = new StringBuffer();
+		final Matcher variable = VARIABLE.matcher(sections);
+		while (variable.find()) {
+			final JsonNode value = mapper.valueToTree(params.get(variable.group(1)));
+			final String content = value.isTextual() ? mapper.writeValueAsString(value.asText()) : value.toString();
+			variable.appendReplacement(variables, Matcher.quoteReplacement(
+					value.isTextual() ? content.substring(1, content.length() - 1) : content));
+		}
+		variable.appendTail(variables);
+
+		return variables.toString();
+	}
+}
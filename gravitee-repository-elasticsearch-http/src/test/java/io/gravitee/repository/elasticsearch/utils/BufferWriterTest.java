@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.utils;
+
+import io.vertx.rxjava.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BufferWriterTest {
+
+    @Test
+    public void shouldEncodeLikeString() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append("a\u00e9\u20ac\ud83d\ude00");
+        }
+
+        final Buffer buffer = Buffer.buffer();
+        try (BufferWriter writer = new BufferWriter(buffer)) {
+            // Split the surrogate pairs across writes
+            final String value = text.toString();
+            for (int i = 0; i < value.length(); i += 7) {
+                writer.write(value, i, Math.min(7, value.length() - i));
+            }
+        }
+
+        Assert.assertArrayEquals(text.toString().getBytes(StandardCharsets.UTF_8), buffer.getDelegate().getBytes());
+    }
+
+    @Test
+    public void shouldReplaceUnpairedSurrogates() throws Exception {
+        final Buffer buffer = Buffer.buffer("{");
+        try (BufferWriter writer = new BufferWriter(buffer)) {
+            writer.write("a\ude00b\ud83d");
+        }
+
+        Assert.assertEquals("{a?b?", buffer.toString());
+    }
+}
@@ -37,4 +37,28 @@ public class DateUtilsTest {
         List<String> indices = DateUtils.rangedIndices(1473459236000l, 1474582436000l);
         Assert.assertEquals(14, indices.size());
     }
+
+    @Test
+    public void shouldSplitRangeIntoDailyIndices() {
+        final long from = 1473459236000l;
+        final long to = 1474582436000l;
+
+        List<long[]> ranges = DateUtils.dailyRanges(from, to);
+        Assert.assertEquals(DateUtils.rangedIndices(from, to).size(), ranges.size());
+        Assert.assertEquals(from, ranges.get(0)[0]);
+        Assert.assertEquals(to, ranges.get(ranges.size() - 1)[1]);
+
+        for (int i = 1; i < ranges.size(); i++) {
+            Assert.assertEquals(ranges.get(i - 1)[1] + 1, ranges.get(i)[0]);
+        }
+    }
+
+    @Test
+    public void shouldOnlyConsiderInnerDailyRangesAsWholeDays() {
+        List<long[]> ranges = DateUtils.dailyRanges(1473459236000l, 1474582436000l);
+
+        Assert.assertFalse(DateUtils.isWholeDay(ranges.get(0)[0], ranges.get(0)[1]));
+        Assert.assertTrue(DateUtils.isWholeDay(ranges.get(1)[0], ranges.get(1)[1]));
+        Assert.assertFalse(DateUtils.isWholeDay(ranges.get(ranges.size() - 1)[0], ranges.get(ranges.size() - 1)[1]));
+    }
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.elasticsearch.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class TimestampParserTest {
+
+    @Test
+    public void shouldParseTimestamps() {
+        final String[] timestamps = {
+                "2017-07-14T02:40:00.000Z",
+                "2017-07-14T04:40:00.123+02:00",
+                "2016-02-29T23:59:59.999-05:30",
+                "1969-12-31T23:59:59.001Z",
+                "2000-03-01T00:00:00.000+00:00",
+                "2099-12-31T12:00:00.5+14:00"
+        };
+
+        for (final String timestamp : timestamps) {
+            Assert.assertEquals(timestamp, OffsetDateTime.parse(timestamp).toInstant().toEpochMilli(),
+                    TimestampParser.parse(timestamp));
+        }
+    }
+
+    @Test
+    public void shouldParseInPlace() {
+        final char[] chars = "{\"@timestamp\":\"2017-07-14T02:40:00.000+00:00\"}".toCharArray();
+        Assert.assertEquals(1500000000000L, TimestampParser.parse(chars, 15, 29));
+    }
+
+    @Test
+    public void shouldParseOptionalFractionAndCompactOffsets() {
+        Assert.assertEquals(1500000000000L, TimestampParser.parse("2017-07-14T02:40:00Z"));
+        Assert.assertEquals(1500000000123L, TimestampParser.parse("2017-07-14T02:40:00.123456789Z"));
+        Assert.assertEquals(1500000000000L, TimestampParser.parse("2017-07-14T04:40:00.000+0200"));
+        Assert.assertEquals(1500000000000L, TimestampParser.parse("2017-07-14T00:40:00.000-02"));
+    }
+
+    @Test
+    public void shouldKeepOffset() {
+        final ZonedDateTime dateTime = TimestampParser.parseZoned("2017-07-14T04:40:00.000+02:00");
+        Assert.assertEquals(ZoneOffset.ofHours(2), dateTime.getOffset());
+        Assert.assertEquals(1500000000000L, dateTime.toInstant().toEpochMilli());
+        Assert.assertEquals(ZoneOffset.UTC, TimestampParser.parseZoned("2017-07-14T02:40:00.000Z").getOffset());
+    }
+
+    @Test
+    public void shouldRejectInvalidTimestamps() {
+        final String[] timestamps = {
+                "",
+                "2017-07-14",
+                "2017-07-14 02:40:00.000Z",
+                "2017-02-29T02:40:00.000Z",
+                "2017-07-14T24:00:00.000Z",
+                "2017-07-14T02:40:00.Z",
+                "2017-07-14T02:40:00.000",
+                "2017-07-14T02:40:00.000+2:00",
+                "2017-07-14T02:40:00.000Zulu",
+                "2017-O7-14T02:40:00.000Z"
+        };
+
+        for (final String timestamp : timestamps) {
+            try {
+                TimestampParser.parse(timestamp);
+                Assert.fail(timestamp);
+            } catch (final IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}